@@ -0,0 +1,37 @@
+package com.mindex.challenge.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mindex.challenge.ChallengeApplication;
+
+/**
+ * Starts the application for a benchmark without a web server, on the memory
+ * backend and with debug logging turned off so it does not dominate the
+ * measurements.
+ */
+final class BenchmarkApplication
+{
+	private BenchmarkApplication()
+	{
+	}
+
+	/**
+	 * @param properties - Passed as command line arguments, so they override
+	 *                   application.properties
+	 */
+	static ConfigurableApplicationContext start(String... properties)
+	{
+		List<String> args = new ArrayList<>(Arrays.asList("--mongo.backend=memory", "--logging.level.com.mindex=WARN",
+				"--logging.level.root=WARN"));
+		Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+
+		return new SpringApplicationBuilder(ChallengeApplication.class).web(WebApplicationType.NONE)
+				.run(args.toArray(new String[0]));
+	}
+}
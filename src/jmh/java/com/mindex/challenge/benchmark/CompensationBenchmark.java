@@ -0,0 +1,80 @@
+package com.mindex.challenge.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.load.OrgChartGenerator;
+import com.mindex.challenge.service.EmployeeService;
+
+/**
+ * Adding compensation to an employee that already has a long history. Every
+ * call adds the next day, so the history grows by one per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompensationBenchmark
+{
+	@Param({ "10", "1000", "10000" })
+	private int history;
+
+	private ConfigurableApplicationContext context;
+	private EmployeeService employeeService;
+	private String employeeId;
+	private LocalDate effectiveDate;
+
+	@Setup(Level.Trial)
+	public void start()
+	{
+		context = BenchmarkApplication.start();
+		employeeService = context.getBean(EmployeeService.class);
+
+		// A single employee with a month of compensation history per entry
+		OrgChartGenerator generator = OrgChartGenerator.wide(1);
+		generator.setCompensationHistory(history);
+		employeeId = generator
+				.load(context.getBean(EmployeeRepository.class), context.getBean(CompensationRepository.class))
+				.getRootId();
+
+		effectiveDate = OrgChartGenerator.FIRST_EFFECTIVE_DATE.plusMonths(history);
+	}
+
+	@TearDown(Level.Trial)
+	public void stop()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public Employee addCompensation() throws Exception
+	{
+		Compensation compensation = compensation(effectiveDate);
+		effectiveDate = effectiveDate.plusDays(1);
+		return employeeService.addCompensation(employeeId, compensation);
+	}
+
+	private static Compensation compensation(LocalDate effectiveDate)
+	{
+		Compensation compensation = new Compensation();
+		compensation.setSalary(BigDecimal.valueOf(100_000));
+		compensation.setEffectiveDate(effectiveDate);
+		return compensation;
+	}
+}
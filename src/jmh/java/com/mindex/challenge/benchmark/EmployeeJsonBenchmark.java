@@ -0,0 +1,75 @@
+package com.mindex.challenge.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.load.OrgChartGenerator;
+
+/**
+ * Writing and reading an employee with the ObjectMapper setup Spring Boot uses
+ * for request and response bodies, for a manager with direct reports and a
+ * compensation history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeJsonBenchmark
+{
+	@Param({ "0", "10", "100" })
+	private int directReports;
+
+	@Param({ "0", "100" })
+	private int history;
+
+	private ObjectMapper objectMapper;
+	private Employee employee;
+	private String json;
+
+	@Setup
+	public void setUp() throws JsonProcessingException
+	{
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+		// The root of the generated chart, with its compensation history filled in as it is when read
+		OrgChartGenerator generator = OrgChartGenerator.wide(directReports + 1);
+		generator.setCompensationHistory(history);
+
+		List<Employee> employees = new ArrayList<>();
+		List<CompensationRecord> records = new ArrayList<>();
+		String rootId = generator.generate(employees::addAll, records::addAll).getRootId();
+
+		employee = employees.get(0);
+		employee.setCompensation(records.stream().filter(record -> record.getEmployeeId().equals(rootId))
+				.map(CompensationRecord::toCompensation).collect(Collectors.toList()));
+
+		json = objectMapper.writeValueAsString(employee);
+	}
+
+	@Benchmark
+	public String serialize() throws JsonProcessingException
+	{
+		return objectMapper.writeValueAsString(employee);
+	}
+
+	@Benchmark
+	public Employee deserialize() throws JsonProcessingException
+	{
+		return objectMapper.readValue(json, Employee.class);
+	}
+}
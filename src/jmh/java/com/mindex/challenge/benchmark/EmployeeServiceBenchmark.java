@@ -0,0 +1,81 @@
+package com.mindex.challenge.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.load.OrgChart;
+import com.mindex.challenge.load.OrgChartGenerator;
+import com.mindex.challenge.service.EmployeeService;
+
+/**
+ * Creating an employee, and reading employees through the cache and, with a
+ * cache size of 0, straight from the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeServiceBenchmark
+{
+	// Few enough for every employee to be cached after warmup when the cache is on
+	private static final int EMPLOYEES = 1_000;
+
+	@Param({ "10000", "0" })
+	private int cacheSize;
+
+	private ConfigurableApplicationContext context;
+	private EmployeeService employeeService;
+	private String[] employeeIds;
+	private Employee manager;
+
+	@Setup(Level.Trial)
+	public void start()
+	{
+		context = BenchmarkApplication.start("employee.cache.max-size=" + cacheSize);
+		employeeService = context.getBean(EmployeeService.class);
+
+		OrgChart chart = OrgChartGenerator.balanced(EMPLOYEES, 10).load(context.getBean(EmployeeRepository.class),
+				context.getBean(CompensationRepository.class));
+		employeeIds = chart.getEmployeeIds().toArray(new String[0]);
+
+		// New employees have direct reports, so create also checks the direct reports exist
+		manager = new Employee();
+		manager.setFirstName("Benchmark");
+		manager.setLastName("Manager");
+		manager.setDirectReports(List.of(Employee.reference(employeeIds[1]), Employee.reference(employeeIds[2])));
+	}
+
+	@TearDown(Level.Trial)
+	public void stop()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public Employee create() throws Exception
+	{
+		manager.setEmployeeId(null);
+		return employeeService.create(manager);
+	}
+
+	@Benchmark
+	public Employee read()
+	{
+		return employeeService.read(employeeIds[ThreadLocalRandom.current().nextInt(employeeIds.length)]);
+	}
+}
@@ -0,0 +1,102 @@
+package com.mindex.challenge.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.MessageTemplate;
+
+/**
+ * Building the exception for a request with a blank or unknown employee ID,
+ * the path a burst of bad IDs takes. Compare gc.alloc.rate.norm from the gc
+ * profiler between rejected, the way the service builds it, and
+ * legacyRejected, the way it used to: a regex replace for the message and an
+ * exception that captures its stack trace. The exception is built under
+ * stackDepth frames, as a request through the servlet container, Spring MVC
+ * and the service proxies would be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RejectedRequestBenchmark
+{
+	// The same templates the service uses
+	private static final String EMPLOYEE_ID_NOT_SPECIFIED = "Employee ID must be specified.";
+	private static final MessageTemplate EMPLOYEE_NOT_FOUND = MessageTemplate
+			.of("Employee for employee ID %employeeID% does not exists.");
+
+	@Param({ "blank", "unknown" })
+	private String reason;
+
+	@Param({ "150" })
+	private int stackDepth;
+
+	private String employeeId;
+
+	@Setup(Level.Trial)
+	public void start()
+	{
+		employeeId = "blank".equals(reason) ? " " : "03aa1462-ffa9-4978-901b-7c001562cf6f";
+	}
+
+	@Benchmark
+	public Exception rejected()
+	{
+		return atDepth(stackDepth, false);
+	}
+
+	@Benchmark
+	public Exception legacyRejected()
+	{
+		return atDepth(stackDepth, true);
+	}
+
+	private Exception atDepth(int depth, boolean legacy)
+	{
+		if (depth > 0)
+		{
+			return atDepth(depth - 1, legacy);
+		}
+		return legacy ? legacyRejection() : rejection();
+	}
+
+	private Exception rejection()
+	{
+		if (employeeId.isBlank())
+		{
+			return new EmployeeIdNotSpecifiedException(EMPLOYEE_ID_NOT_SPECIFIED);
+		}
+		return new EmployeeDoesNotExistsException(EMPLOYEE_NOT_FOUND.format(employeeId));
+	}
+
+	private Exception legacyRejection()
+	{
+		if (employeeId.isBlank())
+		{
+			return new LegacyException("Employee ID must be specified.");
+		}
+		String msg = "Employee for employee ID %employeeID% does not exists.";
+		msg = msg.replaceAll("%employeeID%", employeeId);
+		return new LegacyException(msg);
+	}
+
+	private static class LegacyException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+
+		LegacyException(String message)
+		{
+			super(message);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.mindex.challenge.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.load.OrgChart;
+import com.mindex.challenge.load.OrgChartGenerator;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+
+/**
+ * Counts the reports of the root of generated org charts with the breadth first
+ * search and the in-memory index. The embedded backend does not resolve
+ * $graphLookup over direct reports, so that engine is left out. The batch
+ * benchmarks count the first managers of the chart, whose subtrees overlap,
+ * with one shared walk and with one count per manager.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportingStructureBenchmark
+{
+	public enum Shape
+	{
+		// Everyone reports to the root
+		WIDE,
+		// A chain of managers, each with one manager and 99 others below it
+		DEEP,
+		// Every manager has ten direct reports
+		BALANCED;
+
+		OrgChartGenerator generator(int size)
+		{
+			switch (this)
+			{
+				case WIDE:
+					return OrgChartGenerator.wide(size);
+				case DEEP:
+					return OrgChartGenerator.deep(size, 100);
+				default:
+					return OrgChartGenerator.balanced(size, 10);
+			}
+		}
+	}
+
+	@Param({ "bfs", "index" })
+	private String engine;
+
+	@Param({ "WIDE", "DEEP", "BALANCED" })
+	private Shape shape;
+
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private ConfigurableApplicationContext context;
+	private EmployeeService employeeService;
+	private String rootId;
+	private List<String> managerIds;
+
+	@Setup(Level.Trial)
+	public void start() throws ReportingLimitExceededException
+	{
+		// Deep charts of a million employees are far past the default limits
+		context = BenchmarkApplication.start("reporting.engine=" + engine, "reporting.max-depth=" + size,
+				"reporting.max-nodes=" + size);
+		employeeService = context.getBean(EmployeeService.class);
+
+		OrgChart chart = shape.generator(size)
+				.load(context.getBean(EmployeeRepository.class), context.getBean(CompensationRepository.class));
+		rootId = chart.getRootId();
+		managerIds = new ArrayList<>(chart.getManagerIds().subList(0, Math.min(100, chart.getManagerIds().size())));
+
+		// The index is built at startup, before the org chart was inserted
+		context.getBeanProvider(OrgGraphIndex.class).ifAvailable(OrgGraphIndex::init);
+
+		int numberOfReports = employeeService.findReportingStructure(rootId).getNumberOfReports();
+		if (numberOfReports != size - 1)
+		{
+			throw new IllegalStateException("Expected " + (size - 1) + " reports but counted " + numberOfReports);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stop()
+	{
+		context.close();
+	}
+
+	@Benchmark
+	public ReportingStructure findReportingStructure() throws ReportingLimitExceededException
+	{
+		return employeeService.findReportingStructure(rootId);
+	}
+
+	@Benchmark
+	public List<ReportingStructure> findReportingStructuresBatch() throws ReportingLimitExceededException
+	{
+		return employeeService.findReportingStructures(managerIds);
+	}
+
+	@Benchmark
+	public List<ReportingStructure> findReportingStructuresEach() throws ReportingLimitExceededException
+	{
+		List<ReportingStructure> reportingStructures = new ArrayList<>(managerIds.size());
+		for (String managerId : managerIds)
+		{
+			reportingStructures.add(employeeService.findReportingStructure(managerId));
+		}
+		return reportingStructures;
+	}
+}
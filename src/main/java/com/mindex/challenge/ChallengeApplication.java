@@ -2,8 +2,11 @@ package com.mindex.challenge;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 
-@SpringBootApplication
+// The reactive Mongo client and repositories are only set up by ReactiveMongoConfig under the reactive profile
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class, MongoReactiveRepositoriesAutoConfiguration.class})
 public class ChallengeApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,89 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Moves compensation embedded in employee documents, the layout used before
+ * compensation had its own collection, into the compensation collection. Runs
+ * at startup after the data load, so a persistent store or an old seed file is
+ * migrated before the first request. Records are upserted on employee ID and
+ * effective date, so running it again after an interruption is safe.
+ */
+@Component
+@DependsOn("dataBootstrap")
+@Slf4j
+public class CompensationMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${compensation.migrate-embedded:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return The number of employees whose compensation was migrated
+     */
+    public int migrate() {
+        long start = System.nanoTime();
+        int employees = 0;
+        int records = 0;
+
+        String collection = mongoTemplate.getCollectionName(Employee.class);
+        Query query = Query.query(Criteria.where("compensation").exists(true));
+        query.fields().include("compensation");
+
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object employeeId = document.get("_id");
+
+                List<Document> embedded = document.getList("compensation", Document.class, List.of());
+                for (Document comp : embedded) {
+                    Compensation compensation = mongoTemplate.getConverter().read(Compensation.class, comp);
+                    if (compensation.getEffectiveDate() == null) {
+                        log.warn("Dropping compensation without an effective date for employee {}: {}", employeeId, comp);
+                        continue;
+                    }
+
+                    Query existing = Query.query(Criteria.where("employeeId").is(employeeId)
+                            .and("effectiveDate").is(compensation.getEffectiveDate()));
+                    mongoTemplate.upsert(existing, Update.update("salary", compensation.getSalary()), CompensationRecord.class);
+                    records++;
+                }
+
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(employeeId)),
+                        new Update().unset("compensation"), collection);
+                employees++;
+            }
+        }
+
+        if (employees > 0) {
+            log.info("Migrated {} compensation records for {} employees in {} ms", records, employees,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return employees;
+    }
+}
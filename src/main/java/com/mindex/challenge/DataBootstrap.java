@@ -1,39 +1,209 @@
-package com.mindex.challenge;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mindex.challenge.dao.EmployeeRepository;
-import com.mindex.challenge.data.Employee;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
-
-import java.io.IOException;
-import java.io.InputStream;
-
-@Component
-public class DataBootstrap {
-    private static final String DATASTORE_LOCATION = "/static/employee_database.json";
-
-    @Autowired
-    private EmployeeRepository employeeRepository;
-
-    @Autowired
-    private ObjectMapper objectMapper;
-
-    @PostConstruct
-    public void init() {
-        InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION);
-
-        Employee[] employees = null;
-
-        try {
-            employees = objectMapper.readValue(inputStream, Employee[].class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        for (Employee employee : employees) {
-            employeeRepository.insert(employee);
-        }
-    }
-}
+package com.mindex.challenge;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.impl.EmployeeSnapshot;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@DependsOn("mongoIndexes")
+@Slf4j
+public class DataBootstrap {
+    private static final String DATASTORE_LOCATION = "/static/employee_database.json";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private CompensationRepository compensationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${bootstrap.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bootstrap.workers:4}")
+    private int workers;
+
+    @Value("${bootstrap.snapshot.path:}")
+    private String snapshotPath;
+
+    @Autowired
+    private EmployeeSnapshot employeeSnapshot;
+
+    @PostConstruct
+    public void init() {
+        // The h2 and external backends keep their data between restarts
+        long existing = employeeRepository.count();
+        if (existing > 0) {
+            log.info("Skipping data load, the store already holds {} employees", existing);
+            return;
+        }
+
+        try {
+            if (StringUtils.isNotBlank(snapshotPath) && Files.exists(Path.of(snapshotPath))) {
+                loadSnapshot(Path.of(snapshotPath));
+                return;
+            }
+
+            try (InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION)) {
+                load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads a JSON array of employees into the store. The array is read one
+     * employee at a time, so the whole snapshot is never held in memory.
+     *
+     * @param inputStream - JSON array of employees
+     * @return The number of employees loaded
+     */
+    public long load(InputStream inputStream) throws IOException {
+        try (BatchLoader loader = new BatchLoader();
+                JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of employees at " + parser.getCurrentLocation());
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                loader.add(objectMapper.readValue(parser, Employee.class));
+            }
+            return loader.finish("JSON");
+        }
+    }
+
+    /**
+     * Loads a binary snapshot written by {@link EmployeeSnapshot} into the store.
+     *
+     * @param path - Snapshot file
+     * @return The number of employees loaded
+     */
+    public long loadSnapshot(Path path) throws IOException {
+        try (BatchLoader loader = new BatchLoader()) {
+            employeeSnapshot.read(path, loader::add, loader::addCompensation);
+            return loader.finish("snapshot " + path);
+        }
+    }
+
+    /**
+     * Collects employees into batches and inserts every batch on a small pool of
+     * workers while the caller carries on reading. Only a few batches are queued
+     * at once, when the workers fall behind the caller inserts the batch itself.
+     * Compensation, whether embedded in the employees or read separately, is
+     * inserted into the compensation collection in batches on the calling thread.
+     */
+    private class BatchLoader implements AutoCloseable {
+        private final long start = System.nanoTime();
+        private final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), new ThreadPoolExecutor.CallerRunsPolicy());
+        private final List<Future<?>> inserts = new ArrayList<>();
+        private List<Employee> batch = new ArrayList<>(batchSize);
+        private List<CompensationRecord> compensationBatch = new ArrayList<>(batchSize);
+        private long loaded;
+
+        void add(Employee employee) {
+            batch.add(employee);
+            loaded++;
+
+            if (employee.getCompensation() != null) {
+                employee.getCompensation().forEach(comp -> addCompensation(CompensationRecord.of(employee.getEmployeeId(), comp)));
+            }
+
+            if (batch.size() == batchSize) {
+                insert();
+            }
+        }
+
+        void addCompensation(CompensationRecord record) {
+            compensationBatch.add(record);
+
+            if (compensationBatch.size() == batchSize) {
+                insertCompensation();
+            }
+        }
+
+        /**
+         * Inserts the last partial batches and waits for every batch to be written.
+         */
+        long finish(String source) {
+            if (!batch.isEmpty()) {
+                insert();
+            }
+            if (!compensationBatch.isEmpty()) {
+                insertCompensation();
+            }
+
+            try {
+                for (Future<?> insert : inserts) {
+                    insert.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to insert employees while loading data", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading data", e);
+            }
+
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            log.info("Loaded {} employees from {} in {} batches in {} ms ({} employees/s)", loaded, source, inserts.size(),
+                    elapsedMillis, loaded * 1000 / elapsedMillis);
+
+            return loaded;
+        }
+
+        /**
+         * Spring Data looks up its entity callbacks in the bean factory on the first
+         * insert. Done from a worker while this bean is still being initialised that
+         * lookup deadlocks on the singleton lock, so the first batch is inserted on
+         * the calling thread.
+         */
+        private void insert() {
+            List<Employee> employees = batch;
+            batch = new ArrayList<>(batchSize);
+
+            if (inserts.isEmpty()) {
+                inserts.add(CompletableFuture.completedFuture(employeeRepository.insert(employees)));
+            } else {
+                inserts.add(executor.submit(() -> employeeRepository.insert(employees)));
+            }
+        }
+
+        private void insertCompensation() {
+            compensationRepository.insert(compensationBatch);
+            compensationBatch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
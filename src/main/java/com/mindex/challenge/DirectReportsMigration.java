@@ -0,0 +1,83 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites direct reports embedded as whole employee documents, the layout used
+ * before direct reports were stored as employee IDs, into an array of their
+ * employee IDs. Runs at startup after the data load, so a persistent store is
+ * migrated before the first request. Only documents still holding an embedded
+ * report are matched, so running it again after an interruption is safe.
+ */
+@Component
+@DependsOn("dataBootstrap")
+@Slf4j
+public class DirectReportsMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${employee.migrate-embedded-reports:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return The number of employees whose direct reports were migrated
+     */
+    public int migrate() {
+        long start = System.nanoTime();
+        int employees = 0;
+
+        String collection = mongoTemplate.getCollectionName(Employee.class);
+        Query query = Query.query(Criteria.where("directReports._id").exists(true));
+        query.fields().include("directReports");
+
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                Object employeeId = document.get("_id");
+
+                List<Object> directReportIds = new ArrayList<>();
+                for (Object directReport : document.getList("directReports", Object.class, List.of())) {
+                    Object directReportId = directReport instanceof Document embedded ? embedded.get("_id") : directReport;
+                    if (directReportId == null) {
+                        log.warn("Dropping direct report without an employee ID for employee {}: {}", employeeId, directReport);
+                        continue;
+                    }
+                    directReportIds.add(directReportId);
+                }
+
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(employeeId)),
+                        Update.update("directReports", directReportIds), collection);
+                employees++;
+            }
+        }
+
+        if (employees > 0) {
+            log.info("Migrated embedded direct reports of {} employees to employee IDs in {} ms", employees,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts every employee stored without a version, data written before
+ * employees were versioned, at version 0. An update of an employee without a
+ * version would otherwise be taken for a new employee and fail as a duplicate.
+ * Runs at startup after the data load. Only employees without a version are
+ * matched, so running it again is safe.
+ */
+@Component
+@DependsOn("dataBootstrap")
+@Slf4j
+public class EmployeeVersionMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${employee.migrate-versions:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return The number of employees given a version
+     */
+    public long migrate() {
+        long start = System.nanoTime();
+
+        long employees = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                Update.update("version", 0L), Employee.class).getModifiedCount();
+
+        if (employees > 0) {
+            log.info("Set the version of {} employees in {} ms", employees,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return employees;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sets the managerId of every employee listed as a direct report, for data
+ * written before the manager was stored on the employee. Runs at startup after
+ * the data load and the direct reports migration, as it reads direct reports as
+ * employee IDs. Employees that already have a manager are left alone, so running
+ * it again is safe and never overrides a manager set by an update.
+ */
+@Component
+@DependsOn({"dataBootstrap", "directReportsMigration"})
+@Slf4j
+public class ManagerIdMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${employee.migrate-manager-ids:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return The number of employees given a manager
+     */
+    public long migrate() {
+        long start = System.nanoTime();
+        long employees = 0;
+
+        String collection = mongoTemplate.getCollectionName(Employee.class);
+        Query query = Query.query(Criteria.where("directReports.0").exists(true));
+        query.fields().include("directReports");
+
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                List<Object> directReportIds = document.getList("directReports", Object.class, List.of());
+                Query unmanaged = Query.query(Criteria.where("_id").in(directReportIds).and("managerId").exists(false));
+                employees += mongoTemplate.updateMulti(unmanaged, Update.update("managerId", document.get("_id")), collection)
+                        .getModifiedCount();
+            }
+        }
+
+        if (employees > 0) {
+            log.info("Set the manager of {} employees from direct reports in {} ms", employees,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return employees;
+    }
+}
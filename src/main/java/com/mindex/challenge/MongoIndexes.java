@@ -0,0 +1,45 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes of the employee and compensation collections at startup,
+ * before the data load. The employee indexes are named here rather than
+ * annotated, as resolving annotations on the employee also walks into the
+ * employees held as direct reports and asks for indexes on their fields.
+ * Creating an index that already exists does nothing, so this is safe against
+ * a store that keeps its data between restarts.
+ */
+@Component
+@Slf4j
+public class MongoIndexes {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void init() {
+        IndexOperations employeeIndexes = mongoTemplate.indexOps(Employee.class);
+        // Finds the manager listing an employee in its direct reports
+        employeeIndexes.ensureIndex(new Index("directReports", Sort.Direction.ASC).named("direct_reports"));
+        // Walks the chain of command upward
+        employeeIndexes.ensureIndex(new Index("managerId", Sort.Direction.ASC).named("manager"));
+
+        // The compensation record holds no other documents, so its annotations are resolved as they are
+        IndexOperations compensationIndexes = mongoTemplate.indexOps(CompensationRecord.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(CompensationRecord.class).forEach(compensationIndexes::ensureIndex);
+
+        log.debug("Ensured the employee and compensation indexes");
+    }
+}
@@ -0,0 +1,24 @@
+package com.mindex.challenge.config;
+
+/**
+ * Where employee data is stored, selected with the mongo.backend property.
+ */
+public enum MongoBackendType {
+
+    /**
+     * In-process server holding every document on the heap. Data is lost on
+     * restart.
+     */
+    MEMORY,
+
+    /**
+     * In-process server storing documents in an H2 MVStore file, so the dataset
+     * may be larger than the heap and survives a restart.
+     */
+    H2,
+
+    /**
+     * A separate Mongo deployment reached through mongo.uri.
+     */
+    EXTERNAL
+}
@@ -1,35 +1,146 @@
-package com.mindex.challenge.config;
-
-import com.mindex.challenge.dao.EmployeeRepository;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import de.bwaldvogel.mongo.MongoServer;
-import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
-import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
-import org.springframework.lang.NonNull;
-
-import java.net.InetSocketAddress;
-
-@EnableMongoRepositories(basePackageClasses = EmployeeRepository.class)
-@Configuration
-public class MongoConfig extends AbstractMongoClientConfiguration {
-
-    @Override
-    @NonNull
-    protected String getDatabaseName() {
-        return "test";
-    }
-
-    @Override
-    @NonNull
-    public MongoClient mongoClient() {
-        MongoServer server = new MongoServer(new MemoryBackend());
-        InetSocketAddress serverAddress = server.bind();
-        String mongoConnectionString = String.format("mongodb://%s:%d", serverAddress.getHostName(), serverAddress.getPort());
-        return MongoClients.create(mongoConnectionString);
-    }
-}
-
-
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.h2.H2Backend;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@EnableMongoRepositories(basePackageClasses = EmployeeRepository.class)
+@Configuration
+@Slf4j
+public class MongoConfig extends AbstractMongoClientConfiguration implements DisposableBean {
+
+    @Value("${mongo.backend:memory}")
+    private MongoBackendType backend;
+
+    @Value("${mongo.database:test}")
+    private String databaseName;
+
+    @Value("${mongo.h2.file:data/employees.mv}")
+    private String h2File;
+
+    @Value("${mongo.uri:mongodb://localhost:27017}")
+    private String uri;
+
+    @Autowired
+    private Environment environment;
+
+    // Such as the command and connection pool metrics listeners from Actuator
+    @Autowired
+    private ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers;
+
+    // The in-process server for the memory and h2 backends
+    private MongoServer server;
+    private String connectionString;
+
+    @Override
+    @NonNull
+    protected String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * Indexes are created by MongoIndexes instead, as resolving them from the
+     * employee walks into the employees held as its direct reports.
+     */
+    @Override
+    protected boolean autoIndexCreation() {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected Collection<String> getMappingBasePackages() {
+        return Collections.singleton(Employee.class.getPackageName());
+    }
+
+    @Override
+    @NonNull
+    public MongoClient mongoClient() {
+        return MongoClients.create(clientSettings());
+    }
+
+    /**
+     * Settings shared by the blocking client and, under the reactive profile, the
+     * reactive client. The in-process server is started on first use, so both
+     * clients connect to the same one. The customizers Spring Boot would apply to
+     * its own client are applied here too.
+     */
+    synchronized MongoClientSettings clientSettings() {
+        if (connectionString == null) {
+            connectionString = switch (backend) {
+                case MEMORY -> startServer(new MemoryBackend());
+                case H2 -> startServer(openH2Backend());
+                case EXTERNAL -> uri;
+            };
+        }
+
+        // Pool sizes are set per backend, mongo.<backend>.pool.*
+        String poolPrefix = "mongo." + backend.name().toLowerCase() + ".pool.";
+        int maxSize = environment.getProperty(poolPrefix + "max-size", Integer.class, 20);
+        int minSize = environment.getProperty(poolPrefix + "min-size", Integer.class, 0);
+        long maxWaitMillis = environment.getProperty(poolPrefix + "max-wait", Long.class, 10_000L);
+
+        log.info("Using {} Mongo backend with a pool of {} to {} connections", backend, minSize, maxSize);
+
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .applyToConnectionPoolSettings(pool -> pool.maxSize(maxSize).minSize(minSize)
+                        .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS));
+        customizers.orderedStream().forEach(customizer -> customizer.customize(settings));
+        return settings.build();
+    }
+
+    /**
+     * Shuts the in-process server down with the application, which for the h2
+     * backend closes the MVStore so every write is on disk.
+     */
+    @Override
+    public void destroy() {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private String startServer(MongoBackend mongoBackend) {
+        server = new MongoServer(mongoBackend);
+        InetSocketAddress serverAddress = server.bind();
+        return String.format("mongodb://%s:%d", serverAddress.getHostName(), serverAddress.getPort());
+    }
+
+    private H2Backend openH2Backend() {
+        Path file = Path.of(h2File).toAbsolutePath();
+        try {
+            Files.createDirectories(file.getParent());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create the directory for " + file, e);
+        }
+        log.info("Opening H2 Mongo backend at {}", file);
+        return new H2Backend(file.toString());
+    }
+}
@@ -0,0 +1,38 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Reactive Mongo client for the reactive profile, connected to the same server
+ * and database as {@link MongoConfig} with the same pool settings. Spring Boot
+ * builds the ReactiveMongoTemplate on top of it, sharing the mapping of the
+ * blocking template. Outside the reactive profile no reactive client is
+ * created at all, see ChallengeApplication.
+ */
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveEmployeeRepository.class)
+@Configuration
+@Profile("reactive")
+public class ReactiveMongoConfig {
+
+    @Autowired
+    private MongoConfig mongoConfig;
+
+    @Bean
+    public MongoClient reactiveMongoClient() {
+        return MongoClients.create(mongoConfig.clientSettings());
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(MongoClient reactiveMongoClient) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, mongoConfig.getDatabaseName());
+    }
+}
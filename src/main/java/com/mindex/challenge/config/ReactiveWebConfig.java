@@ -0,0 +1,40 @@
+package com.mindex.challenge.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Under the reactive profile the admin and payroll controllers are still
+ * blocking. Their handler methods return plain values, and WebFlux runs those on
+ * the application task executor so they never hold an event loop thread.
+ *
+ * The reactive profile is served by Reactor Netty. With Tomcat on the classpath
+ * for the servlet stack, Spring Boot would otherwise run WebFlux on Tomcat,
+ * which now and then closes a connection after answering a chunked request
+ * while still advertising keep-alive, so the client's next request on it fails.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        configurer.setExecutor(applicationTaskExecutor);
+    }
+}
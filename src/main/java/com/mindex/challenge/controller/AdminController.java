@@ -0,0 +1,125 @@
+package com.mindex.challenge.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.OrgChartScan;
+import com.mindex.challenge.data.SnapshotInfo;
+import com.mindex.challenge.service.impl.EmployeeCache;
+import com.mindex.challenge.service.impl.EmployeeSnapshot;
+import com.mindex.challenge.service.impl.OrgChartScanner;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@Slf4j
+public class AdminController {
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeSnapshot employeeSnapshot;
+
+    @Autowired
+    private OrgChartScanner orgChartScanner;
+
+    @Value("${bootstrap.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${contact.support.message}")
+    private String contactSupport;
+
+    @Operation(summary = "Retrieves the hit, miss and eviction counts of the employee cache")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Current employee cache statistics",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = CacheStatistics.class)))
+    })
+    @GetMapping(value = "/admin/cache/employee", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CacheStatistics employeeCacheStatistics()
+    {
+    	return employeeCache.getStatistics();
+    }
+
+    @Operation(summary = "Writes every employee to the binary snapshot configured by bootstrap.snapshot.path. The "
+    		+ "snapshot is loaded instead of the JSON seed data on the next start")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Wrote the snapshot",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = SnapshotInfo.class))),
+    		@ApiResponse(responseCode = "400", description = "No snapshot path is configured",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+    @PostMapping(value = "/admin/snapshot", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity writeSnapshot()
+    {
+    	if (StringUtils.isBlank(snapshotPath))
+    	{
+    		return EmployeeExceptionHandler.badRequest("Set bootstrap.snapshot.path to write a snapshot.");
+    	}
+
+    	try
+    	{
+    		long start = System.nanoTime();
+    		Path path = Path.of(snapshotPath);
+
+    		SnapshotInfo snapshotInfo = new SnapshotInfo();
+    		snapshotInfo.setPath(path.toAbsolutePath().toString());
+    		snapshotInfo.setEmployees(employeeSnapshot.write(path));
+    		snapshotInfo.setSizeBytes(Files.size(path));
+    		snapshotInfo.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    		return ResponseEntity.ok(snapshotInfo);
+    	}
+    	catch (IOException | RuntimeException e)
+    	{
+    		log.info("Caught error while writing snapshot to {}", snapshotPath, e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to write snapshot. " + contactSupport);
+    	}
+    }
+
+    @Operation(summary = "Reads every employee once and reports direct reports that are not in the store and cycles in "
+    		+ "the org chart")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The problems found, empty if there are none",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = OrgChartScan.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+    @GetMapping(value = "/admin/orgChart/scan", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity scanOrgChart()
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(orgChartScanner.scan());
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error while scanning the org chart", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to scan the org chart. " + contactSupport);
+    	}
+    }
+}
@@ -1,225 +1,499 @@
-package com.mindex.challenge.controller;
-
-import java.util.List;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
-
-import com.mindex.challenge.data.Compensation;
-import com.mindex.challenge.data.Employee;
-import com.mindex.challenge.data.ReportingStructure;
-import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
-import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
-import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
-import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
-import com.mindex.challenge.service.EmployeeService;
-
-import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.media.Content;
-import io.swagger.v3.oas.annotations.media.Schema;
-import io.swagger.v3.oas.annotations.responses.ApiResponse;
-import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import jakarta.validation.Valid;
-import lombok.extern.slf4j.Slf4j;
-
-@RestController
-@Slf4j
-public class EmployeeController {
-
-    @Autowired
-    private EmployeeService employeeService;
-    
-    @Value("${contact.support.message}")
-    private String contactSupport;
-
-    @Operation(summary = "Create a new Employee based on the employee passed in")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Created the employee", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = Employee.class))),
-    		@ApiResponse(responseCode = "400", description = "Failed to create Employee. Message will contain reason. Could be"
-    				+ " id already exists, direct reports do not exists, etc.",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @PostMapping(value = "/employee", produces = MediaType.APPLICATION_JSON_VALUE)
-    @SuppressWarnings("rawtypes")
-    public ResponseEntity create(@RequestBody Employee employee) {
-        log.debug("Received employee create request for [{}]", employee);
-        
-        try
-        {
-        	return ResponseEntity.ok().body(employeeService.create(employee));
-        }
-        catch (EmployeeIdAlreadyExistsException eiaee)
-        {
-        	log.info("Employee ID " + employee.getEmployeeId() + " already exists. Unable to create employee: " + employee.toString());
-        	return ResponseEntity.badRequest().body("Employee ID already exists. Employee ID must be unique.");
-        }
-        catch (EmployeeDoesNotExistsException ednee)
-        {
-        	log.info("Invalid employee ID,", ednee);
-        	return ResponseEntity.badRequest().body(ednee.getLocalizedMessage());
-        }
-        catch (Exception e)
-        {
-        	log.info("Caught error while creating Employee: " + employee.toString());
-        	return ResponseEntity.internalServerError().body("Error while creating employee " + employee.toString() + ". " + contactSupport);
-        }
-    }
-
-    @Operation(summary = "Retrieves an employee record based on the employee ID")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Found the employee, or no object if not found", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = Employee.class))),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @SuppressWarnings("rawtypes")
-	@GetMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity read(@PathVariable("id") String id) {
-        log.debug("Received employee create request for id [{}]", id);
-
-        try
-        {
-        	return ResponseEntity.ok(employeeService.read(id));
-        }
-        catch (Exception e)
-        {
-        	log.info("Caught error while fetching for employee {}", id, e);
-        	return ResponseEntity.internalServerError().body("Unable to fetch employee for employee ID: " + id + ". " + contactSupport);
-        }
-    }
-
-    @Operation(summary = "Modifies the employee record that is passed in to the id that is used in the path.")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Modified the employee", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = Employee.class))),
-    		@ApiResponse(responseCode = "400", description = "Failed to update the employee. Data is incorrect. This could be "
-    				+ "the new employee id is already in use, or the existing employee id does not exists. Error message will "
-    				+ "contain information on the cause.",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @SuppressWarnings("rawtypes")
-	@PutMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity update(@PathVariable("id") String id, @RequestBody Employee employee) {
-        log.debug("Received employee create request for id [{}] and employee [{}]", id, employee);
-        
-        try
-        {
-        	return ResponseEntity.ok(employeeService.update(id, employee));
-        }
-        catch (EmployeeIdAlreadyExistsException | EmployeeDoesNotExistsException eiaee)
-        {
-        	log.info("Error with data passed in", eiaee);
-        	return ResponseEntity.badRequest().body("Unable to update Employee ID to " + id + ". " + eiaee.getLocalizedMessage());
-        }
-        catch (Exception e)
-        {
-        	log.info("Caught error while changing employee ID from {} to {}: {}", employee.getEmployeeId(), id, employee.toString(), e);
-        	return ResponseEntity.internalServerError().body("Unable to update employee ID " + employee.getEmployeeId() + ". " + contactSupport);
-        }
-    }
-    
-
-    @Operation(summary = "Retreives the employee and how many total direct reports for this employee")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "If employee is found, then the response will have the "
-    		+ "employee and how many director reports. If the employee is not found, values will be null", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = ReportingStructure.class))),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @SuppressWarnings("rawtypes")
-	@GetMapping(value = "/reportingStructure/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity findReportingStructure(@PathVariable("id") String id)
-    {
-    	try
-    	{
-    		return ResponseEntity.ok(employeeService.findReportingStructure(id));
-    	}
-    	catch (Exception e)
-    	{
-    		log.info("Caught error fetching reporting structure.", e);
-    		return ResponseEntity.internalServerError().body("Unable to find reporting structure. " + contactSupport);
-    	}
-    	
-    }
-    
-    @Operation(summary = "Adds compensation record to the employee")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "If employee is found, it will add the compensation and return the employee", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = Employee.class))),
-    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
-    					content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @SuppressWarnings("rawtypes")
-	@PostMapping(value = "/compensation/add/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity addCompensation(@PathVariable("id") String id, @RequestBody @Valid Compensation compensation)
-    {
-    	try
-    	{
-    		return ResponseEntity.ok(employeeService.addCompensation(id, compensation));
-    	}
-    	catch (EmployeeDoesNotExistsException | EmployeeIdNotSpecifiedException badIdException)
-    	{
-    		log.info("Invalid employeeID.", badIdException);
-    		return ResponseEntity.badRequest().body(badIdException.getLocalizedMessage());
-    	}
-    	catch (CompensationCanNotBeInPastException inPastException)
-    	{
-    		log.info("Compensation in the past.", inPastException);
-    		return ResponseEntity.badRequest().body(inPastException.getLocalizedMessage());
-    	}
-    	catch (Exception e)
-    	{
-    		log.info("Caught error adding compensation.", e);
-    		return ResponseEntity.internalServerError().body("Unable to add compensation record. " + contactSupport);
-    	}
-    	
-    }
-    
-    @Operation(summary = "Retrieves all compensation records for the employee specified")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Return a list ordered by date ascending of compensation.", 
-    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-    							schema = @Schema(implementation = List.class))),
-    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
-    					content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
-    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
-    				content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
-    })
-    @SuppressWarnings("rawtypes")
-	@PostMapping(value = "/compensation/", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity findCompensation(@RequestBody Employee employee)
-    {
-    	try
-    	{
-    		return ResponseEntity.ok(employeeService.findCompensation(employee));
-    	}
-    	catch (EmployeeDoesNotExistsException | EmployeeIdNotSpecifiedException badIdException)
-    	{
-    		log.info("Invalid employeeID.", badIdException);
-    		return ResponseEntity.badRequest().body(badIdException.getLocalizedMessage());
-    	}
-    	catch (Exception e)
-    	{
-    		log.info("Caught error finding compensation.", e);
-    		return ResponseEntity.internalServerError().body("Unable to add compensation record. " + contactSupport);
-    	}
-    	
-    }
-    
-    
-}
+package com.mindex.challenge.controller;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.service.EmployeeService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+// Replaced by ReactiveEmployeeController under the reactive profile
+@RestController
+@Profile("!reactive")
+@Slf4j
+public class EmployeeController {
+
+    @Autowired
+    private EmployeeService employeeService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${contact.support.message}")
+    private String contactSupport;
+
+    @Operation(summary = "Create a new Employee based on the employee passed in")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Created the employee", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Employee.class))),
+    		@ApiResponse(responseCode = "400", description = "Failed to create Employee. Message will contain reason. Could be"
+    				+ " id already exists, direct reports do not exists, etc.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @PostMapping(value = "/employee", produces = MediaType.APPLICATION_JSON_VALUE)
+    @SuppressWarnings("rawtypes")
+    public ResponseEntity create(@RequestBody Employee employee) throws MindexException {
+        log.debug("Received employee create request for [{}]", employee);
+        
+        try
+        {
+        	return ResponseEntity.ok().body(employeeService.create(employee));
+        }
+        catch (RuntimeException e)
+        {
+        	log.info("Caught error while creating employee [{}]", employee, e);
+        	return EmployeeExceptionHandler.internalServerError("Error while creating employee. " + contactSupport);
+        }
+    }
+
+    @Operation(summary = "Create every employee in the list with a single write. Employees that fail validation are "
+    		+ "skipped and the result for each employee says why")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Processed the batch. One result per employee, "
+    							+ "in the order they were sent",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							array = @ArraySchema(schema = @Schema(implementation = EmployeeBatchResult.class)))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @PostMapping(value = "/employee/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @SuppressWarnings("rawtypes")
+    public ResponseEntity createAll(@RequestBody List<Employee> employees) {
+        log.debug("Received employee batch create request for {} employees", employees.size());
+
+        try
+        {
+        	return ResponseEntity.ok().body(employeeService.createAll(employees));
+        }
+        catch (RuntimeException e)
+        {
+        	log.info("Caught error while creating batch of {} employees", employees.size(), e);
+        	return EmployeeExceptionHandler.internalServerError("Error while creating employees. " + contactSupport);
+        }
+    }
+
+    @Operation(summary = "Retrieves an employee record based on the employee ID. Direct reports hold only their "
+    		+ "employee ID unless expand=directReports is passed")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Found the employee, or no object if not found", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Employee.class))),
+    		@ApiResponse(responseCode = "400", description = "One of the requested fields can not be expanded",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity read(@PathVariable("id") String id,
+    		@RequestParam(name = "expand", required = false) List<String> expand) throws MindexException {
+        log.debug("Received employee read request for id [{}] expanding {}", id, expand);
+
+        try
+        {
+        	return ResponseEntity.ok(employeeService.read(id, expand));
+        }
+        catch (RuntimeException e)
+        {
+        	log.info("Caught error while fetching for employee {}", id, e);
+        	return EmployeeExceptionHandler.internalServerError("Unable to fetch employee for employee ID: " + id + ". " + contactSupport);
+        }
+    }
+
+    @Operation(summary = "Lists employees in employee ID order a page at a time. Pass the nextCursor of a page as after "
+    		+ "to fetch the next page. Fields limits the employee fields returned")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The page of employees",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = EmployeePage.class))),
+    		@ApiResponse(responseCode = "400", description = "One of the requested fields can not be selected",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+    @GetMapping(value = "/employees", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity list(@RequestParam(name = "after", required = false) String after,
+    		@RequestParam(name = "limit", required = false) Integer limit,
+    		@RequestParam(name = "fields", required = false) List<String> fields) throws MindexException {
+        log.debug("Received employee list request after [{}] with limit [{}] and fields {}", after, limit, fields);
+
+        try
+        {
+        	return ResponseEntity.ok(employeeService.list(after, limit, fields));
+        }
+        catch (RuntimeException e)
+        {
+        	log.info("Caught error while listing employees after {}", after, e);
+        	return EmployeeExceptionHandler.internalServerError("Unable to list employees. " + contactSupport);
+        }
+    }
+
+    @Operation(summary = "Streams every employee as newline delimited JSON, one employee per line. Optionally filtered "
+    		+ "by department and position")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Employees matching the filters, one JSON "
+    							+ "object per line",
+    							content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+    							schema = @Schema(implementation = Employee.class)))
+    })
+    @GetMapping(value = "/employees/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name = "department", required = false) String department,
+    		@RequestParam(name = "position", required = false) String position) {
+        log.debug("Received employee export request for department [{}] and position [{}]", department, position);
+
+        // Runs after the request thread is released, the cursor is opened and closed while writing
+        StreamingResponseBody body = outputStream -> {
+        	ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        	try (Stream<Employee> employees = employeeService.streamAll(department, position);
+        			JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream))
+        	{
+        		generator.setRootValueSeparator(null);
+        		Iterator<Employee> iterator = employees.iterator();
+        		while (iterator.hasNext())
+        		{
+        			writer.writeValue(generator, iterator.next());
+        			generator.writeRaw('\n');
+        		}
+        	}
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Modifies the employee record that is passed in to the id that is used in the path.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Modified the employee", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Employee.class))),
+    		@ApiResponse(responseCode = "400", description = "Failed to update the employee. Data is incorrect. This could be "
+    				+ "the new employee id is already in use, or the existing employee id does not exists. Error message will "
+    				+ "contain information on the cause.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "409", description = "The employee was changed since the version sent was read. "
+    				+ "Read it again and reapply the change.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "428", description = "The employee exists and no version was sent. Send the "
+    				+ "version the employee was read at.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@PutMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity update(@PathVariable("id") String id, @RequestBody Employee employee) throws MindexException {
+        log.debug("Received employee create request for id [{}] and employee [{}]", id, employee);
+        
+        try
+        {
+        	return ResponseEntity.ok(employeeService.update(id, employee));
+        }
+        catch (RuntimeException e)
+        {
+        	log.info("Caught error while changing employee ID from {} to {}: {}", employee.getEmployeeId(), id, employee, e);
+        	return EmployeeExceptionHandler.internalServerError("Unable to update employee ID " + employee.getEmployeeId() + ". " + contactSupport);
+        }
+    }
+    
+
+    @Operation(summary = "Retreives the employee and how many total direct reports for this employee")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "If employee is found, then the response will have the "
+    		+ "employee and how many director reports. If the employee is not found, values will be null", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = ReportingStructure.class))),
+    		@ApiResponse(responseCode = "400", description = "Counting the reports would walk deeper than reporting.max-depth "
+    				+ "levels or more than reporting.max-nodes employees",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/reportingStructure/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findReportingStructure(@PathVariable("id") String id) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findReportingStructure(id));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error fetching reporting structure.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find reporting structure. " + contactSupport);
+    	}
+    	
+    }
+    
+    @Operation(summary = "Retrieves the employee and how many total reports it has for every employee ID in the list, "
+    		+ "counted from one walk of the org chart")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "One reporting structure per employee ID, in the "
+    		+ "order they were sent. Values are null for an employee that is not found",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							array = @ArraySchema(schema = @Schema(implementation = ReportingStructure.class)))),
+    		@ApiResponse(responseCode = "400", description = "Counting the reports of one of the employees would walk deeper "
+    				+ "than reporting.max-depth levels or more than reporting.max-nodes employees",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@PostMapping(value = "/reportingStructure/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findReportingStructures(@RequestBody List<String> ids) throws MindexException
+    {
+    	log.debug("Received reporting structure batch request for {} employees", ids.size());
+
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findReportingStructures(ids));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error fetching reporting structures of {} employees", ids.size(), e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find reporting structures. " + contactSupport);
+    	}
+    }
+
+    @Operation(summary = "Retrieves the employee with every employee underneath it nested in its direct reports, "
+    		+ "down to maxDepth levels")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The employee and its reports, nested. Reports "
+    		+ "below maxDepth, and reports already shown elsewhere in the tree, only hold their employeeId",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Employee.class))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID, or more reports than reporting.max-nodes. "
+    				+ "See message for details.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/reportingStructure/{id}/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findReportingTree(@PathVariable("id") String id,
+    		@RequestParam(name = "maxDepth", required = false) Integer maxDepth) throws MindexException
+    {
+    	try
+    	{
+    		// Every level is fetched and checked against the limits before anything is written, then the tree is
+    		// written straight to the response by ReportingTreeSerializer
+    		return ResponseEntity.ok(employeeService.findReportingTree(id, maxDepth));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error fetching reporting tree for employee {}", id, e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find reporting tree. " + contactSupport);
+    	}
+    }
+
+    @Operation(summary = "Retrieves the chain of command of the employee, its manager first and the top of the org chart last")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The managers above the employee, empty if "
+    		+ "nobody lists the employee as a direct report",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							array = @ArraySchema(schema = @Schema(implementation = Employee.class)))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID, or a chain longer than reporting.max-depth. "
+    				+ "See message for details.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/employee/{id}/chain", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findChainOfCommand(@PathVariable("id") String id) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findChainOfCommand(id));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error fetching chain of command for employee {}", id, e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find chain of command. " + contactSupport);
+    	}
+    }
+
+    @Operation(summary = "Adds compensation record to the employee")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "If employee is found, it will add the compensation and return the employee", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Employee.class))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
+    					content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "409", description = "Other requests kept changing the employee through every "
+    				+ "attempt at adding the compensation. The request can be retried.",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@PostMapping(value = "/compensation/add/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity addCompensation(@PathVariable("id") String id, @RequestBody @Valid Compensation compensation) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.addCompensation(id, compensation));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error adding compensation.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to add compensation record. " + contactSupport);
+    	}
+    	
+    }
+    
+    @Operation(summary = "Retrieves all compensation records for the employee specified")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Return a list ordered by date ascending of compensation.", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = List.class))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
+    					content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@PostMapping(value = "/compensation/", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findCompensation(@RequestBody Employee employee) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findCompensation(employee));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error finding compensation.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to add compensation record. " + contactSupport);
+    	}
+    	
+    }
+    
+    @Operation(summary = "Retrieves the compensation in effect for the employee on a date")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Return the latest compensation effective on or before the date. The body is empty if the employee had no compensation yet.", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = Compensation.class))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
+    					content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/compensation/{id}/asOf", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findCompensationAsOf(@PathVariable("id") String id,
+    		@RequestParam(name = "date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findCompensationAsOf(id, date));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error finding compensation.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find compensation. " + contactSupport);
+    	}
+    }
+    
+    @Operation(summary = "Retrieves the compensation changes for the employee effective between two dates")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Return a list ordered by date ascending of compensation effective between the dates, inclusive. Either date may be left out.", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							array = @ArraySchema(schema = @Schema(implementation = Compensation.class)))),
+    		@ApiResponse(responseCode = "400", description = "Invalid employee ID. See message for details.",
+    					content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@GetMapping(value = "/compensation/{id}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findCompensationBetween(@PathVariable("id") String id,
+    		@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+    		@RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) throws MindexException
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findCompensationBetween(id, from, to));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error finding compensation.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find compensation. " + contactSupport);
+    	}
+    }
+    
+    @Operation(summary = "Retrieves the compensation in effect for every employee ID passed in")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Return the compensation in effect by employee ID, on the date if one is given or else the latest. Employees without compensation are left out.", 
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+	@PostMapping(value = "/compensation/latest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findLatestCompensation(@RequestBody List<String> ids,
+    		@RequestParam(name = "asOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf)
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(employeeService.findLatestCompensation(ids, asOf));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error finding compensation.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to find compensation. " + contactSupport);
+    	}
+    }
+    
+}
@@ -0,0 +1,85 @@
+package com.mindex.challenge.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.EmployeeVersionRequiredException;
+import com.mindex.challenge.exception.InvalidFieldException;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders the domain exceptions thrown by the controllers, on either the
+ * servlet or the reactive stack, as a JSON problem detail with a 400 status,
+ * 409 for a write that lost a race with another write, or 428 for an update
+ * that did not say which version it read. The exception message is the detail.
+ */
+@RestControllerAdvice
+@Slf4j
+public class EmployeeExceptionHandler {
+
+    private static final Map<Class<? extends MindexException>, String> TITLES = Map.of(
+    		EmployeeDoesNotExistsException.class, "Employee not found",
+    		EmployeeIdAlreadyExistsException.class, "Employee ID already exists",
+    		EmployeeIdNotSpecifiedException.class, "Employee ID not specified",
+    		CompensationCanNotBeInPastException.class, "Compensation in the past",
+    		InvalidFieldException.class, "Invalid field",
+    		ReportingLimitExceededException.class, "Reporting structure too large",
+    		EmployeeVersionConflictException.class, "Employee changed concurrently",
+    		EmployeeVersionRequiredException.class, "Employee version required");
+
+    private static final Map<Class<? extends MindexException>, HttpStatus> STATUSES = Map.of(
+    		EmployeeVersionConflictException.class, HttpStatus.CONFLICT,
+    		EmployeeVersionRequiredException.class, HttpStatus.PRECONDITION_REQUIRED);
+
+    @ExceptionHandler(MindexException.class)
+    public ProblemDetail handleMindexException(MindexException e) {
+    	// Expected for bad input, the exceptions carry no stack trace to log
+    	log.debug("Rejected request: {}", e.getMessage());
+
+    	HttpStatus status = STATUSES.getOrDefault(e.getClass(), HttpStatus.BAD_REQUEST);
+    	ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, e.getMessage());
+    	problem.setTitle(TITLES.getOrDefault(e.getClass(), status.getReasonPhrase()));
+    	return problem;
+    }
+
+    /**
+     * @param detail - Why the request was refused
+     * @return The 400 response the controllers send for a request refused
+     *         without a domain exception, such as one the configuration does
+     *         not allow
+     */
+    static ResponseEntity<ProblemDetail> badRequest(String detail) {
+    	return problem(HttpStatus.BAD_REQUEST, detail);
+    }
+
+    /**
+     * @param detail - What failed, followed by the contact support message
+     * @return The 500 response the controllers send for an unexpected error
+     */
+    static ResponseEntity<ProblemDetail> internalServerError(String detail) {
+    	return problem(HttpStatus.INTERNAL_SERVER_ERROR, detail);
+    }
+
+    /**
+     * Sets the problem content type itself, as the endpoints returning these
+     * only declare the JSON type of their successful response.
+     */
+    private static ResponseEntity<ProblemDetail> problem(HttpStatus status, String detail) {
+    	return ResponseEntity.status(status).contentType(MediaType.APPLICATION_PROBLEM_JSON)
+    			.body(ProblemDetail.forStatusAndDetail(status, detail));
+    }
+}
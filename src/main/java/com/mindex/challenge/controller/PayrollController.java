@@ -0,0 +1,59 @@
+package com.mindex.challenge.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mindex.challenge.data.PayrollReport;
+import com.mindex.challenge.service.PayrollService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+
+@RestController
+@Slf4j
+public class PayrollController {
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Value("${contact.support.message}")
+    private String contactSupport;
+
+    @Operation(summary = "Totals and averages the salary in effect on a date for the company, each department and each "
+    		+ "manager along with everyone underneath them")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Payroll totals, as of today if no date is given",
+    							content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+    							schema = @Schema(implementation = PayrollReport.class))),
+    		@ApiResponse(responseCode = "500", description = "Internal server error. Contact support if this happens",
+    				content = @Content(mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+    				schema = @Schema(implementation = ProblemDetail.class)))
+    })
+    @SuppressWarnings("rawtypes")
+    @GetMapping(value = "/payroll", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity findPayroll(
+    		@RequestParam(name = "asOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf)
+    {
+    	try
+    	{
+    		return ResponseEntity.ok(payrollService.findPayroll(asOf));
+    	}
+    	catch (RuntimeException e)
+    	{
+    		log.info("Caught error computing payroll.", e);
+    		return EmployeeExceptionHandler.internalServerError("Unable to compute payroll. " + contactSupport);
+    	}
+    }
+}
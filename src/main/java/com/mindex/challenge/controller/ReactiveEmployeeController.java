@@ -0,0 +1,226 @@
+package com.mindex.challenge.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The endpoints of {@link EmployeeController} served by WebFlux under the
+ * reactive profile, with the same status codes and messages. Domain errors
+ * are left to {@link EmployeeExceptionHandler}.
+ */
+@RestController
+@Profile("reactive")
+@Slf4j
+@SuppressWarnings("rawtypes")
+public class ReactiveEmployeeController {
+
+    @Autowired
+    private ReactiveEmployeeService employeeService;
+
+    @Value("${contact.support.message}")
+    private String contactSupport;
+
+    @PostMapping(value = "/employee", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> create(@RequestBody Employee employee) {
+        log.debug("Received employee create request for [{}]", employee);
+
+        return employeeService.create(employee)
+        		.<ResponseEntity>map(ResponseEntity::ok)
+        		.onErrorResume(RuntimeException.class, e -> {
+        			log.info("Caught error while creating employee [{}]", employee, e);
+        			return Mono.just(EmployeeExceptionHandler.internalServerError("Error while creating employee. " + contactSupport));
+        		});
+    }
+
+    @PostMapping(value = "/employee/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> createAll(@RequestBody List<Employee> employees) {
+        log.debug("Received employee batch create request for {} employees", employees.size());
+
+        return employeeService.createAll(employees)
+        		.<ResponseEntity>map(ResponseEntity::ok)
+        		.onErrorResume(RuntimeException.class, e -> {
+        			log.info("Caught error while creating batch of {} employees", employees.size(), e);
+        			return Mono.just(EmployeeExceptionHandler.internalServerError("Error while creating employees. " + contactSupport));
+        		});
+    }
+
+    @GetMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> read(@PathVariable("id") String id,
+    		@RequestParam(name = "expand", required = false) List<String> expand) {
+        log.debug("Received employee read request for id [{}] expanding {}", id, expand);
+
+        return employeeService.read(id, expand)
+        		.<ResponseEntity>map(ResponseEntity::ok)
+        		// If the employee does not exists, this is ok, we want an empty body
+        		.defaultIfEmpty(ResponseEntity.ok().build())
+        		.onErrorResume(RuntimeException.class, e -> {
+        			log.info("Caught error while fetching for employee {}", id, e);
+        			return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to fetch employee for employee ID: " + id + ". " + contactSupport));
+        		});
+    }
+
+    @GetMapping(value = "/employees", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> list(@RequestParam(name = "after", required = false) String after,
+    		@RequestParam(name = "limit", required = false) Integer limit,
+    		@RequestParam(name = "fields", required = false) List<String> fields) {
+        log.debug("Received employee list request after [{}] with limit [{}] and fields {}", after, limit, fields);
+
+        return employeeService.list(after, limit, fields)
+        		.<ResponseEntity>map(ResponseEntity::ok)
+        		.onErrorResume(RuntimeException.class, e -> {
+        			log.info("Caught error while listing employees after {}", after, e);
+        			return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to list employees. " + contactSupport));
+        		});
+    }
+
+    /**
+     * Each employee is written as its own line as the cursor returns it.
+     */
+    @GetMapping(value = "/employees/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> export(@RequestParam(name = "department", required = false) String department,
+    		@RequestParam(name = "position", required = false) String position) {
+        log.debug("Received employee export request for department [{}] and position [{}]", department, position);
+
+        return employeeService.streamAll(department, position);
+    }
+
+    @PutMapping(value = "/employee/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> update(@PathVariable("id") String id, @RequestBody Employee employee) {
+        log.debug("Received employee update request for id [{}] and employee [{}]", id, employee);
+        String currentId = employee.getEmployeeId();
+
+        return employeeService.update(id, employee)
+        		.<ResponseEntity>map(ResponseEntity::ok)
+        		.onErrorResume(RuntimeException.class, e -> {
+        			log.info("Caught error while changing employee ID from {} to {}: {}", currentId, id, employee, e);
+        			return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to update employee ID " + currentId + ". " + contactSupport));
+        		});
+    }
+
+    @GetMapping(value = "/reportingStructure/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findReportingStructure(@PathVariable("id") String id)
+    {
+    	return employeeService.findReportingStructure(id)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error fetching reporting structure.", e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to find reporting structure. " + contactSupport));
+    			});
+    }
+
+    @PostMapping(value = "/reportingStructure/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findReportingStructures(@RequestBody List<String> ids)
+    {
+    	log.debug("Received reporting structure batch request for {} employees", ids.size());
+
+    	return employeeService.findReportingStructures(ids)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error fetching reporting structures of {} employees", ids.size(), e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to find reporting structures. " + contactSupport));
+    			});
+    }
+
+    @GetMapping(value = "/reportingStructure/{id}/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findReportingTree(@PathVariable("id") String id,
+    		@RequestParam(name = "maxDepth", required = false) Integer maxDepth)
+    {
+    	return employeeService.findReportingTree(id, maxDepth)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error fetching reporting tree for employee {}", id, e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to find reporting tree. " + contactSupport));
+    			});
+    }
+
+    @GetMapping(value = "/employee/{id}/chain", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findChainOfCommand(@PathVariable("id") String id)
+    {
+    	return employeeService.findChainOfCommand(id)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error fetching chain of command for employee {}", id, e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to find chain of command. " + contactSupport));
+    			});
+    }
+
+    @PostMapping(value = "/compensation/add/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> addCompensation(@PathVariable("id") String id, @RequestBody @Valid Compensation compensation)
+    {
+    	return employeeService.addCompensation(id, compensation)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error adding compensation.", e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to add compensation record. " + contactSupport));
+    			});
+    }
+
+    @PostMapping(value = "/compensation/", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findCompensation(@RequestBody Employee employee)
+    {
+    	return employeeService.findCompensation(employee)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, e -> {
+    				log.info("Caught error finding compensation.", e);
+    				return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to add compensation record. " + contactSupport));
+    			});
+    }
+
+    @GetMapping(value = "/compensation/{id}/asOf", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findCompensationAsOf(@PathVariable("id") String id,
+    		@RequestParam(name = "date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date)
+    {
+    	return employeeService.findCompensationAsOf(id, date)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.defaultIfEmpty(ResponseEntity.ok().build())
+    			.onErrorResume(RuntimeException.class, this::findCompensationFailed);
+    }
+
+    @GetMapping(value = "/compensation/{id}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findCompensationBetween(@PathVariable("id") String id,
+    		@RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+    		@RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+    {
+    	return employeeService.findCompensationBetween(id, from, to)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, this::findCompensationFailed);
+    }
+
+    @PostMapping(value = "/compensation/latest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity> findLatestCompensation(@RequestBody List<String> ids,
+    		@RequestParam(name = "asOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf)
+    {
+    	return employeeService.findLatestCompensation(ids, asOf)
+    			.<ResponseEntity>map(ResponseEntity::ok)
+    			.onErrorResume(RuntimeException.class, this::findCompensationFailed);
+    }
+
+    private Mono<ResponseEntity> findCompensationFailed(Throwable e)
+    {
+    	log.info("Caught error finding compensation.", e);
+    	return Mono.just(EmployeeExceptionHandler.internalServerError("Unable to find compensation. " + contactSupport));
+    }
+}
@@ -0,0 +1,17 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.CompensationRecord;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface CompensationRepository extends MongoRepository<CompensationRecord, String>, CompensationRepositoryCustom {
+    CompensationRecord findFirstByEmployeeIdOrderByEffectiveDateDesc(String employeeId);
+    List<CompensationRecord> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId);
+    List<CompensationRecord> findByEmployeeIdInOrderByEffectiveDateAsc(Collection<String> employeeIds);
+    Stream<CompensationRecord> streamAllBy();
+}
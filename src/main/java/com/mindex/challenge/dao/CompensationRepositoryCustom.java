@@ -0,0 +1,11 @@
+package com.mindex.challenge.dao;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import com.mindex.challenge.data.CompensationRecord;
+
+public interface CompensationRepositoryCustom {
+    List<CompensationRecord> findLatest(Collection<String> employeeIds, LocalDate asOf);
+}
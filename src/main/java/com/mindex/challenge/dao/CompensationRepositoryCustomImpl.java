@@ -0,0 +1,61 @@
+package com.mindex.challenge.dao;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.mindex.challenge.data.CompensationRecord;
+
+public class CompensationRepositoryCustomImpl implements CompensationRepositoryCustom
+{
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * Finds the compensation in effect for each employee in a single
+	 * aggregation. The records are sorted along the employee/effective date index
+	 * with the newest first, so grouping by employee ID keeps the first record of
+	 * each employee rather than reading back whole histories.
+	 * 
+	 * @param employeeIds - The employees to find the compensation of, or every
+	 *                    employee if null
+	 * @param asOf        - Only compensation effective on or before this date, or
+	 *                    the latest compensation if null
+	 * @return One record for each employee with compensation in effect. Employees
+	 *         without any are left out
+	 */
+	@Override
+	public List<CompensationRecord> findLatest(Collection<String> employeeIds, LocalDate asOf)
+	{
+		return mongoTemplate.aggregate(latestAggregation(employeeIds, asOf), CompensationRecord.class).getMappedResults();
+	}
+
+	static TypedAggregation<CompensationRecord> latestAggregation(Collection<String> employeeIds, LocalDate asOf)
+	{
+		Criteria criteria = new Criteria();
+		if (employeeIds != null)
+		{
+			criteria = criteria.and("employeeId").in(employeeIds);
+		}
+		if (asOf != null)
+		{
+			criteria = criteria.and("effectiveDate").lte(asOf);
+		}
+
+		return Aggregation.newAggregation(CompensationRecord.class,
+				Aggregation.match(criteria),
+				Aggregation.sort(Sort.by(Sort.Direction.ASC, "employeeId").and(Sort.by(Sort.Direction.DESC, "effectiveDate"))),
+				Aggregation.group("employeeId")
+						.first("salary").as("salary")
+						.first("effectiveDate").as("effectiveDate"),
+				Aggregation.project("salary", "effectiveDate").and("_id").as("employeeId"));
+	}
+}
@@ -1,10 +1,10 @@
-package com.mindex.challenge.dao;
-
-import com.mindex.challenge.data.Employee;
-import org.springframework.stereotype.Repository;
-import org.springframework.data.mongodb.repository.MongoRepository;
-
-@Repository
-public interface EmployeeRepository extends MongoRepository<Employee, String> {
-    Employee findByEmployeeId(String employeeId);
-}
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+@Repository
+public interface EmployeeRepository extends MongoRepository<Employee, String>, EmployeeRepositoryCustom {
+    Employee findByEmployeeId(String employeeId);
+}
@@ -0,0 +1,21 @@
+package com.mindex.challenge.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingTree;
+
+public interface EmployeeRepositoryCustom {
+    ReportCount countAllReports(String employeeId, int maxDepth);
+    Stream<Employee> streamAll(String department, String position);
+    Stream<Employee> streamOrgChart();
+    List<Employee> findPage(String afterEmployeeId, int limit, Collection<String> fields);
+    List<ReportingTree.Node> findTreeNodes(Collection<String> employeeIds);
+    long assignManager(String managerId, Collection<String> employeeIds);
+    long unassignManager(String managerId, Collection<String> employeeIds);
+    boolean claimLatestCompensation(String employeeId, Long version, Compensation compensation);
+}
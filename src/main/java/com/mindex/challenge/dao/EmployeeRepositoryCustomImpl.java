@@ -0,0 +1,267 @@
+package com.mindex.challenge.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingTree;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom
+{
+
+	private static final int STREAM_BATCH_SIZE = 500;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * Counts every distinct employee underneath the employee in a single
+	 * aggregation. $graphLookup follows the employee IDs in directReports inside
+	 * Mongo, bounded by maxDepth. The closure is grouped by employee ID before
+	 * counting so an employee reached twice, for instance through a cycle, is only
+	 * counted once, at the shallowest level it was reached, and the employee
+	 * itself is removed in case it reports up to one of its own reports.
+	 * 
+	 * @param employeeId - The employee to count the reports for
+	 * @param maxDepth   - Maximum levels of reports to follow, 1 being only the
+	 *                   direct reports
+	 * @return The number of employees reporting up to the employee and the
+	 *         deepest level reached, both 0 if the employee is not found
+	 */
+	@Override
+	public ReportCount countAllReports(String employeeId, int maxDepth)
+	{
+		String collection = mongoTemplate.getCollectionName(Employee.class);
+
+		AggregationResults<Document> results = mongoTemplate.aggregate(
+				countAllReportsAggregation(collection, employeeId, maxDepth), collection, Document.class);
+		return reportCount(results.getUniqueMappedResult());
+	}
+
+	static Aggregation countAllReportsAggregation(String collection, String employeeId, int maxDepth)
+	{
+		return Aggregation.newAggregation(
+				Aggregation.match(Criteria.where("_id").is(employeeId)),
+				graphLookupReports(collection, maxDepth - 1),
+				Aggregation.unwind("reports"),
+				Aggregation.match(Criteria.where("reports._id").ne(employeeId)),
+				Aggregation.group("reports._id").min("reports.depth").as("depth"),
+				Aggregation.group().count().as("numberOfReports").max("depth").as("depth"));
+	}
+
+	/**
+	 * @param result - The single document of the count aggregation, null if the
+	 *               employee has no reports or is not found
+	 */
+	static ReportCount reportCount(Document result)
+	{
+		if (result == null)
+		{
+			return new ReportCount(0, 0);
+		}
+
+		// $graphLookup numbers the direct reports as depth 0
+		Number depth = (Number) result.get("depth");
+		return new ReportCount(((Number) result.get("numberOfReports")).longValue(),
+				depth == null ? 0 : depth.intValue() + 1);
+	}
+
+	/**
+	 * Streams employees from a Mongo cursor, fetching them from the server in
+	 * batches as the stream is consumed rather than loading the whole collection.
+	 * The stream holds the cursor open and must be closed.
+	 * 
+	 * @param department - Only employees in this department, or every department
+	 *                   if blank
+	 * @param position   - Only employees with this position, or every position if
+	 *                   blank
+	 * @return The matching employees
+	 */
+	@Override
+	public Stream<Employee> streamAll(String department, String position)
+	{
+		return mongoTemplate.stream(filterQuery(department, position), Employee.class);
+	}
+
+	/**
+	 * Streams every employee with only its employee ID and direct reports read,
+	 * which is all the org chart needs. The stream holds the cursor open and must
+	 * be closed.
+	 */
+	@Override
+	public Stream<Employee> streamOrgChart()
+	{
+		Query query = new Query();
+		query.fields().include("directReports");
+		query.cursorBatchSize(STREAM_BATCH_SIZE);
+		return mongoTemplate.stream(query, Employee.class);
+	}
+
+	/**
+	 * Fetches the employees after an employee ID in employee ID order. The range
+	 * on _id is answered from the _id index, so a deep page costs the same as the
+	 * first one, unlike skipping over the earlier pages.
+	 * 
+	 * @param afterEmployeeId - Last employee ID of the previous page, or blank for
+	 *                        the first page
+	 * @param limit           - Maximum number of employees to return
+	 * @param fields          - Fields to return, or every field if empty. The
+	 *                        employee ID is always returned
+	 * @return The employees on the page
+	 */
+	@Override
+	public List<Employee> findPage(String afterEmployeeId, int limit, Collection<String> fields)
+	{
+		return mongoTemplate.find(pageQuery(afterEmployeeId, limit, fields), Employee.class);
+	}
+
+	/**
+	 * Fetches one level of a reporting tree with a single query, reading only the
+	 * fields the tree shows and leaving direct reports as employee IDs.
+	 */
+	@Override
+	public List<ReportingTree.Node> findTreeNodes(Collection<String> employeeIds)
+	{
+		return mongoTemplate.find(treeNodesQuery(employeeIds), ReportingTree.Node.class,
+				mongoTemplate.getCollectionName(Employee.class));
+	}
+
+	/**
+	 * Sets the manager of the employees with one updateMulti, replacing any
+	 * manager they had. Their versions are incremented, so an update of one of
+	 * them read before this does not put the old manager back.
+	 * 
+	 * @return The number of employees whose manager changed
+	 */
+	@Override
+	public long assignManager(String managerId, Collection<String> employeeIds)
+	{
+		return mongoTemplate.updateMulti(employeesQuery(employeeIds),
+				Update.update("managerId", managerId).inc("version", 1), Employee.class).getModifiedCount();
+	}
+
+	/**
+	 * Clears the manager of the employees that still report to it. An employee
+	 * that has since been given another manager keeps that one.
+	 * 
+	 * @return The number of employees whose manager was cleared
+	 */
+	@Override
+	public long unassignManager(String managerId, Collection<String> employeeIds)
+	{
+		return mongoTemplate.updateMulti(managedByQuery(managerId, employeeIds),
+				new Update().unset("managerId").inc("version", 1), Employee.class).getModifiedCount();
+	}
+
+	/**
+	 * Records the compensation as the latest of the employee and moves the
+	 * employee on to its next version, only if it is still at the version given.
+	 * Adding compensation claims the employee this way before inserting the
+	 * record, so it is ordered against saves and other adds to the employee.
+	 * 
+	 * @return false if the employee was written since it was read at the version,
+	 *         or is not found
+	 */
+	@Override
+	public boolean claimLatestCompensation(String employeeId, Long version, Compensation compensation)
+	{
+		return mongoTemplate.updateFirst(versionQuery(employeeId, version), claimUpdate(compensation),
+				Employee.class).getModifiedCount() == 1;
+	}
+
+	static Update claimUpdate(Compensation compensation)
+	{
+		return new Update().set("latestCompensation", compensation).inc("version", 1);
+	}
+
+	static Query employeesQuery(Collection<String> employeeIds)
+	{
+		return Query.query(Criteria.where("_id").in(employeeIds));
+	}
+
+	static Query managedByQuery(String managerId, Collection<String> employeeIds)
+	{
+		return Query.query(Criteria.where("_id").in(employeeIds).and("managerId").is(managerId));
+	}
+
+	static Query versionQuery(String employeeId, Long version)
+	{
+		return Query.query(Criteria.where("_id").is(employeeId).and("version").is(version));
+	}
+
+	static Query treeNodesQuery(Collection<String> employeeIds)
+	{
+		Query query = employeesQuery(employeeIds);
+		query.fields().include("firstName", "lastName", "position", "department", "directReports");
+		return query;
+	}
+
+	/**
+	 * @return Query for the employees matching the department and position, read
+	 *         from the server in batches
+	 */
+	static Query filterQuery(String department, String position)
+	{
+		Query query = new Query();
+		if (StringUtils.isNotBlank(department))
+		{
+			query.addCriteria(Criteria.where("department").is(department));
+		}
+		if (StringUtils.isNotBlank(position))
+		{
+			query.addCriteria(Criteria.where("position").is(position));
+		}
+		query.cursorBatchSize(STREAM_BATCH_SIZE);
+		return query;
+	}
+
+	/**
+	 * @return Query for a page of employees in employee ID order
+	 */
+	static Query pageQuery(String afterEmployeeId, int limit, Collection<String> fields)
+	{
+		Query query = new Query();
+		if (StringUtils.isNotBlank(afterEmployeeId))
+		{
+			query.addCriteria(Criteria.where("_id").gt(afterEmployeeId));
+		}
+		query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+		if (CollectionUtils.isNotEmpty(fields))
+		{
+			fields.forEach(query.fields()::include);
+		}
+		return query;
+	}
+
+	/**
+	 * Builds the $graphLookup stage by hand. GraphLookupOperation writes maxDepth
+	 * as a long, which the embedded mongo-java-server rejects. Each report is
+	 * given the level it was found at as depth.
+	 */
+	private static AggregationOperation graphLookupReports(String collection, int maxDepth)
+	{
+		return context -> new Document("$graphLookup", new Document("from", collection)
+				.append("startWith", "$directReports")
+				.append("connectFromField", "directReports")
+				.append("connectToField", "_id")
+				.append("maxDepth", maxDepth)
+				.append("depthField", "depth")
+				.append("as", "reports"));
+	}
+}
@@ -0,0 +1,17 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.CompensationRecord;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import java.util.Collection;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveCompensationRepository extends ReactiveMongoRepository<CompensationRecord, String>, ReactiveCompensationRepositoryCustom {
+    Mono<CompensationRecord> findFirstByEmployeeIdOrderByEffectiveDateDesc(String employeeId);
+    Flux<CompensationRecord> findByEmployeeIdOrderByEffectiveDateAsc(String employeeId);
+    Flux<CompensationRecord> findByEmployeeIdInOrderByEffectiveDateAsc(Collection<String> employeeIds);
+}
@@ -0,0 +1,12 @@
+package com.mindex.challenge.dao;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+import com.mindex.challenge.data.CompensationRecord;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveCompensationRepositoryCustom {
+    Flux<CompensationRecord> findLatest(Collection<String> employeeIds, LocalDate asOf);
+}
@@ -0,0 +1,32 @@
+package com.mindex.challenge.dao;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.mindex.challenge.data.CompensationRecord;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Runs the same aggregation as {@link CompensationRepositoryCustomImpl} on the
+ * reactive driver.
+ */
+public class ReactiveCompensationRepositoryCustomImpl implements ReactiveCompensationRepositoryCustom
+{
+
+	@Autowired
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+
+	/**
+	 * @see CompensationRepositoryCustomImpl#findLatest(Collection, LocalDate)
+	 */
+	@Override
+	public Flux<CompensationRecord> findLatest(Collection<String> employeeIds, LocalDate asOf)
+	{
+		return reactiveMongoTemplate.aggregate(CompensationRepositoryCustomImpl.latestAggregation(employeeIds, asOf),
+				CompensationRecord.class);
+	}
+}
@@ -0,0 +1,9 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+@Repository
+public interface ReactiveEmployeeRepository extends ReactiveMongoRepository<Employee, String>, ReactiveEmployeeRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.mindex.challenge.dao;
+
+import java.util.Collection;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingTree;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmployeeRepositoryCustom {
+    Mono<ReportCount> countAllReports(String employeeId, int maxDepth);
+    Flux<Employee> streamAll(String department, String position);
+    Flux<Employee> findPage(String afterEmployeeId, int limit, Collection<String> fields);
+    Flux<ReportingTree.Node> findTreeNodes(Collection<String> employeeIds);
+    Mono<Long> assignManager(String managerId, Collection<String> employeeIds);
+    Mono<Long> unassignManager(String managerId, Collection<String> employeeIds);
+    Mono<Boolean> claimLatestCompensation(String employeeId, Long version, Compensation compensation);
+}
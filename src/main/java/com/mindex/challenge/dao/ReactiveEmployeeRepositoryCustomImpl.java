@@ -0,0 +1,111 @@
+package com.mindex.challenge.dao;
+
+import java.util.Collection;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingTree;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the same queries as {@link EmployeeRepositoryCustomImpl} on the reactive
+ * driver.
+ */
+public class ReactiveEmployeeRepositoryCustomImpl implements ReactiveEmployeeRepositoryCustom
+{
+
+	@Autowired
+	private ReactiveMongoTemplate reactiveMongoTemplate;
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#countAllReports(String, int)
+	 */
+	@Override
+	public Mono<ReportCount> countAllReports(String employeeId, int maxDepth)
+	{
+		String collection = reactiveMongoTemplate.getCollectionName(Employee.class);
+
+		return reactiveMongoTemplate.aggregate(
+				EmployeeRepositoryCustomImpl.countAllReportsAggregation(collection, employeeId, maxDepth), collection,
+				Document.class)
+				.next()
+				.map(EmployeeRepositoryCustomImpl::reportCount)
+				.defaultIfEmpty(EmployeeRepositoryCustomImpl.reportCount(null));
+	}
+
+	/**
+	 * Emits employees as the cursor returns them, fetching the next batch from the
+	 * server only as the subscriber asks for more.
+	 * 
+	 * @param department - Only employees in this department, or every department
+	 *                   if blank
+	 * @param position   - Only employees with this position, or every position if
+	 *                   blank
+	 * @return The matching employees
+	 */
+	@Override
+	public Flux<Employee> streamAll(String department, String position)
+	{
+		return reactiveMongoTemplate.find(EmployeeRepositoryCustomImpl.filterQuery(department, position), Employee.class);
+	}
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#findPage(String, int, Collection)
+	 */
+	@Override
+	public Flux<Employee> findPage(String afterEmployeeId, int limit, Collection<String> fields)
+	{
+		return reactiveMongoTemplate.find(EmployeeRepositoryCustomImpl.pageQuery(afterEmployeeId, limit, fields),
+				Employee.class);
+	}
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#findTreeNodes(Collection)
+	 */
+	@Override
+	public Flux<ReportingTree.Node> findTreeNodes(Collection<String> employeeIds)
+	{
+		return reactiveMongoTemplate.find(EmployeeRepositoryCustomImpl.treeNodesQuery(employeeIds),
+				ReportingTree.Node.class, reactiveMongoTemplate.getCollectionName(Employee.class));
+	}
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#assignManager(String, Collection)
+	 */
+	@Override
+	public Mono<Long> assignManager(String managerId, Collection<String> employeeIds)
+	{
+		return reactiveMongoTemplate.updateMulti(EmployeeRepositoryCustomImpl.employeesQuery(employeeIds),
+				Update.update("managerId", managerId).inc("version", 1), Employee.class).map(UpdateResult::getModifiedCount);
+	}
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#unassignManager(String, Collection)
+	 */
+	@Override
+	public Mono<Long> unassignManager(String managerId, Collection<String> employeeIds)
+	{
+		return reactiveMongoTemplate.updateMulti(EmployeeRepositoryCustomImpl.managedByQuery(managerId, employeeIds),
+				new Update().unset("managerId").inc("version", 1), Employee.class).map(UpdateResult::getModifiedCount);
+	}
+
+	/**
+	 * @see EmployeeRepositoryCustomImpl#claimLatestCompensation(String, Long, Compensation)
+	 */
+	@Override
+	public Mono<Boolean> claimLatestCompensation(String employeeId, Long version, Compensation compensation)
+	{
+		return reactiveMongoTemplate.updateFirst(EmployeeRepositoryCustomImpl.versionQuery(employeeId, version),
+				EmployeeRepositoryCustomImpl.claimUpdate(compensation), Employee.class)
+				.map(result -> result.getModifiedCount() == 1);
+	}
+}
@@ -0,0 +1,20 @@
+package com.mindex.challenge.data;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class CacheStatistics {
+
+	private int size;
+	private int maxSize;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+}
@@ -0,0 +1,51 @@
+package com.mindex.challenge.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One entry in an employee's compensation history, stored in its own
+ * collection. The index on employee ID and effective date answers both the
+ * latest compensation of an employee and the history in date order, and keeps
+ * an employee to one compensation per date.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+@Document("compensation")
+@CompoundIndex(name = "employee_effective_date", def = "{'employeeId': 1, 'effectiveDate': 1}", unique = true)
+public class CompensationRecord
+{
+	@Id
+	private String id;
+	private String employeeId;
+	private BigDecimal salary;
+	private LocalDate effectiveDate;
+
+	public static CompensationRecord of(String employeeId, Compensation compensation)
+	{
+		CompensationRecord record = new CompensationRecord();
+		record.setEmployeeId(employeeId);
+		record.setSalary(compensation.getSalary());
+		record.setEffectiveDate(compensation.getEffectiveDate());
+		return record;
+	}
+
+	public Compensation toCompensation()
+	{
+		Compensation compensation = new Compensation();
+		compensation.setSalary(salary);
+		compensation.setEffectiveDate(effectiveDate);
+		return compensation;
+	}
+}
@@ -0,0 +1,62 @@
+package com.mindex.challenge.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+/**
+ * Stores the direct reports of an employee as an array of their employee IDs
+ * instead of embedded employee documents, so saving a manager writes a few IDs
+ * rather than a copy of every report, and reads them back as employees holding
+ * only the employee ID. Direct reports embedded as whole documents by earlier
+ * versions are read by their _id until DirectReportsMigration rewrites them.
+ * <p>
+ * Values in queries on directReports, such as a single employee ID, pass
+ * through the converter too, so it is typed on Object and leaves anything that
+ * is not an employee as it is.
+ */
+public class DirectReportsConverter implements MongoValueConverter<Object, Object>
+{
+	@Override
+	public Object read(Object value, MongoConversionContext context)
+	{
+		if (!(value instanceof List<?> stored))
+		{
+			return value;
+		}
+
+		List<Employee> directReports = new ArrayList<>(stored.size());
+		for (Object directReport : stored)
+		{
+			Object employeeId = directReport instanceof Document embedded ? embedded.get("_id") : directReport;
+			directReports.add(Employee.reference(employeeId == null ? null : employeeId.toString()));
+		}
+		return directReports;
+	}
+
+	@Override
+	public Object write(Object value, MongoConversionContext context)
+	{
+		if (value instanceof Employee directReport)
+		{
+			return directReport.getEmployeeId();
+		}
+		if (!(value instanceof List<?> directReports))
+		{
+			return value;
+		}
+
+		List<Object> employeeIds = new ArrayList<>(directReports.size());
+		for (Object directReport : directReports)
+		{
+			if (directReport != null)
+			{
+				employeeIds.add(directReport instanceof Employee employee ? employee.getEmployeeId() : directReport);
+			}
+		}
+		return employeeIds;
+	}
+}
@@ -1,30 +1,67 @@
-package com.mindex.challenge.data;
-
-import java.util.List;
-
-import org.springframework.data.annotation.Id;
-
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
-import lombok.ToString;
-
-@Data
-@NoArgsConstructor
-@ToString
-@EqualsAndHashCode(exclude = { "compensation", "directReports" })
-@JsonIgnoreProperties(ignoreUnknown = true)
-public class Employee
-{
-	@Id
-	private String employeeId;
-	private String firstName;
-	private String lastName;
-	private String position;
-	private String department;
-	private List<Employee> directReports;
-	private List<Compensation> compensation;
-
-}
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(exclude = { "compensation", "latestCompensation", "directReports" })
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Document("employee")
+public class Employee
+{
+	@Id
+	private String employeeId;
+	private String firstName;
+	private String lastName;
+	private String position;
+	private String department;
+
+	// Stored as an array of employee IDs, indexed to find an employee's manager, see MongoIndexes.
+	// Read back as employees holding only the employee ID, unless expanded
+	@ValueConverter(DirectReportsConverter.class)
+	private List<Employee> directReports;
+
+	// The employee listing this one in its direct reports, kept by create and update
+	// so the chain of command is walked upward without scanning direct reports, see MongoIndexes
+	private String managerId;
+
+	// Incremented by every write to the employee. A save carrying an older version
+	// is rejected, so concurrent read-modify-save updates can not overwrite each other
+	@Version
+	private Long version;
+
+	// Stored in the compensation collection, filled in when the employee is read
+	@Transient
+	private List<Compensation> compensation;
+
+	// The latest compensation added, set together with the version by the add so the
+	// next add is checked against it. Null if none was added since it has been kept
+	@JsonIgnore
+	private Compensation latestCompensation;
+
+	/**
+	 * @return An employee holding only the employee ID, as direct reports are
+	 *         stored
+	 */
+	public static Employee reference(String employeeId)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		return employee;
+	}
+}
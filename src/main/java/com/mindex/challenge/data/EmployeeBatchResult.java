@@ -0,0 +1,22 @@
+package com.mindex.challenge.data;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Outcome of one employee in a batch create. Results are returned in the same
+ * order as the employees were sent.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class EmployeeBatchResult {
+
+	private int index;
+	private String employeeId;
+	private boolean created;
+	private String message;
+}
@@ -0,0 +1,22 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * One page of employees ordered by employee ID. Pass nextCursor as the after
+ * parameter to fetch the following page, it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class EmployeePage {
+
+	private List<Employee> employees;
+	private String nextCursor;
+}
@@ -0,0 +1,33 @@
+package com.mindex.challenge.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Problems found in the org chart formed by the directReports of every
+ * employee.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class OrgChartScan {
+
+	private int employees;
+	private long directReports;
+
+	// Employee ID to the IDs in its directReports that are not in the store
+	private Map<String, List<String>> orphanedReferences = new TreeMap<>();
+
+	// Each cycle as the employee IDs along it, every one managing the next and the last managing the first
+	private List<List<String>> cycles = new ArrayList<>();
+
+	private long elapsedMillis;
+}
@@ -0,0 +1,26 @@
+package com.mindex.challenge.data;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class PayrollReport {
+
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+	private LocalDate asOf;
+	private PayrollTotal total;
+	// Keyed by department
+	private Map<String, PayrollTotal> departments;
+	// Keyed by manager employee ID, covering the manager and everyone underneath
+	private Map<String, PayrollTotal> managers;
+}
@@ -0,0 +1,62 @@
+package com.mindex.challenge.data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Salary totals for a group of employees. Employees without compensation are
+ * counted in employees but left out of the average.
+ */
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PayrollTotal
+{
+	private int employees;
+	private int paidEmployees;
+	private BigDecimal totalSalary = BigDecimal.ZERO;
+
+	/**
+	 * Adds one employee to the totals.
+	 * 
+	 * @param salary - Salary in effect for the employee, or null if it has none
+	 */
+	public void add(BigDecimal salary)
+	{
+		employees++;
+		if (salary != null)
+		{
+			paidEmployees++;
+			totalSalary = totalSalary.add(salary);
+		}
+	}
+
+	/**
+	 * Adds every employee counted in the other totals.
+	 */
+	public void add(PayrollTotal other)
+	{
+		employees += other.employees;
+		paidEmployees += other.paidEmployees;
+		totalSalary = totalSalary.add(other.totalSalary);
+	}
+
+	/**
+	 * @return The average salary of the employees with compensation, rounded to
+	 *         cents, or null if none have any
+	 */
+	public BigDecimal getAverageSalary()
+	{
+		return paidEmployees == 0 ? null
+				: totalSalary.divide(BigDecimal.valueOf(paidEmployees), 2, RoundingMode.HALF_UP);
+	}
+}
@@ -0,0 +1,18 @@
+package com.mindex.challenge.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of distinct employees underneath an employee and how many levels
+ * down the deepest of them is, the direct reports being level 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportCount
+{
+	private long numberOfReports;
+	private int depth;
+}
@@ -0,0 +1,44 @@
+package com.mindex.challenge.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The employees underneath an employee, fetched a level at a time with only the
+ * fields shown in the org chart, and written out as nested employees by
+ * ReportingTreeSerializer.
+ */
+@Data
+@NoArgsConstructor
+@JsonSerialize(using = ReportingTreeSerializer.class)
+public class ReportingTree
+{
+	private String employeeId;
+
+	// Every employee fetched for the tree by employee ID, the employee at the top included
+	private Map<String, Node> employees = new HashMap<>();
+
+	/**
+	 * An employee as read for the tree, its direct reports left as employee IDs.
+	 */
+	@Data
+	@NoArgsConstructor
+	public static class Node
+	{
+		@Id
+		private String employeeId;
+		private String firstName;
+		private String lastName;
+		private String position;
+		private String department;
+		private List<String> directReports;
+	}
+}
@@ -0,0 +1,73 @@
+package com.mindex.challenge.data;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a reporting tree as the employee at the top with each direct report
+ * nested in its directReports, straight to the generator, so no copy of the tree
+ * is built as employees or as a JSON string first.
+ * <p>
+ * A direct report that was not fetched, being below the requested depth or not
+ * found, is written as a reference holding only its employeeId, as direct
+ * reports are returned when they are not expanded. So is an employee already
+ * written, which only happens through a cycle or an employee listed by two
+ * managers.
+ */
+public class ReportingTreeSerializer extends StdSerializer<ReportingTree>
+{
+	private static final long serialVersionUID = 1L;
+
+	public ReportingTreeSerializer()
+	{
+		super(ReportingTree.class);
+	}
+
+	@Override
+	public void serialize(ReportingTree tree, JsonGenerator generator, SerializerProvider provider) throws IOException
+	{
+		writeEmployee(tree, tree.getEmployeeId(), new HashSet<>(), generator);
+	}
+
+	private static void writeEmployee(ReportingTree tree, String employeeId, Set<String> written, JsonGenerator generator)
+			throws IOException
+	{
+		generator.writeStartObject();
+		generator.writeStringField("employeeId", employeeId);
+
+		ReportingTree.Node employee = tree.getEmployees().get(employeeId);
+		if (employee != null && written.add(employeeId))
+		{
+			writeFields(employee, generator);
+
+			if (employee.getDirectReports() != null)
+			{
+				generator.writeArrayFieldStart("directReports");
+				for (String directReportId : employee.getDirectReports())
+				{
+					writeEmployee(tree, directReportId, written, generator);
+				}
+				generator.writeEndArray();
+			}
+		}
+
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the fields of an employee shown in the tree, other than its
+	 * employeeId and directReports.
+	 */
+	public static void writeFields(ReportingTree.Node employee, JsonGenerator generator) throws IOException
+	{
+		generator.writeStringField("firstName", employee.getFirstName());
+		generator.writeStringField("lastName", employee.getLastName());
+		generator.writeStringField("position", employee.getPosition());
+		generator.writeStringField("department", employee.getDepartment());
+	}
+}
@@ -0,0 +1,18 @@
+package com.mindex.challenge.data;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class SnapshotInfo {
+
+	private String path;
+	private int employees;
+	private long sizeBytes;
+	private long elapsedMillis;
+}
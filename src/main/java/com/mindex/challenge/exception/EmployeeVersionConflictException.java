@@ -0,0 +1,12 @@
+package com.mindex.challenge.exception;
+
+public class EmployeeVersionConflictException extends MindexException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public EmployeeVersionConflictException(String message) {
+		super(message);
+	}
+
+}
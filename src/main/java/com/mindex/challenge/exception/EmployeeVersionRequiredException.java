@@ -0,0 +1,12 @@
+package com.mindex.challenge.exception;
+
+public class EmployeeVersionRequiredException extends MindexException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public EmployeeVersionRequiredException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,12 @@
+package com.mindex.challenge.exception;
+
+public class InvalidFieldException extends MindexException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidFieldException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.mindex.challenge.exception;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An error message with %name% placeholders. The template is split into its
+ * literal parts once, so formatting is a single append of the parts and values
+ * instead of a search, or a regex compile, per placeholder.
+ */
+public final class MessageTemplate
+{
+	private final String[] parts;
+
+	private final int length;
+
+	private MessageTemplate(String[] parts)
+	{
+		this.parts = parts;
+		int length = 0;
+		for (String part : parts)
+		{
+			length += part.length();
+		}
+		this.length = length;
+	}
+
+	/**
+	 * @param template - The message with a %name% placeholder for each value
+	 */
+	public static MessageTemplate of(String template)
+	{
+		List<String> parts = new ArrayList<>();
+		int start = 0;
+		int open;
+		while ((open = template.indexOf('%', start)) >= 0)
+		{
+			int close = template.indexOf('%', open + 1);
+			if (close < 0)
+			{
+				break;
+			}
+			parts.add(template.substring(start, open));
+			start = close + 1;
+		}
+		parts.add(template.substring(start));
+		return new MessageTemplate(parts.toArray(new String[0]));
+	}
+
+	/**
+	 * @return The number of values {@link #format(Object...)} takes
+	 */
+	public int placeholders()
+	{
+		return parts.length - 1;
+	}
+
+	/**
+	 * @param values - One value per placeholder, in the order they appear
+	 * @return The message with every placeholder replaced
+	 */
+	public String format(Object... values)
+	{
+		if (values.length != placeholders())
+		{
+			throw new IllegalArgumentException(
+					"Expected " + placeholders() + " values for the message but got " + values.length);
+		}
+		if (values.length == 0)
+		{
+			return parts[0];
+		}
+
+		String[] strings = new String[values.length];
+		int size = length;
+		for (int i = 0; i < values.length; i++)
+		{
+			strings[i] = String.valueOf(values[i]);
+			size += strings[i].length();
+		}
+
+		StringBuilder message = new StringBuilder(size);
+		message.append(parts[0]);
+		for (int i = 0; i < strings.length; i++)
+		{
+			message.append(strings[i]).append(parts[i + 1]);
+		}
+		return message.toString();
+	}
+}
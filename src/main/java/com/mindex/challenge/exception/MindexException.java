@@ -1,11 +1,15 @@
 package com.mindex.challenge.exception;
 
+/**
+ * Base of the domain exceptions. These are expected outcomes of bad input that
+ * are turned into a 400 response, so no stack trace is captured for them.
+ */
 public class MindexException extends Exception {
 
 	private static final long serialVersionUID = 1L;
 
 	public MindexException(String message)
 	{
-		super(message);
+		super(message, null, false, false);
 	}
 }
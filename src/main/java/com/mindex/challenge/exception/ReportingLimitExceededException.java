@@ -0,0 +1,12 @@
+package com.mindex.challenge.exception;
+
+public class ReportingLimitExceededException extends MindexException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	public ReportingLimitExceededException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.mindex.challenge.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every {@link com.mindex.challenge.service.EmployeeService} call as the
+ * employee.service timer, tagged with the method and the exception thrown, or
+ * none. Failed calls are also counted as employee.service.errors by method and
+ * exception type.
+ */
+@Aspect
+@Component
+public class EmployeeServiceMetrics
+{
+	private static final String NO_EXCEPTION = "none";
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Around("execution(* com.mindex.challenge.service.EmployeeService.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable
+	{
+		String method = joinPoint.getSignature().getName();
+		String exception = NO_EXCEPTION;
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try
+		{
+			return joinPoint.proceed();
+		}
+		catch (Throwable e)
+		{
+			exception = e.getClass().getSimpleName();
+			meterRegistry.counter("employee.service.errors", "method", method, "exception", exception).increment();
+			throw e;
+		}
+		finally
+		{
+			sample.stop(meterRegistry.timer("employee.service", "method", method, "exception", exception));
+		}
+	}
+}
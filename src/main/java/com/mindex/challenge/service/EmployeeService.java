@@ -1,22 +1,43 @@
-package com.mindex.challenge.service;
-
-import java.util.List;
-
-import com.mindex.challenge.data.Compensation;
-import com.mindex.challenge.data.Employee;
-import com.mindex.challenge.data.ReportingStructure;
-import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
-import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
-import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
-import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
-
-import jakarta.validation.constraints.NotEmpty;
-
-public interface EmployeeService {
-    Employee create(Employee employee) throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException;
-    Employee read(String id);
-    Employee update(String id, Employee employee) throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException;
-	ReportingStructure findReportingStructure(@NotEmpty String id);
-	Employee addCompensation(String id, Compensation compensation) throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException;
-	List<Compensation> findCompensation(Employee employee) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException;
-}
+package com.mindex.challenge.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.data.ReportingTree;
+import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.EmployeeVersionRequiredException;
+import com.mindex.challenge.exception.InvalidFieldException;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+
+import jakarta.validation.constraints.NotEmpty;
+
+public interface EmployeeService {
+    Employee create(Employee employee) throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException;
+    List<EmployeeBatchResult> createAll(List<Employee> employees);
+    Employee read(String id);
+    Employee read(String id, List<String> expand) throws InvalidFieldException;
+    EmployeePage list(String after, Integer limit, List<String> fields) throws InvalidFieldException;
+    Stream<Employee> streamAll(String department, String position);
+    Employee update(String id, Employee employee) throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionConflictException, EmployeeVersionRequiredException;
+	ReportingStructure findReportingStructure(@NotEmpty String id) throws ReportingLimitExceededException;
+	List<ReportingStructure> findReportingStructures(List<String> ids) throws ReportingLimitExceededException;
+	ReportingTree findReportingTree(String id, Integer maxDepth) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException;
+	List<Employee> findChainOfCommand(String id) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException;
+	Employee addCompensation(String id, Compensation compensation) throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException;
+	List<Compensation> findCompensation(Employee employee) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException;
+	Compensation findCompensationAsOf(String id, LocalDate date) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException;
+	List<Compensation> findCompensationBetween(String id, LocalDate from, LocalDate to) throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException;
+	Map<String, Compensation> findLatestCompensation(Collection<String> ids, LocalDate asOf);
+}
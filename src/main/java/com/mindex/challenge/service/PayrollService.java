@@ -0,0 +1,9 @@
+package com.mindex.challenge.service;
+
+import java.time.LocalDate;
+
+import com.mindex.challenge.data.PayrollReport;
+
+public interface PayrollService {
+    PayrollReport findPayroll(LocalDate asOf);
+}
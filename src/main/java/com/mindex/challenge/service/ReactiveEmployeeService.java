@@ -0,0 +1,39 @@
+package com.mindex.challenge.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.data.ReportingTree;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link EmployeeService}. Every method signals the
+ * same exceptions EmployeeService throws as an error instead.
+ */
+public interface ReactiveEmployeeService {
+    Mono<Employee> create(Employee employee);
+    Mono<List<EmployeeBatchResult>> createAll(List<Employee> employees);
+    Mono<Employee> read(String id);
+    Mono<Employee> read(String id, List<String> expand);
+    Mono<EmployeePage> list(String after, Integer limit, List<String> fields);
+    Flux<Employee> streamAll(String department, String position);
+    Mono<Employee> update(String id, Employee employee);
+    Mono<ReportingStructure> findReportingStructure(String id);
+    Mono<List<ReportingStructure>> findReportingStructures(List<String> ids);
+    Mono<ReportingTree> findReportingTree(String id, Integer maxDepth);
+    Mono<List<Employee>> findChainOfCommand(String id);
+    Mono<Employee> addCompensation(String id, Compensation compensation);
+    Mono<List<Compensation>> findCompensation(Employee employee);
+    Mono<Compensation> findCompensationAsOf(String id, LocalDate date);
+    Mono<List<Compensation>> findCompensationBetween(String id, LocalDate from, LocalDate to);
+    Mono<Map<String, Compensation>> findLatestCompensation(Collection<String> ids, LocalDate asOf);
+}
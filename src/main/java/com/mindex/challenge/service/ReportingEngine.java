@@ -0,0 +1,25 @@
+package com.mindex.challenge.service;
+
+/**
+ * How the number of reports for a reporting structure is computed. Selected
+ * with the reporting.engine property.
+ */
+public enum ReportingEngine
+{
+	/**
+	 * Walks the org chart in the application, one findAllById per level.
+	 */
+	BFS,
+
+	/**
+	 * Computes the whole closure inside Mongo with a single $graphLookup
+	 * aggregation.
+	 */
+	GRAPH_LOOKUP,
+
+	/**
+	 * Answers from the in-memory org chart index, kept up to date as employees are
+	 * created and updated.
+	 */
+	INDEX
+}
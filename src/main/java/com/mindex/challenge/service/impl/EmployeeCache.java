@@ -0,0 +1,171 @@
+package com.mindex.challenge.service.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.Employee;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounded read-through cache of employees by employee ID. Entries are evicted
+ * least recently used first once the cache is full, and expire after the
+ * configured time to live. Employees that are not found are not cached.
+ *
+ * Cached employees are shared between callers, so anything that modifies the
+ * employee it reads should go to the repository instead.
+ *
+ * The statistics are also published as the cache.* meters with the tag
+ * cache=employee, following Micrometer's cache naming.
+ */
+@Component
+public class EmployeeCache implements MeterBinder
+{
+	private final int maxSize;
+	private final long ttlNanos;
+	private final Map<String, CachedEmployee> entries;
+
+	// Bumped on every invalidation so a load that overlaps a write is not cached
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	@Autowired
+	public EmployeeCache(@Value("${employee.cache.max-size:10000}") int maxSize,
+			@Value("${employee.cache.ttl:5m}") Duration ttl)
+	{
+		this.maxSize = maxSize;
+		this.ttlNanos = ttl.toNanos();
+		this.entries = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedEmployee> eldest)
+			{
+				if (size() > EmployeeCache.this.maxSize)
+				{
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached employee, loading and caching it on a miss.
+	 *
+	 * @param employeeId - The employee ID to look up
+	 * @param loader     - Loads the employee from the store on a miss
+	 * @return The employee, or null if it does not exist
+	 */
+	public Employee get(String employeeId, Function<String, Employee> loader)
+	{
+		long now = System.nanoTime();
+
+		synchronized (entries)
+		{
+			CachedEmployee cached = entries.get(employeeId);
+			if (cached != null)
+			{
+				if (now - cached.expiresAt < 0)
+				{
+					hits.increment();
+					return cached.employee;
+				}
+				entries.remove(employeeId);
+				expirations.increment();
+			}
+		}
+
+		misses.increment();
+		long loadGeneration = generation.get();
+		Employee employee = loader.apply(employeeId);
+
+		if (employee != null && maxSize > 0)
+		{
+			synchronized (entries)
+			{
+				if (loadGeneration == generation.get())
+				{
+					entries.put(employeeId, new CachedEmployee(employee, now + ttlNanos));
+				}
+			}
+		}
+
+		return employee;
+	}
+
+	/**
+	 * Removes the employee so the next read goes to the store. Called after every
+	 * write to the employee.
+	 *
+	 * @param employeeId - The employee ID that was written
+	 */
+	public void invalidate(String employeeId)
+	{
+		synchronized (entries)
+		{
+			generation.incrementAndGet();
+			entries.remove(employeeId);
+		}
+	}
+
+	public CacheStatistics getStatistics()
+	{
+		CacheStatistics statistics = new CacheStatistics();
+		synchronized (entries)
+		{
+			statistics.setSize(entries.size());
+		}
+		statistics.setMaxSize(maxSize);
+		statistics.setHits(hits.sum());
+		statistics.setMisses(misses.sum());
+		statistics.setEvictions(evictions.sum());
+		statistics.setExpirations(expirations.sum());
+		return statistics;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry)
+	{
+		Gauge.builder("cache.size", this, cache -> cache.getStatistics().getSize()).tag("cache", "employee")
+				.register(registry);
+		FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tags("cache", "employee", "result", "hit")
+				.register(registry);
+		FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tags("cache", "employee", "result", "miss")
+				.register(registry);
+		FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", "employee")
+				.register(registry);
+		FunctionCounter.builder("cache.expirations", expirations, LongAdder::sum).tag("cache", "employee")
+				.register(registry);
+	}
+
+	private static class CachedEmployee
+	{
+		private final Employee employee;
+		private final long expiresAt;
+
+		private CachedEmployee(Employee employee, long expiresAt)
+		{
+			this.employee = employee;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -1,268 +1,1326 @@
-package com.mindex.challenge.service.impl;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
-
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import com.mindex.challenge.dao.EmployeeRepository;
-import com.mindex.challenge.data.Compensation;
-import com.mindex.challenge.data.Employee;
-import com.mindex.challenge.data.ReportingStructure;
-import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
-import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
-import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
-import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
-import com.mindex.challenge.service.EmployeeService;
-
-import jakarta.validation.Valid;
-import lombok.extern.slf4j.Slf4j;
-
-@Service
-@Slf4j
-public class EmployeeServiceImpl implements EmployeeService
-{
-
-	@Autowired
-	private EmployeeRepository employeeRepository;
-
-	@Override
-	public Employee create(@Valid Employee employee)
-			throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException
-	{
-		log.debug("Creating employee [{}]", employee.toString());
-
-		// If the employee ID exists, we can not create the user. Throw an error.
-		if (StringUtils.isNotBlank(employee.getEmployeeId()) && read(employee.getEmployeeId()) != null)
-		{
-			String errorMsg = "User \"%employeeId%\" already exists. Employee ID must be unique";
-			errorMsg = errorMsg.replaceAll("%employeeId%", employee.getEmployeeId());
-			throw new EmployeeIdAlreadyExistsException(errorMsg);
-		}
-
-		// Validate direct reports exists
-		List<Employee> directReportEmployees = employee.getDirectReports();
-		if (CollectionUtils.isNotEmpty(directReportEmployees))
-		{
-			List<String> directReportIds = directReportEmployees.stream().map(Employee::getEmployeeId).distinct()
-					.collect(Collectors.toList());
-			List<Employee> foundDirectReports = employeeRepository.findAllById(directReportIds);
-
-			if (foundDirectReports.size() != directReportIds.size())
-			{
-				List<String> existingDirectReports = foundDirectReports.stream().map(Employee::getEmployeeId).distinct()
-						.collect(Collectors.toList());
-				directReportIds.removeAll(existingDirectReports);
-				if (CollectionUtils.isNotEmpty(directReportIds))
-				{
-					String msg = "Employee IDs %ids% were not found while creating %employee%";
-					msg = msg.replaceAll("%ids%", directReportIds.toString());
-					msg = msg.replaceAll("%employee%", employee.toString());
-					throw new EmployeeDoesNotExistsException(msg);
-				}
-			}
-
-		}
-
-		employee.setEmployeeId(UUID.randomUUID().toString());
-		employeeRepository.insert(employee);
-
-		return employee;
-	}
-
-	@Override
-	public Employee read(String id)
-	{
-		log.debug("Creating employee with id [{}]", id);
-
-		// If the employee does not exists, this is ok, we want a null object
-		return employeeRepository.findByEmployeeId(id);
-	}
-
-	@Override
-	public Employee update(String id, Employee employee)
-			throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException
-	{
-		log.debug("Updating employee [{}]", employee.toString());
-
-		validateEmployeeId(employee.getEmployeeId());
-
-		// The new employeeID must not exists as employeeIDs must be unique. If there is
-		// an employee already
-		// with that employeeID we can not change to that employeeID.
-		try
-		{
-			Employee existingEmployee = validateEmployeeId(id);
-			if (!StringUtils.equalsAnyIgnoreCase(id, employee.getEmployeeId()) && existingEmployee != null)
-			{
-				String errorMsg = "Unable to change employee ID from %currentID% to %newID%. New ID already exists.";
-				errorMsg = errorMsg.replaceAll("%currentID%", employee.getEmployeeId());
-				errorMsg = errorMsg.replaceAll("%newID%", id);
-				log.info(errorMsg);
-				throw new EmployeeIdAlreadyExistsException(errorMsg);
-			}
-		}
-		catch (EmployeeDoesNotExistsException dne)
-		{
-			// Safely ignore as we don't want the employee to exists
-		}
-
-		employee.setEmployeeId(id);
-		return employeeRepository.save(employee);
-	}
-
-	@Override
-	public ReportingStructure findReportingStructure(String id)
-	{
-		ReportingStructure reportingStructure = new ReportingStructure();
-
-		Employee manager;
-		// Employee ID does not exists, can return now.
-		try
-		{
-			manager = validateEmployeeId(id);
-		}
-		catch (EmployeeDoesNotExistsException | EmployeeIdNotSpecifiedException badIdException)
-		{
-			return reportingStructure;
-		}
-
-		reportingStructure.setEmployee(manager);
-
-		// We have an employee, but is not a manager, we can return now
-		if (CollectionUtils.isEmpty(manager.getDirectReports()))
-		{
-			reportingStructure.setNumberOfReports(0);
-			return reportingStructure;
-		}
-
-		// Not the most efficient, as this is breadth first search down the tree
-		// and fetches one employee at a time. If they have direct reports,
-		// the ids are added to the list to see if those have direct reports.
-		List<String> directReportIds = new CopyOnWriteArrayList<String>();
-
-		directReportIds.addAll(manager.getDirectReports().stream().map(Employee::getEmployeeId).distinct()
-				.collect(Collectors.toList()));
-
-		for (String currentEmployeeId : directReportIds)
-		{
-			Employee employee = read(currentEmployeeId);
-
-			if (employee == null || CollectionUtils.isEmpty(employee.getDirectReports()))
-			{
-				continue;
-			}
-
-			directReportIds.addAll(employee.getDirectReports().stream().map(Employee::getEmployeeId).distinct()
-					.collect(Collectors.toList()));
-
-		}
-
-		reportingStructure.setNumberOfReports(directReportIds.size());
-		return reportingStructure;
-
-	}
-
-	@Override
-	@Transactional
-	public Employee addCompensation(String id, Compensation compensation) throws EmployeeIdNotSpecifiedException,
-			CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
-	{
-
-		Employee employee = validateEmployeeId(id);
-		
-		// Sort the compensation by effective date ascending
-		List<Compensation> compensationHistory = employee.getCompensation();
-		if (CollectionUtils.isNotEmpty(compensationHistory))
-		{
-			List<Compensation> orderedCompensation = compensationHistory.stream()
-					.sorted((c1, c2) -> c1.getEffectiveDate().compareTo(c2.getEffectiveDate()))
-					.collect(Collectors.toList());
-
-			Compensation latestComp = orderedCompensation.get(orderedCompensation.size() - 1);
-
-			if (compensation.getEffectiveDate().compareTo(latestComp.getEffectiveDate()) <= 0)
-			{
-				String msg = "Failed to update employee %employeeID%. Latest compensation %latestComp% is after requested comp %requestedComp%";
-				msg = msg.replaceAll("%employeeID%", id);
-				msg = msg.replaceAll("%latestComp%", latestComp.toString());
-				msg = msg.replaceAll("%requestedComp%", compensation.toString());
-				log.debug(msg);
-				throw new CompensationCanNotBeInPastException(msg);
-			}
-		}
-
-		if (CollectionUtils.isEmpty(compensationHistory))
-		{
-			compensationHistory = new ArrayList<>();
-		}
-		else
-		{
-			//Make a list, not an array so we can add the new compensation
-			compensationHistory = new ArrayList<>(compensationHistory);
-		}
-		
-		compensationHistory.add(compensation);
-		employee.setCompensation(compensationHistory);
-
-		return employeeRepository.save(employee);
-
-	}
-
-	@Override
-	public List<Compensation> findCompensation(Employee employee)
-			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
-	{
-		Employee foundEmployee = validateEmployeeId(employee.getEmployeeId());
-
-		if (CollectionUtils.isEmpty(foundEmployee.getCompensation()))
-		{
-			return foundEmployee.getCompensation();
-		}
-
-		return foundEmployee.getCompensation().stream()
-				.sorted((c1, c2) -> c1.getEffectiveDate().compareTo(c2.getEffectiveDate()))
-				.collect(Collectors.toList());
-	}
-
-	/**
-	 * Checks to see if the employeeID is valid and returns the employee.
-	 * 
-	 * @param employeeID - The employeeID for the employee to be found
-	 * @return The employee that is found
-	 * @throws EmployeeIdNotSpecifiedException If the employeeID is blank
-	 * @throws EmployeeDoesNotExistsException  If the employeeID is not found
-	 */
-	protected Employee validateEmployeeId(String employeeId)
-			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
-	{
-		// Validate employee ID
-		if (StringUtils.isBlank(employeeId))
-		{
-			String msg = "Employee ID must be specified.";
-			log.debug(msg);
-			throw new EmployeeIdNotSpecifiedException(msg);
-		}
-
-		Employee employee = null;
-
-		if ((employee = employeeRepository.findByEmployeeId(employeeId)) == null)
-		{
-			String msg = "Employee for employee ID %employeeID% does not exists.";
-			msg = msg.replaceAll("%employeeID%", employeeId);
-			log.debug(msg);
-			throw new EmployeeDoesNotExistsException(msg);
-		}
-
-		return employee;
-
-	}
-}
+package com.mindex.challenge.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.data.ReportingTree;
+import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.EmployeeVersionRequiredException;
+import com.mindex.challenge.exception.InvalidFieldException;
+import com.mindex.challenge.exception.MessageTemplate;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.ReportingEngine;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class EmployeeServiceImpl implements EmployeeService
+{
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private CompensationRepository compensationRepository;
+
+	@Autowired
+	private EmployeeCache employeeCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Only present when reporting.engine is index
+	@Autowired(required = false)
+	private OrgGraphIndex orgGraphIndex;
+
+	// Reporting structure summaries per engine, see registerReportingSummaries
+	private final Map<ReportingEngine, DistributionSummary> reportingDepth = new EnumMap<>(ReportingEngine.class);
+	private final Map<ReportingEngine, DistributionSummary> reportingNodes = new EnumMap<>(ReportingEngine.class);
+	private final Map<ReportingEngine, DistributionSummary> reportingRoundTrips = new EnumMap<>(ReportingEngine.class);
+
+	// Employee fields that may be selected when listing employees
+	private static final Set<String> PAGE_FIELDS = new TreeSet<>(Arrays.asList("employeeId", "firstName", "lastName",
+			"position", "department", "directReports"));
+
+	// Employee fields that may be expanded from references into whole employees when reading an employee
+	private static final Set<String> EXPAND_FIELDS = new TreeSet<>(Arrays.asList("directReports"));
+
+	// Validation messages, parsed once
+	static final MessageTemplate EMPLOYEE_ID_EXISTS = MessageTemplate
+			.of("User \"%employeeId%\" already exists. Employee ID must be unique");
+	static final MessageTemplate DIRECT_REPORTS_NOT_FOUND = MessageTemplate
+			.of("Employee IDs %ids% were not found while creating employee %firstName% %lastName%");
+	static final MessageTemplate INVALID_FIELDS = MessageTemplate
+			.of("Fields %fields% can not be selected. Valid fields are %valid%");
+	static final MessageTemplate INVALID_EXPAND = MessageTemplate
+			.of("Fields %fields% can not be expanded. Valid fields are %valid%");
+	static final MessageTemplate NEW_ID_EXISTS = MessageTemplate
+			.of("Unable to change employee ID from %currentID% to %newID%. New ID already exists.");
+	static final MessageTemplate COMPENSATION_IN_PAST = MessageTemplate.of("Failed to update employee %employeeID%. "
+			+ "Latest compensation %latestComp% is after requested comp %requestedComp%");
+	static final MessageTemplate EMPLOYEE_NOT_FOUND = MessageTemplate
+			.of("Employee for employee ID %employeeID% does not exists.");
+	static final MessageTemplate VERSION_CONFLICT = MessageTemplate
+			.of("Employee %employeeID% was changed by another request. Read it again and retry.");
+	static final MessageTemplate VERSION_REQUIRED = MessageTemplate
+			.of("Employee %employeeID% must be updated with the version it was read at.");
+	static final String EMPLOYEE_ID_NOT_SPECIFIED = "Employee ID must be specified.";
+
+	@Value("${reporting.engine:bfs}")
+	private ReportingEngine reportingEngine;
+
+	// Limits on a single reporting structure traversal
+	@Value("${reporting.max-depth:100}")
+	private int reportingMaxDepth;
+
+	@Value("${reporting.max-nodes:1000000}")
+	private int reportingMaxNodes;
+
+	@Value("${employee.page.default-size:100}")
+	private int defaultPageSize;
+
+	@Value("${employee.page.max-size:1000}")
+	private int maxPageSize;
+
+	// Attempts at adding compensation before giving up on a busy employee
+	@Value("${compensation.add.max-attempts:5}")
+	private int compensationMaxAttempts;
+
+	@Override
+	public Employee create(@Valid Employee employee)
+			throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException
+	{
+		log.debug("Creating employee [{}]", employee);
+
+		// If the employee ID exists, we can not create the user. Throw an error.
+		if (StringUtils.isNotBlank(employee.getEmployeeId()) && read(employee.getEmployeeId()) != null)
+		{
+			throw new EmployeeIdAlreadyExistsException(EMPLOYEE_ID_EXISTS.format(employee.getEmployeeId()));
+		}
+
+		// Validate direct reports exists
+		List<Employee> directReportEmployees = employee.getDirectReports();
+		if (CollectionUtils.isNotEmpty(directReportEmployees))
+		{
+			List<String> directReportIds = directReportEmployees.stream().map(Employee::getEmployeeId).distinct()
+					.collect(Collectors.toList());
+			List<Employee> foundDirectReports = employeeRepository.findAllById(directReportIds);
+
+			if (foundDirectReports.size() != directReportIds.size())
+			{
+				List<String> existingDirectReports = foundDirectReports.stream().map(Employee::getEmployeeId).distinct()
+						.collect(Collectors.toList());
+				directReportIds.removeAll(existingDirectReports);
+				if (CollectionUtils.isNotEmpty(directReportIds))
+				{
+					throw new EmployeeDoesNotExistsException(DIRECT_REPORTS_NOT_FOUND.format(directReportIds,
+							employee.getFirstName(), employee.getLastName()));
+				}
+			}
+
+		}
+
+		employee.setEmployeeId(UUID.randomUUID().toString());
+		employee.setDirectReports(references(employee.getDirectReports()));
+		// Nobody lists a new employee as a report yet
+		employee.setManagerId(null);
+		employee.setVersion(null);
+		employeeRepository.insert(employee);
+		employeeCache.invalidate(employee.getEmployeeId());
+		updateManagerIndex(employee.getEmployeeId(), null, employee.getDirectReports());
+
+		if (orgGraphIndex != null)
+		{
+			orgGraphIndex.setDirectReports(employee.getEmployeeId(), employee.getDirectReports());
+		}
+
+		return employee;
+	}
+
+	/**
+	 * Creates every employee in the list. All employee IDs and direct report IDs
+	 * in the batch are checked against the store with one findAllById, and every
+	 * valid employee is written with one insert. A direct report may refer to an
+	 * employee earlier in the batch by the employee ID it was sent with, which is
+	 * replaced with the generated employee ID. Employees that fail validation are
+	 * skipped and reported, the rest of the batch is still created.
+	 */
+	@Override
+	public List<EmployeeBatchResult> createAll(List<Employee> employees)
+	{
+		log.debug("Creating batch of {} employees", employees.size());
+
+		// One lookup for every ID the batch mentions
+		Set<String> referencedIds = referencedIds(employees);
+		Set<String> existingIds = new HashSet<>();
+		if (!referencedIds.isEmpty())
+		{
+			employeeRepository.findAllById(referencedIds).forEach(found -> existingIds.add(found.getEmployeeId()));
+		}
+
+		List<Employee> validEmployees = new ArrayList<>(employees.size());
+		List<EmployeeBatchResult> results = prepareBatch(employees, existingIds, validEmployees);
+
+		if (!validEmployees.isEmpty())
+		{
+			employeeRepository.insert(validEmployees);
+		}
+
+		for (Employee employee : validEmployees)
+		{
+			employeeCache.invalidate(employee.getEmployeeId());
+			updateManagerIndex(employee.getEmployeeId(), null, employee.getDirectReports());
+			if (orgGraphIndex != null)
+			{
+				orgGraphIndex.setDirectReports(employee.getEmployeeId(), employee.getDirectReports());
+			}
+		}
+
+		log.debug("Created {} of {} employees in batch", validEmployees.size(), employees.size());
+		return results;
+	}
+
+	/**
+	 * @return Every employee ID and direct report ID mentioned in the batch
+	 */
+	static Set<String> referencedIds(List<Employee> employees)
+	{
+		Set<String> referencedIds = new HashSet<>();
+		for (Employee employee : employees)
+		{
+			if (StringUtils.isNotBlank(employee.getEmployeeId()))
+			{
+				referencedIds.add(employee.getEmployeeId());
+			}
+			if (CollectionUtils.isNotEmpty(employee.getDirectReports()))
+			{
+				employee.getDirectReports().stream().map(Employee::getEmployeeId).filter(StringUtils::isNotBlank)
+						.forEach(referencedIds::add);
+			}
+		}
+		return referencedIds;
+	}
+
+	/**
+	 * Validates every employee in the batch against the employee IDs already in
+	 * the store and assigns the valid ones their generated employee IDs.
+	 * 
+	 * @param employees      - The batch, in the order it was sent
+	 * @param existingIds    - The IDs mentioned in the batch that are in the store
+	 * @param validEmployees - Receives the employees to insert
+	 * @return One result per employee in the batch
+	 */
+	static List<EmployeeBatchResult> prepareBatch(List<Employee> employees, Set<String> existingIds,
+			List<Employee> validEmployees)
+	{
+		// Employee IDs sent in the batch mapped to the generated employee IDs
+		Map<String, String> batchIds = new HashMap<>();
+		List<EmployeeBatchResult> results = new ArrayList<>(employees.size());
+
+		for (int index = 0; index < employees.size(); index++)
+		{
+			Employee employee = employees.get(index);
+			EmployeeBatchResult result = new EmployeeBatchResult();
+			result.setIndex(index);
+			results.add(result);
+
+			String batchId = employee.getEmployeeId();
+			if (StringUtils.isNotBlank(batchId) && (existingIds.contains(batchId) || batchIds.containsKey(batchId)))
+			{
+				result.setMessage(EMPLOYEE_ID_EXISTS.format(batchId));
+				continue;
+			}
+
+			List<String> missingIds = new ArrayList<>();
+			if (CollectionUtils.isNotEmpty(employee.getDirectReports()))
+			{
+				for (Employee directReport : employee.getDirectReports())
+				{
+					String directReportId = directReport.getEmployeeId();
+					if (batchIds.containsKey(directReportId))
+					{
+						directReport.setEmployeeId(batchIds.get(directReportId));
+					}
+					else if (!existingIds.contains(directReportId))
+					{
+						missingIds.add(directReportId);
+					}
+				}
+			}
+			if (!missingIds.isEmpty())
+			{
+				result.setMessage(DIRECT_REPORTS_NOT_FOUND.format(missingIds, employee.getFirstName(),
+						employee.getLastName()));
+				continue;
+			}
+
+			employee.setEmployeeId(UUID.randomUUID().toString());
+			employee.setDirectReports(references(employee.getDirectReports()));
+			employee.setManagerId(null);
+			employee.setVersion(null);
+			if (StringUtils.isNotBlank(batchId))
+			{
+				batchIds.put(batchId, employee.getEmployeeId());
+			}
+			validEmployees.add(employee);
+
+			result.setEmployeeId(employee.getEmployeeId());
+			result.setCreated(true);
+		}
+		return results;
+	}
+
+	@Override
+	public Employee read(String id)
+	{
+		log.debug("Creating employee with id [{}]", id);
+
+		// If the employee does not exists, this is ok, we want a null object
+		return employeeCache.get(id, this::findWithCompensation);
+	}
+
+	/**
+	 * Reads the employee, replacing the direct report references with the whole
+	 * direct report employees when directReports is expanded. The direct reports
+	 * are fetched with one findAllById and returned on a copy, as the cached
+	 * employee is shared.
+	 * 
+	 * @param expand - Fields to expand, only directReports may be expanded
+	 * @throws InvalidFieldException If any of the fields can not be expanded
+	 */
+	@Override
+	public Employee read(String id, List<String> expand) throws InvalidFieldException
+	{
+		validateExpand(expand);
+
+		Employee employee = read(id);
+		if (employee == null || CollectionUtils.isEmpty(expand) || CollectionUtils.isEmpty(employee.getDirectReports()))
+		{
+			return employee;
+		}
+
+		List<String> directReportIds = employee.getDirectReports().stream().map(Employee::getEmployeeId)
+				.collect(Collectors.toList());
+		return withDirectReports(employee, employeeRepository.findAllById(directReportIds));
+	}
+
+	/**
+	 * Checks that every field may be expanded when reading an employee.
+	 * 
+	 * @throws InvalidFieldException If any of the fields can not be expanded
+	 */
+	static void validateExpand(List<String> expand) throws InvalidFieldException
+	{
+		if (CollectionUtils.isNotEmpty(expand))
+		{
+			List<String> invalidFields = expand.stream().filter(field -> !EXPAND_FIELDS.contains(field))
+					.collect(Collectors.toList());
+			if (!invalidFields.isEmpty())
+			{
+				throw new InvalidFieldException(INVALID_EXPAND.format(invalidFields, EXPAND_FIELDS));
+			}
+		}
+	}
+
+	/**
+	 * @param employee      - Employee with its direct reports as references
+	 * @param directReports - The direct report employees, in any order
+	 * @return A copy of the employee with each reference replaced by its direct
+	 *         report, in the original order. References to employees that were
+	 *         not found are kept
+	 */
+	static Employee withDirectReports(Employee employee, Iterable<Employee> directReports)
+	{
+		Map<String, Employee> found = new HashMap<>();
+		directReports.forEach(directReport -> found.put(directReport.getEmployeeId(), directReport));
+
+		Employee expanded = new Employee();
+		expanded.setEmployeeId(employee.getEmployeeId());
+		expanded.setFirstName(employee.getFirstName());
+		expanded.setLastName(employee.getLastName());
+		expanded.setPosition(employee.getPosition());
+		expanded.setDepartment(employee.getDepartment());
+		expanded.setManagerId(employee.getManagerId());
+		expanded.setVersion(employee.getVersion());
+		expanded.setCompensation(employee.getCompensation());
+		expanded.setDirectReports(employee.getDirectReports().stream()
+				.map(reference -> found.getOrDefault(reference.getEmployeeId(), reference))
+				.collect(Collectors.toList()));
+		return expanded;
+	}
+
+	/**
+	 * Direct reports are stored as employee IDs, so anything else sent with them,
+	 * such as a stale copy of the report, is dropped rather than echoed back.
+	 * 
+	 * @return The direct reports as references holding only the employee ID, or
+	 *         null if there are none
+	 */
+	static List<Employee> references(List<Employee> directReports)
+	{
+		if (directReports == null)
+		{
+			return null;
+		}
+		return directReports.stream().filter(directReport -> directReport != null)
+				.map(directReport -> Employee.reference(directReport.getEmployeeId()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Lists employees in employee ID order a page at a time, returning only the
+	 * requested fields. One more employee than the page size is fetched to tell
+	 * whether there is a next page.
+	 */
+	@Override
+	public EmployeePage list(String after, Integer limit, List<String> fields) throws InvalidFieldException
+	{
+		log.debug("Listing employees after [{}] with limit [{}] and fields {}", after, limit, fields);
+
+		validateFields(fields);
+
+		int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+		List<Employee> employees = employeeRepository.findPage(after, pageSize + 1, fields);
+
+		EmployeePage page = new EmployeePage();
+		if (employees.size() > pageSize)
+		{
+			employees = employees.subList(0, pageSize);
+			page.setNextCursor(employees.get(pageSize - 1).getEmployeeId());
+		}
+		page.setEmployees(employees);
+
+		return page;
+	}
+
+	/**
+	 * Checks that every field may be selected when listing employees.
+	 * 
+	 * @throws InvalidFieldException If any of the fields can not be selected
+	 */
+	static void validateFields(List<String> fields) throws InvalidFieldException
+	{
+		if (CollectionUtils.isNotEmpty(fields))
+		{
+			List<String> invalidFields = fields.stream().filter(field -> !PAGE_FIELDS.contains(field))
+					.collect(Collectors.toList());
+			if (!invalidFields.isEmpty())
+			{
+				throw new InvalidFieldException(INVALID_FIELDS.format(invalidFields, PAGE_FIELDS));
+			}
+		}
+	}
+
+	/**
+	 * Streams every employee matching the filters straight from the store,
+	 * bypassing the cache. The caller must close the stream.
+	 */
+	@Override
+	public Stream<Employee> streamAll(String department, String position)
+	{
+		log.debug("Streaming employees with department [{}] and position [{}]", department, position);
+
+		return employeeRepository.streamAll(department, position);
+	}
+
+	/**
+	 * Saves the employee only if it is still at the version it was read at. An
+	 * update of an existing employee without a version is refused, so no write
+	 * can replace changes it never saw.
+	 */
+	@Override
+	public Employee update(String id, Employee employee) throws EmployeeIdAlreadyExistsException,
+			EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionConflictException,
+			EmployeeVersionRequiredException
+	{
+		log.debug("Updating employee [{}]", employee);
+
+		validateEmployeeId(employee.getEmployeeId());
+
+		// The new employeeID must not exists as employeeIDs must be unique. If there is
+		// an employee already
+		// with that employeeID we can not change to that employeeID.
+		Employee existingEmployee = null;
+		try
+		{
+			existingEmployee = validateEmployeeId(id);
+			if (!StringUtils.equalsAnyIgnoreCase(id, employee.getEmployeeId()) && existingEmployee != null)
+			{
+				throw new EmployeeIdAlreadyExistsException(NEW_ID_EXISTS.format(employee.getEmployeeId(), id));
+			}
+		}
+		catch (EmployeeDoesNotExistsException dne)
+		{
+			// Safely ignore as we don't want the employee to exists
+		}
+
+		if (existingEmployee != null && employee.getVersion() == null)
+		{
+			throw new EmployeeVersionRequiredException(VERSION_REQUIRED.format(id));
+		}
+
+		if (existingEmployee != null && !employee.getVersion().equals(existingEmployee.getVersion()))
+		{
+			// The cached copy may be behind the version being saved, what is carried over is read from the store
+			employeeCache.invalidate(id);
+			existingEmployee = read(id);
+		}
+
+		employee.setEmployeeId(id);
+		employee.setDirectReports(references(employee.getDirectReports()));
+		// The manager is set by whoever lists the employee as a report, never by the employee itself,
+		// and the latest compensation only by adding compensation
+		employee.setManagerId(existingEmployee == null ? null : existingEmployee.getManagerId());
+		employee.setLatestCompensation(existingEmployee == null ? null : existingEmployee.getLatestCompensation());
+		if (existingEmployee == null)
+		{
+			employee.setVersion(null);
+		}
+
+		Employee savedEmployee;
+		try
+		{
+			savedEmployee = employeeRepository.save(employee);
+		}
+		catch (OptimisticLockingFailureException olfe)
+		{
+			employeeCache.invalidate(id);
+			throw new EmployeeVersionConflictException(VERSION_CONFLICT.format(id));
+		}
+		employeeCache.invalidate(id);
+		updateManagerIndex(id, existingEmployee == null ? null : existingEmployee.getDirectReports(),
+				employee.getDirectReports());
+
+		if (orgGraphIndex != null)
+		{
+			orgGraphIndex.setDirectReports(id, employee.getDirectReports());
+		}
+
+		return savedEmployee;
+	}
+
+	/**
+	 * Keeps the managerId of the manager's direct reports in step with its direct
+	 * reports. Reports that were dropped are unassigned, unless they have been
+	 * given another manager since, and reports that were added are assigned. Both
+	 * are evicted from the cache.
+	 * 
+	 * @param previousReports - The direct reports before the write, null for a
+	 *                        new employee
+	 * @param currentReports  - The direct reports now stored
+	 */
+	private void updateManagerIndex(String managerId, List<Employee> previousReports, List<Employee> currentReports)
+	{
+		Set<String> removed = reportsOnlyIn(previousReports, currentReports);
+		if (!removed.isEmpty())
+		{
+			employeeRepository.unassignManager(managerId, removed);
+			removed.forEach(employeeCache::invalidate);
+		}
+
+		Set<String> added = reportsOnlyIn(currentReports, previousReports);
+		if (!added.isEmpty())
+		{
+			employeeRepository.assignManager(managerId, added);
+			added.forEach(employeeCache::invalidate);
+		}
+	}
+
+	/**
+	 * @return The employee IDs in the first direct reports that are not in the
+	 *         second, either of which may be null
+	 */
+	static Set<String> reportsOnlyIn(List<Employee> directReports, List<Employee> otherDirectReports)
+	{
+		Set<String> employeeIds = new LinkedHashSet<>();
+		if (directReports != null)
+		{
+			directReports.stream().map(Employee::getEmployeeId).filter(StringUtils::isNotBlank).forEach(employeeIds::add);
+		}
+		if (otherDirectReports != null && !employeeIds.isEmpty())
+		{
+			otherDirectReports.stream().map(Employee::getEmployeeId).forEach(employeeIds::remove);
+		}
+		return employeeIds;
+	}
+
+	/**
+	 * Walks up from the employee to the top of the org chart by managerId, one
+	 * cached read per level. A manager that is not found ends the chain, and so
+	 * does an employee already in it, for a cycle in the data.
+	 * 
+	 * @return The managers above the employee, its own manager first
+	 * @throws ReportingLimitExceededException If the chain is longer than
+	 *                                         reporting.max-depth
+	 */
+	@Override
+	public List<Employee> findChainOfCommand(String id)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException
+	{
+		Employee employee = validateEmployeeId(id);
+
+		ReportingBudget budget = reportingBudget(id);
+		Set<String> visited = new HashSet<>();
+		visited.add(id);
+
+		List<Employee> chain = new ArrayList<>();
+		String managerId = employee.getManagerId();
+		while (managerId != null && visited.add(managerId))
+		{
+			budget.addLevel(1);
+			Employee manager = read(managerId);
+			if (manager == null)
+			{
+				break;
+			}
+			chain.add(manager);
+			managerId = manager.getManagerId();
+		}
+		return chain;
+	}
+
+	/**
+	 * Fetches the employees underneath the employee one level per query, reading
+	 * only the fields shown in the tree, like the shared walk of
+	 * {@link #findReportingStructures}. Employees already fetched are not fetched
+	 * again, so a cycle ends the walk. Each level is checked against the limits
+	 * before it is fetched, so a tree over them fails before any of it is written.
+	 * 
+	 * @param maxDepth - Levels of reports to fetch, 1 being only the direct
+	 *                 reports and 0 only the employee. Capped at
+	 *                 reporting.max-depth, which is also the default
+	 * @throws ReportingLimitExceededException If the next level would take the
+	 *                                         tree past reporting.max-nodes
+	 *                                         reports
+	 */
+	@Override
+	public ReportingTree findReportingTree(String id, Integer maxDepth)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException
+	{
+		validateEmployeeId(id);
+		int levels = treeLevels(maxDepth, reportingMaxDepth);
+
+		ReportingTree tree = new ReportingTree();
+		tree.setEmployeeId(id);
+		ReportingBudget budget = reportingBudget(id);
+		Set<String> visited = new HashSet<>();
+		visited.add(id);
+
+		List<String> level = List.of(id);
+		while (!level.isEmpty())
+		{
+			List<String> nextLevel = new ArrayList<>();
+			for (ReportingTree.Node employee : employeeRepository.findTreeNodes(level))
+			{
+				tree.getEmployees().put(employee.getEmployeeId(), employee);
+				if (budget.getDepth() < levels)
+				{
+					addUnvisitedReports(employee.getDirectReports(), visited, nextLevel);
+				}
+			}
+			if (!nextLevel.isEmpty())
+			{
+				budget.addLevel(nextLevel.size());
+			}
+			level = nextLevel;
+		}
+		return tree;
+	}
+
+	/**
+	 * @return The levels of a reporting tree to fetch for the requested depth
+	 */
+	static int treeLevels(Integer maxDepth, int reportingMaxDepth)
+	{
+		return maxDepth == null ? reportingMaxDepth : Math.max(0, Math.min(maxDepth, reportingMaxDepth));
+	}
+
+	/**
+	 * Counts the employees reporting up to the employee. Every engine fails once
+	 * the reports go deeper than reporting.max-depth levels or number more than
+	 * reporting.max-nodes. The index engine answers from counts and depths it
+	 * already holds and walks nothing.
+	 * 
+	 * @throws ReportingLimitExceededException If a traversal passes the limits
+	 */
+	@Override
+	public ReportingStructure findReportingStructure(String id) throws ReportingLimitExceededException
+	{
+		ReportingStructure reportingStructure = new ReportingStructure();
+
+		Employee manager;
+		// Employee ID does not exists, can return now.
+		try
+		{
+			manager = validateEmployeeId(id);
+		}
+		catch (EmployeeDoesNotExistsException | EmployeeIdNotSpecifiedException badIdException)
+		{
+			return reportingStructure;
+		}
+
+		reportingStructure.setEmployee(manager);
+
+		// We have an employee, but is not a manager, we can return now
+		if (CollectionUtils.isEmpty(manager.getDirectReports()))
+		{
+			reportingStructure.setNumberOfReports(0);
+			return reportingStructure;
+		}
+
+		if (orgGraphIndex != null)
+		{
+			reportingStructure.setNumberOfReports(countIndexedReports(id));
+			reportingNodes.get(ReportingEngine.INDEX).record(reportingStructure.getNumberOfReports());
+			reportingRoundTrips.get(ReportingEngine.INDEX).record(0);
+		}
+		else if (reportingEngine == ReportingEngine.GRAPH_LOOKUP)
+		{
+			// One level more than allowed, to tell a chart that ends at the limit from one that goes past it
+			ReportCount reportCount = employeeRepository.countAllReports(id, reportingMaxDepth + 1);
+			reportingBudget(id).check(reportCount.getDepth(), reportCount.getNumberOfReports());
+			reportingStructure.setNumberOfReports((int) reportCount.getNumberOfReports());
+			reportingDepth.get(ReportingEngine.GRAPH_LOOKUP).record(reportCount.getDepth());
+			reportingNodes.get(ReportingEngine.GRAPH_LOOKUP).record(reportingStructure.getNumberOfReports());
+			reportingRoundTrips.get(ReportingEngine.GRAPH_LOOKUP).record(1);
+		}
+		else
+		{
+			reportingStructure.setNumberOfReports(countReports(manager));
+		}
+		return reportingStructure;
+
+	}
+
+	/**
+	 * Answers a count from the index, held to the same limits as a traversal.
+	 */
+	private int countIndexedReports(String id) throws ReportingLimitExceededException
+	{
+		ReportCount reportCount = orgGraphIndex.countReports(id);
+		reportingBudget(id).check(reportCount.getDepth(), reportCount.getNumberOfReports());
+		return (int) reportCount.getNumberOfReports();
+	}
+
+	/**
+	 * Counts the reports of every employee in the list. The employees are read
+	 * with one query, and their compensation with one more, rather than one read
+	 * each. With the index engine each count is answered from memory. Otherwise
+	 * the org chart underneath all of them is walked once, a level per query, and
+	 * the counts are worked out from it by a ReportCounter, so employees shared
+	 * between the managers are fetched and counted once.
+	 * 
+	 * @param ids - The employees to count the reports for
+	 * @return A reporting structure per employee ID, in the order they were
+	 *         sent. Empty for an ID that is not found
+	 * @throws ReportingLimitExceededException If the reports of any of the
+	 *                                         employees go deeper than
+	 *                                         reporting.max-depth or number more
+	 *                                         than reporting.max-nodes
+	 */
+	@Override
+	public List<ReportingStructure> findReportingStructures(List<String> ids) throws ReportingLimitExceededException
+	{
+		log.debug("Finding reporting structures of {} employees", ids.size());
+
+		Set<String> managerIds = ids.stream().filter(StringUtils::isNotBlank)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		Map<String, Employee> found = findAllWithCompensation(managerIds);
+		Map<String, Employee> managers = new LinkedHashMap<>();
+		for (String id : managerIds)
+		{
+			managers.put(id, found.get(id));
+		}
+
+		ReportCounter reportCounter = orgGraphIndex == null ? walkOrgChart(managers.values()) : null;
+
+		List<ReportingStructure> reportingStructures = new ArrayList<>(ids.size());
+		for (String id : ids)
+		{
+			ReportingStructure reportingStructure = new ReportingStructure();
+			Employee manager = id == null ? null : managers.get(id);
+			if (manager != null)
+			{
+				reportingStructure.setEmployee(manager);
+				if (CollectionUtils.isEmpty(manager.getDirectReports()))
+				{
+					reportingStructure.setNumberOfReports(0);
+				}
+				else if (reportCounter == null)
+				{
+					reportingStructure.setNumberOfReports(countIndexedReports(id));
+				}
+				else
+				{
+					reportingStructure.setNumberOfReports(
+							(int) reportCounter.count(id, reportingBudget(id)).getNumberOfReports());
+				}
+			}
+			reportingStructures.add(reportingStructure);
+		}
+		return reportingStructures;
+	}
+
+	/**
+	 * Fetches the org chart underneath the managers with one query per level,
+	 * each employee once, reading only its direct reports. Stops after
+	 * reporting.max-depth levels, the reports of the last level are still known
+	 * so a manager with reports deeper than that fails its count. Each level is
+	 * checked against reporting.max-nodes before it is fetched, counting every
+	 * employee reached from any of the managers.
+	 * 
+	 * @param managers - The managers already read, null for an ID not found
+	 * @throws ReportingLimitExceededException If the next level would take the
+	 *                                         walk past reporting.max-nodes
+	 */
+	private ReportCounter walkOrgChart(Collection<Employee> managers) throws ReportingLimitExceededException
+	{
+		ReportCounter reportCounter = new ReportCounter();
+		Set<String> visited = new HashSet<>();
+		List<String> level = new ArrayList<>();
+		for (Employee manager : managers)
+		{
+			if (manager != null)
+			{
+				visited.add(manager.getEmployeeId());
+				reportCounter.add(manager.getEmployeeId(), directReportIds(manager));
+			}
+		}
+		for (Employee manager : managers)
+		{
+			if (manager != null)
+			{
+				addUnvisitedReports(manager, visited, level);
+			}
+		}
+
+		int depth = 0;
+		int fetched = 0;
+		long reached = 0;
+		while (!level.isEmpty() && depth < reportingMaxDepth)
+		{
+			reached += level.size();
+			checkSharedNodes(managers, reached, reportingMaxNodes);
+			depth++;
+			List<String> nextLevel = new ArrayList<>();
+			for (ReportingTree.Node employee : employeeRepository.findTreeNodes(level))
+			{
+				fetched++;
+				reportCounter.add(employee.getEmployeeId(), employee.getDirectReports());
+				addUnvisitedReports(employee.getDirectReports(), visited, nextLevel);
+			}
+			level = nextLevel;
+		}
+
+		log.debug("Walked org chart underneath {} employees over {} levels, fetching {} documents", managers.size(),
+				depth, fetched);
+		return reportCounter;
+	}
+
+	/**
+	 * @param reached - The employees reached from the managers so far, counting
+	 *                the level about to be fetched
+	 * @param maxNodes - reporting.max-nodes
+	 * @throws ReportingLimitExceededException If that is more than
+	 *                                         reporting.max-nodes
+	 */
+	static void checkSharedNodes(Collection<Employee> managers, long reached, int maxNodes)
+			throws ReportingLimitExceededException
+	{
+		if (reached > maxNodes)
+		{
+			List<String> ids = managers.stream().filter(manager -> manager != null).map(Employee::getEmployeeId)
+					.collect(Collectors.toList());
+			throw new ReportingLimitExceededException(ReportingBudget.TOO_MANY_SHARED_REPORTS.format(ids,
+					maxNodes));
+		}
+	}
+
+	static List<String> directReportIds(Employee employee)
+	{
+		if (employee.getDirectReports() == null)
+		{
+			return null;
+		}
+		return employee.getDirectReports().stream().map(Employee::getEmployeeId).collect(Collectors.toList());
+	}
+
+	/**
+	 * Counts every distinct employee underneath the manager. The org chart is
+	 * walked one level at a time, fetching the whole level with a single
+	 * findAllById call instead of one read per employee. Employee IDs that have
+	 * already been seen are skipped, so a cycle in the data ends the walk instead
+	 * of looping forever. Each level is checked against the reporting budget
+	 * before it is fetched.
+	 * 
+	 * @param manager - The employee to count the reports for
+	 * @return The number of distinct employees reporting up to the manager
+	 * @throws ReportingLimitExceededException If the reports go deeper than
+	 *                                         reporting.max-depth or number more
+	 *                                         than reporting.max-nodes
+	 */
+	protected int countReports(Employee manager) throws ReportingLimitExceededException
+	{
+		Set<String> visited = new HashSet<>();
+		visited.add(manager.getEmployeeId());
+
+		List<String> frontier = new ArrayList<>();
+		addUnvisitedReports(manager, visited, frontier);
+
+		ReportingBudget budget = reportingBudget(manager.getEmployeeId());
+		int fetched = 0;
+
+		while (!frontier.isEmpty())
+		{
+			budget.addLevel(frontier.size());
+
+			List<Employee> level = employeeRepository.findAllById(frontier);
+			fetched += level.size();
+
+			List<String> nextFrontier = new ArrayList<>();
+			for (Employee employee : level)
+			{
+				addUnvisitedReports(employee, visited, nextFrontier);
+			}
+			frontier = nextFrontier;
+		}
+
+		// One findAllById per level
+		reportingDepth.get(ReportingEngine.BFS).record(budget.getDepth());
+		reportingNodes.get(ReportingEngine.BFS).record(fetched);
+		reportingRoundTrips.get(ReportingEngine.BFS).record(budget.getDepth());
+		log.debug("Counted {} reports for {} over {} levels, fetching {} documents", budget.getNodes(),
+				manager.getEmployeeId(), budget.getDepth(), fetched);
+
+		return budget.getNodes();
+	}
+
+	ReportingBudget reportingBudget(String employeeId)
+	{
+		return new ReportingBudget(employeeId, reportingMaxDepth, reportingMaxNodes);
+	}
+
+	static void addUnvisitedReports(Employee employee, Set<String> visited, List<String> frontier)
+	{
+		if (CollectionUtils.isEmpty(employee.getDirectReports()))
+		{
+			return;
+		}
+
+		for (Employee directReport : employee.getDirectReports())
+		{
+			if (directReport.getEmployeeId() != null && visited.add(directReport.getEmployeeId()))
+			{
+				frontier.add(directReport.getEmployeeId());
+			}
+		}
+	}
+
+	static void addUnvisitedReports(List<String> directReportIds, Set<String> visited, List<String> frontier)
+	{
+		if (directReportIds == null)
+		{
+			return;
+		}
+
+		for (String directReportId : directReportIds)
+		{
+			if (directReportId != null && visited.add(directReportId))
+			{
+				frontier.add(directReportId);
+			}
+		}
+	}
+
+	/**
+	 * @return Total org chart levels walked by reporting structure requests
+	 */
+	public long getReportingLevelsVisited()
+	{
+		return (long) reportingDepth.get(ReportingEngine.BFS).totalAmount();
+	}
+
+	/**
+	 * @return Total employee documents fetched by reporting structure requests
+	 */
+	public long getReportingDocumentsFetched()
+	{
+		return (long) reportingNodes.get(ReportingEngine.BFS).totalAmount();
+	}
+
+	/**
+	 * Reporting structure traversals are recorded per engine as the depth walked,
+	 * the employees visited and the Mongo round trips made. The summaries are
+	 * registered once here rather than looked up on every traversal.
+	 */
+	@PostConstruct
+	void registerReportingSummaries()
+	{
+		for (ReportingEngine engine : ReportingEngine.values())
+		{
+			String tag = engine.name().toLowerCase().replace('_', '-');
+			reportingDepth.put(engine, meterRegistry.summary("reporting.structure.depth", "engine", tag));
+			reportingNodes.put(engine, meterRegistry.summary("reporting.structure.nodes", "engine", tag));
+			reportingRoundTrips.put(engine, meterRegistry.summary("reporting.structure.round.trips", "engine", tag));
+		}
+	}
+
+	/**
+	 * Adds compensation after the latest compensation of the employee, which is
+	 * kept on the employee. The employee is claimed first, setting its latest
+	 * compensation and moving it on from the version it was read at, and the
+	 * record is only inserted once the claim succeeds. If another write to the
+	 * employee came first nothing has been written, and the add is checked again
+	 * against the employee as it is now, so two adds can never both pass the date
+	 * check against the same latest compensation. If the insert then fails the
+	 * claim is undone, putting back the latest compensation the employee had,
+	 * unless the employee has been written since.
+	 * 
+	 * @throws EmployeeVersionConflictException if every one of
+	 *                                          compensation.add.max-attempts
+	 *                                          attempts lost to another write
+	 */
+	@Override
+	public Employee addCompensation(String id, Compensation compensation) throws EmployeeIdNotSpecifiedException,
+			CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException,
+			EmployeeVersionConflictException
+	{
+		for (int attempt = 1; attempt <= compensationMaxAttempts; attempt++)
+		{
+			Employee employee = validateEmployeeId(id);
+
+			Compensation latest = latestCompensation(employee);
+			if (latest != null && compensation.getEffectiveDate().compareTo(latest.getEffectiveDate()) <= 0)
+			{
+				throw compensationInPast(id, latest, compensation);
+			}
+
+			if (!employeeRepository.claimLatestCompensation(id, employee.getVersion(), compensation))
+			{
+				log.debug("Employee [{}] changed while adding compensation, attempt {} of {}", id, attempt,
+						compensationMaxAttempts);
+				employeeCache.invalidate(id);
+				continue;
+			}
+
+			try
+			{
+				compensationRepository.insert(CompensationRecord.of(id, compensation));
+			}
+			catch (DuplicateKeyException dke)
+			{
+				// The date is already stored, so the latest record is reported and kept on the employee again
+				Compensation stored = compensationRepository.findFirstByEmployeeIdOrderByEffectiveDateDesc(id)
+						.toCompensation();
+				employeeRepository.claimLatestCompensation(id, claimedVersion(employee), stored);
+				throw compensationInPast(id, stored, compensation);
+			}
+			catch (RuntimeException e)
+			{
+				// Nothing was stored, so the compensation must not stay on the employee as its latest
+				try
+				{
+					employeeRepository.claimLatestCompensation(id, claimedVersion(employee),
+							employee.getLatestCompensation());
+				}
+				catch (RuntimeException restoreException)
+				{
+					e.addSuppressed(restoreException);
+				}
+				throw e;
+			}
+			finally
+			{
+				employeeCache.invalidate(id);
+			}
+			return read(id);
+		}
+
+		throw new EmployeeVersionConflictException(VERSION_CONFLICT.format(id));
+	}
+
+	/**
+	 * @return The version the employee was moved on to by claiming it at its
+	 *         version as read, a missing version being incremented from 0
+	 */
+	static Long claimedVersion(Employee employee)
+	{
+		return employee.getVersion() == null ? 1L : employee.getVersion() + 1;
+	}
+
+	/**
+	 * @return The latest compensation kept on the employee. For an employee
+	 *         given none since it has been kept, the latest record, read straight
+	 *         off the end of the employee/effective date index
+	 */
+	private Compensation latestCompensation(Employee employee)
+	{
+		if (employee.getLatestCompensation() != null)
+		{
+			return employee.getLatestCompensation();
+		}
+		CompensationRecord latest = compensationRepository
+				.findFirstByEmployeeIdOrderByEffectiveDateDesc(employee.getEmployeeId());
+		return latest == null ? null : latest.toCompensation();
+	}
+
+	/**
+	 * Returns the compensation history held with the cached employee. The history
+	 * is read in effective date order off the employee/effective date index and
+	 * compensation can only be added after the latest date, so it never needs to
+	 * be sorted again.
+	 */
+	@Override
+	public List<Compensation> findCompensation(Employee employee)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+	{
+		return compensationHistory(validateEmployeeId(employee.getEmployeeId()));
+	}
+
+	/**
+	 * Finds the compensation in effect on the date, the latest one effective on
+	 * or before it, with a binary search of the sorted history.
+	 * 
+	 * @return The compensation in effect, or null if the employee had no
+	 *         compensation yet on the date
+	 */
+	@Override
+	public Compensation findCompensationAsOf(String id, LocalDate date)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+	{
+		return compensationAsOf(compensationHistory(validateEmployeeId(id)), date);
+	}
+
+	/**
+	 * Finds the compensation changes effective between the dates, inclusive. Both
+	 * ends of the range are found with a binary search of the sorted history.
+	 * 
+	 * @param from - First effective date, or from the start of the history if null
+	 * @param to   - Last effective date, or to the end of the history if null
+	 */
+	@Override
+	public List<Compensation> findCompensationBetween(String id, LocalDate from, LocalDate to)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+	{
+		return compensationBetween(compensationHistory(validateEmployeeId(id)), from, to);
+	}
+
+	/**
+	 * Finds the compensation in effect for every employee with one query, rather
+	 * than reading each employee's history. Employee IDs that are not found or
+	 * have no compensation in effect are left out of the result.
+	 * 
+	 * @param ids  - The employees to find the compensation of
+	 * @param asOf - Date the compensation is in effect on, or the latest
+	 *             compensation if null
+	 * @return The compensation in effect by employee ID
+	 */
+	@Override
+	public Map<String, Compensation> findLatestCompensation(Collection<String> ids, LocalDate asOf)
+	{
+		log.debug("Finding compensation as of [{}] for {} employees", asOf, ids.size());
+
+		Map<String, Compensation> latest = new HashMap<>();
+		if (CollectionUtils.isEmpty(ids))
+		{
+			return latest;
+		}
+
+		for (CompensationRecord record : compensationRepository.findLatest(new HashSet<>(ids), asOf))
+		{
+			latest.put(record.getEmployeeId(), record.toCompensation());
+		}
+		return latest;
+	}
+
+	/**
+	 * Reads the employee along with its compensation history, used to fill the
+	 * cache. The history is shared by every reader of the cached employee, so it
+	 * is made unmodifiable.
+	 */
+	/**
+	 * Reads the employees and their compensation with one query each, going
+	 * straight to the store rather than through the cache.
+	 * 
+	 * @return The employees found, by employee ID
+	 */
+	private Map<String, Employee> findAllWithCompensation(Collection<String> ids)
+	{
+		Map<String, Employee> employees = new HashMap<>();
+		employeeRepository.findAllById(ids).forEach(employee -> employees.put(employee.getEmployeeId(), employee));
+		if (!employees.isEmpty())
+		{
+			setCompensation(employees, compensationRepository.findByEmployeeIdInOrderByEffectiveDateAsc(employees.keySet()));
+		}
+		return employees;
+	}
+
+	/**
+	 * Sets the compensation history of each employee from the records of all of
+	 * them, in effective date order. Employees without records are left with none.
+	 */
+	static void setCompensation(Map<String, Employee> employees, Iterable<CompensationRecord> records)
+	{
+		Map<String, List<Compensation>> histories = new HashMap<>();
+		for (CompensationRecord record : records)
+		{
+			histories.computeIfAbsent(record.getEmployeeId(), employeeId -> new ArrayList<>()).add(record.toCompensation());
+		}
+		histories.forEach((employeeId, history) -> employees.get(employeeId)
+				.setCompensation(Collections.unmodifiableList(history)));
+	}
+
+	private Employee findWithCompensation(String id)
+	{
+		Employee employee = employeeRepository.findByEmployeeId(id);
+		if (employee != null)
+		{
+			List<Compensation> compensationHistory = compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc(id)
+					.stream()
+					.map(CompensationRecord::toCompensation)
+					.collect(Collectors.toUnmodifiableList());
+			employee.setCompensation(compensationHistory.isEmpty() ? null : compensationHistory);
+		}
+		return employee;
+	}
+
+	/**
+	 * @param history - Compensation ordered by effective date ascending
+	 * @return The latest compensation effective on or before the date, or null
+	 */
+	static Compensation compensationAsOf(List<Compensation> history, LocalDate date)
+	{
+		int index = countEffectiveBy(history, date);
+		return index == 0 ? null : history.get(index - 1);
+	}
+
+	/**
+	 * @param history - Compensation ordered by effective date ascending
+	 * @return The compensation effective between the dates, inclusive. Either date
+	 *         may be null to leave that end of the range open
+	 */
+	static List<Compensation> compensationBetween(List<Compensation> history, LocalDate from, LocalDate to)
+	{
+		int start = from == null ? 0 : countEffectiveBy(history, from.minusDays(1));
+		int end = to == null ? history.size() : countEffectiveBy(history, to);
+		return start >= end ? Collections.emptyList() : history.subList(start, end);
+	}
+
+	/**
+	 * @return The compensation of the employee ordered by effective date ascending
+	 */
+	static List<Compensation> compensationHistory(Employee employee)
+	{
+		return employee.getCompensation() == null ? Collections.emptyList() : employee.getCompensation();
+	}
+
+	/**
+	 * Binary search of a history ordered by effective date.
+	 * 
+	 * @return The number of compensation records effective on or before the date
+	 */
+	private static int countEffectiveBy(List<Compensation> history, LocalDate date)
+	{
+		int low = 0;
+		int high = history.size();
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (history.get(middle).getEffectiveDate().isAfter(date))
+			{
+				high = middle;
+			}
+			else
+			{
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	static CompensationCanNotBeInPastException compensationInPast(String id, Compensation latestComp,
+			Compensation requestedComp)
+	{
+		return new CompensationCanNotBeInPastException(COMPENSATION_IN_PAST.format(id, latestComp, requestedComp));
+	}
+
+	/**
+	 * Checks to see if the employeeID is valid and returns the employee.
+	 * 
+	 * @param employeeID - The employeeID for the employee to be found
+	 * @return The employee that is found
+	 * @throws EmployeeIdNotSpecifiedException If the employeeID is blank
+	 * @throws EmployeeDoesNotExistsException  If the employeeID is not found
+	 */
+	protected Employee validateEmployeeId(String employeeId)
+			throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+	{
+		// Validate employee ID
+		if (StringUtils.isBlank(employeeId))
+		{
+			throw employeeIdNotSpecified();
+		}
+
+		Employee employee = null;
+
+		if ((employee = read(employeeId)) == null)
+		{
+			throw employeeNotFound(employeeId);
+		}
+
+		return employee;
+
+	}
+
+	static EmployeeIdNotSpecifiedException employeeIdNotSpecified()
+	{
+		return new EmployeeIdNotSpecifiedException(EMPLOYEE_ID_NOT_SPECIFIED);
+	}
+
+	static EmployeeDoesNotExistsException employeeNotFound(String employeeId)
+	{
+		return new EmployeeDoesNotExistsException(EMPLOYEE_NOT_FOUND.format(employeeId));
+	}
+}
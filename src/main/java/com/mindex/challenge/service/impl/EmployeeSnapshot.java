@@ -0,0 +1,339 @@
+package com.mindex.challenge.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the employee store to a compact binary file and reads it back. The
+ * file is laid out as
+ *
+ * <pre>
+ * header        magic, version, employee count, compensation count, string table offset
+ * employees     int length followed by one employee
+ * compensation  int length followed by one compensation record
+ * string table  every distinct department and position
+ * </pre>
+ *
+ * Departments and positions repeat across most employees, so records refer to
+ * them by their index in the string table and each one is stored and read
+ * once. Reading maps the file into memory rather than copying it through a
+ * stream.
+ */
+@Component
+@Slf4j
+public class EmployeeSnapshot
+{
+	private static final int MAGIC = 0x454D5053;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+
+	private static final int NULL = -1;
+	private static final long NULL_DATE = Long.MIN_VALUE;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private CompensationRepository compensationRepository;
+
+	/**
+	 * Writes every employee and compensation record in the store to the file. The snapshot is written to
+	 * a temporary file next to the target and moved into place once complete, so
+	 * a failed write never leaves a partial snapshot behind.
+	 *
+	 * @param path - File to write the snapshot to
+	 * @return The number of employees written
+	 */
+	public int write(Path path) throws IOException
+	{
+		Path directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+		int count = 0;
+		int compensationCount = 0;
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE);
+				Stream<Employee> employees = employeeRepository.streamAll(null, null);
+				Stream<CompensationRecord> compensation = compensationRepository.streamAllBy())
+		{
+			Map<String, Integer> strings = new HashMap<>();
+			List<String> stringTable = new ArrayList<>();
+
+			ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+			DataOutputStream recordOut = new DataOutputStream(record);
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			channel.position(HEADER_SIZE);
+
+			for (Employee employee : (Iterable<Employee>) employees::iterator)
+			{
+				record.reset();
+				writeEmployee(recordOut, employee, strings, stringTable);
+
+				buffer = writeRecord(channel, buffer, record);
+				count++;
+			}
+
+			for (CompensationRecord comp : (Iterable<CompensationRecord>) compensation::iterator)
+			{
+				record.reset();
+				writeString(recordOut, comp.getEmployeeId());
+				writeCompensation(recordOut, comp.toCompensation());
+
+				buffer = writeRecord(channel, buffer, record);
+				compensationCount++;
+			}
+
+			long stringTableOffset = channel.position() + buffer.position();
+			for (String value : stringTable)
+			{
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				buffer = ensureCapacity(channel, buffer, 4 + bytes.length);
+				buffer.putInt(bytes.length);
+				buffer.put(bytes);
+			}
+			flush(channel, buffer);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(compensationCount).putLong(stringTableOffset).flip();
+			channel.write(header, 0);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		log.info("Wrote snapshot of {} employees and {} compensation records to {}", count, compensationCount, path);
+		return count;
+	}
+
+	/**
+	 * Reads every employee and compensation record in the snapshot.
+	 *
+	 * @param path                 - Snapshot written by {@link #write(Path)}
+	 * @param consumer             - Receives each employee in the order they were
+	 *                             written
+	 * @param compensationConsumer - Receives each compensation record, after
+	 *                             every employee
+	 * @return The number of employees read
+	 */
+	public int read(Path path, Consumer<Employee> consumer, Consumer<CompensationRecord> compensationConsumer)
+			throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+			{
+				throw new IOException("Snapshot " + path + " is too large to map");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC)
+			{
+				throw new IOException(path + " is not an employee snapshot");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION)
+			{
+				throw new IOException("Unsupported snapshot version " + version + " in " + path);
+			}
+			int count = buffer.getInt();
+			int compensationCount = buffer.getInt();
+			int stringTableOffset = (int) buffer.getLong();
+
+			String[] stringTable = readStringTable(buffer.duplicate().position(stringTableOffset));
+
+			for (int i = 0; i < count; i++)
+			{
+				int length = buffer.getInt();
+				ByteBuffer record = buffer.slice(buffer.position(), length);
+				buffer.position(buffer.position() + length);
+				consumer.accept(readEmployee(record, stringTable));
+			}
+
+			for (int i = 0; i < compensationCount; i++)
+			{
+				int length = buffer.getInt();
+				ByteBuffer record = buffer.slice(buffer.position(), length);
+				buffer.position(buffer.position() + length);
+				compensationConsumer.accept(CompensationRecord.of(readString(record), readCompensation(record)));
+			}
+
+			return count;
+		}
+	}
+
+	private static void writeEmployee(DataOutputStream out, Employee employee, Map<String, Integer> strings,
+			List<String> stringTable) throws IOException
+	{
+		writeString(out, employee.getEmployeeId());
+		writeString(out, employee.getFirstName());
+		writeString(out, employee.getLastName());
+		out.writeInt(intern(employee.getPosition(), strings, stringTable));
+		out.writeInt(intern(employee.getDepartment(), strings, stringTable));
+
+		List<Employee> directReports = employee.getDirectReports();
+		out.writeInt(directReports == null ? NULL : directReports.size());
+		if (directReports != null)
+		{
+			for (Employee directReport : directReports)
+			{
+				writeString(out, directReport.getEmployeeId());
+			}
+		}
+	}
+
+	private static void writeCompensation(DataOutputStream out, Compensation comp) throws IOException
+	{
+		writeString(out, comp.getSalary() == null ? null : comp.getSalary().toString());
+		out.writeLong(comp.getEffectiveDate() == null ? NULL_DATE : comp.getEffectiveDate().toEpochDay());
+	}
+
+	private static Employee readEmployee(ByteBuffer record, String[] stringTable)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(readString(record));
+		employee.setFirstName(readString(record));
+		employee.setLastName(readString(record));
+		employee.setPosition(lookup(record.getInt(), stringTable));
+		employee.setDepartment(lookup(record.getInt(), stringTable));
+
+		int directReportCount = record.getInt();
+		if (directReportCount != NULL)
+		{
+			List<Employee> directReports = new ArrayList<>(directReportCount);
+			for (int i = 0; i < directReportCount; i++)
+			{
+				Employee directReport = new Employee();
+				directReport.setEmployeeId(readString(record));
+				directReports.add(directReport);
+			}
+			employee.setDirectReports(directReports);
+		}
+
+		return employee;
+	}
+
+	private static Compensation readCompensation(ByteBuffer record)
+	{
+		Compensation comp = new Compensation();
+		String salary = readString(record);
+		comp.setSalary(salary == null ? null : new BigDecimal(salary));
+		long effectiveDate = record.getLong();
+		comp.setEffectiveDate(effectiveDate == NULL_DATE ? null : LocalDate.ofEpochDay(effectiveDate));
+		return comp;
+	}
+
+	private static String[] readStringTable(ByteBuffer buffer)
+	{
+		List<String> stringTable = new ArrayList<>();
+		while (buffer.hasRemaining())
+		{
+			stringTable.add(readString(buffer));
+		}
+		return stringTable.toArray(new String[0]);
+	}
+
+	private static int intern(String value, Map<String, Integer> strings, List<String> stringTable)
+	{
+		if (value == null)
+		{
+			return NULL;
+		}
+		return strings.computeIfAbsent(value, added -> {
+			stringTable.add(added);
+			return stringTable.size() - 1;
+		});
+	}
+
+	private static String lookup(int index, String[] stringTable)
+	{
+		return index == NULL ? null : stringTable[index];
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		if (value == null)
+		{
+			out.writeInt(NULL);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer)
+	{
+		int length = buffer.getInt();
+		if (length == NULL)
+		{
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static ByteBuffer writeRecord(FileChannel channel, ByteBuffer buffer, ByteArrayOutputStream record)
+			throws IOException
+	{
+		buffer = ensureCapacity(channel, buffer, 4 + record.size());
+		buffer.putInt(record.size());
+		buffer.put(record.toByteArray());
+		return buffer;
+	}
+
+	/**
+	 * Flushes the buffer to the channel when the next write does not fit,
+	 * growing it for a write larger than the whole buffer.
+	 */
+	private static ByteBuffer ensureCapacity(FileChannel channel, ByteBuffer buffer, int needed) throws IOException
+	{
+		if (buffer.remaining() >= needed)
+		{
+			return buffer;
+		}
+		flush(channel, buffer);
+		return buffer.capacity() >= needed ? buffer : ByteBuffer.allocate(needed);
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
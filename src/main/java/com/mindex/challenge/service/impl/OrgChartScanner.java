@@ -0,0 +1,204 @@
+package com.mindex.challenge.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.OrgChartScan;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks the whole org chart for direct reports that are not in the store and
+ * for cycles. Employees are read once off a cursor into an int graph, which is
+ * then walked depth first once, so a scan is linear in the number of employees
+ * and direct reports.
+ */
+@Component
+@Slf4j
+public class OrgChartScanner
+{
+	private static final int[] NO_REPORTS = new int[0];
+
+	// Depth first search states
+	private static final byte UNVISITED = 0;
+	private static final byte ON_PATH = 1;
+	private static final byte DONE = 2;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	public OrgChartScan scan()
+	{
+		long start = System.nanoTime();
+
+		Graph graph = new Graph();
+		try (Stream<Employee> employees = employeeRepository.streamOrgChart())
+		{
+			employees.forEach(graph::add);
+		}
+
+		OrgChartScan scan = scan(graph);
+		scan.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+		if (!scan.getOrphanedReferences().isEmpty() || !scan.getCycles().isEmpty())
+		{
+			log.warn("Org chart scan found {} employees with orphaned direct reports and {} cycles",
+					scan.getOrphanedReferences().size(), scan.getCycles().size());
+		}
+		return scan;
+	}
+
+	/**
+	 * Scans the employees without going to the store.
+	 */
+	static OrgChartScan scan(Iterable<Employee> employees)
+	{
+		Graph graph = new Graph();
+		employees.forEach(graph::add);
+		return scan(graph);
+	}
+
+	private static OrgChartScan scan(Graph graph)
+	{
+		OrgChartScan scan = new OrgChartScan();
+		scan.setEmployees(graph.stored.cardinality());
+		scan.setDirectReports(graph.edges);
+
+		// A report that was never read as an employee is an orphaned reference
+		for (int node = 0; node < graph.nodeCount; node++)
+		{
+			for (int report : graph.reports[node])
+			{
+				if (!graph.stored.get(report))
+				{
+					scan.getOrphanedReferences().computeIfAbsent(graph.ids.get(node), id -> new ArrayList<>())
+							.add(graph.ids.get(report));
+				}
+			}
+		}
+
+		findCycles(graph, scan.getCycles());
+		return scan;
+	}
+
+	/**
+	 * Iterative depth first search. Reaching a node that is still on the current
+	 * path closes a cycle made of the path from that node down.
+	 */
+	private static void findCycles(Graph graph, List<List<String>> cycles)
+	{
+		byte[] state = new byte[graph.nodeCount];
+		int[] path = new int[graph.nodeCount];
+		int[] nextReport = new int[graph.nodeCount];
+		int[] pathIndex = new int[graph.nodeCount];
+
+		for (int root = 0; root < graph.nodeCount; root++)
+		{
+			if (state[root] != UNVISITED)
+			{
+				continue;
+			}
+
+			int depth = 0;
+			path[0] = root;
+			pathIndex[root] = 0;
+			state[root] = ON_PATH;
+
+			while (depth >= 0)
+			{
+				int node = path[depth];
+				int[] reports = graph.reports[node];
+
+				if (nextReport[node] == reports.length)
+				{
+					state[node] = DONE;
+					depth--;
+					continue;
+				}
+
+				int report = reports[nextReport[node]++];
+				if (state[report] == UNVISITED)
+				{
+					state[report] = ON_PATH;
+					path[++depth] = report;
+					pathIndex[report] = depth;
+				}
+				else if (state[report] == ON_PATH)
+				{
+					List<String> cycle = new ArrayList<>(depth - pathIndex[report] + 1);
+					for (int i = pathIndex[report]; i <= depth; i++)
+					{
+						cycle.add(graph.ids.get(path[i]));
+					}
+					cycles.add(cycle);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The org chart as int nodes, every ID seen given one whether it was read as
+	 * an employee or only referenced as a direct report.
+	 */
+	private static class Graph
+	{
+		private final Map<String, Integer> nodes = new HashMap<>();
+		private final List<String> ids = new ArrayList<>();
+		private final BitSet stored = new BitSet();
+		private int[][] reports = new int[16][];
+		private int nodeCount;
+		private long edges;
+
+		void add(Employee employee)
+		{
+			int node = node(employee.getEmployeeId());
+			stored.set(node);
+
+			List<Employee> directReports = employee.getDirectReports();
+			if (directReports == null || directReports.isEmpty())
+			{
+				return;
+			}
+
+			int[] reportNodes = directReports.stream()
+					.map(Employee::getEmployeeId)
+					.filter(id -> id != null)
+					.mapToInt(this::node)
+					.distinct()
+					.toArray();
+			reports[node] = reportNodes;
+			edges += reportNodes.length;
+		}
+
+		private int node(String employeeId)
+		{
+			Integer existing = nodes.get(employeeId);
+			if (existing != null)
+			{
+				return existing;
+			}
+
+			if (nodeCount == reports.length)
+			{
+				reports = Arrays.copyOf(reports, nodeCount * 2);
+			}
+
+			int node = nodeCount++;
+			nodes.put(employeeId, node);
+			ids.add(employeeId);
+			reports[node] = NO_REPORTS;
+			return node;
+		}
+	}
+}
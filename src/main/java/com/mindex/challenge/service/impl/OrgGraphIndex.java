@@ -0,0 +1,376 @@
+package com.mindex.challenge.service.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import com.mindex.challenge.config.MongoBackendType;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportCount;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory copy of the org chart used to answer reporting structure counts
+ * without going back to Mongo. Every employee ID is given an int node, the
+ * direct reports of a node are kept as a sorted int array and the number of
+ * reports underneath each node, and how many levels deep they go, is cached.
+ *
+ * When the direct reports of an employee change only the counts of the
+ * employee and its managers are adjusted. If the data stops being a tree, for
+ * instance someone has two managers or there is a cycle, the cached counts are
+ * no longer valid and counts are walked over the in-memory graph instead.
+ *
+ * The index only sees writes made through this instance, so it refuses to
+ * start against an external Mongo that other instances write to.
+ */
+@Component
+@ConditionalOnProperty(name = "reporting.engine", havingValue = "index")
+@DependsOn("dataBootstrap")
+@Slf4j
+public class OrgGraphIndex
+{
+	private static final int[] NO_REPORTS = new int[0];
+	private static final int NO_MANAGER = -1;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Value("${mongo.backend:memory}")
+	private MongoBackendType mongoBackend;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, Integer> nodes = new HashMap<>();
+	private int[][] reports = new int[16][];
+	private int[] managers = new int[16];
+	private int[] reportCounts = new int[16];
+	private int[] heights = new int[16];
+	private int nodeCount;
+
+	// True while every node has at most one manager and there are no cycles
+	private boolean tree = true;
+
+	@PostConstruct
+	public void init()
+	{
+		if (mongoBackend == MongoBackendType.EXTERNAL)
+		{
+			throw new IllegalStateException("reporting.engine=index can not be used with mongo.backend=external, "
+					+ "writes made by other instances would not reach the index. Use bfs or graph-lookup instead.");
+		}
+		rebuild(employeeRepository.findAll());
+	}
+
+	/**
+	 * Replaces the index with the org chart formed by the employees.
+	 *
+	 * @param employees - Every employee in the store
+	 */
+	public void rebuild(Iterable<Employee> employees)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			nodes.clear();
+			nodeCount = 0;
+
+			for (Employee employee : employees)
+			{
+				int node = node(employee.getEmployeeId());
+				// Resolve the reports first, adding nodes can grow the arrays
+				int[] directReports = toNodes(employee.getDirectReports());
+				reports[node] = directReports;
+			}
+
+			recount();
+			log.debug("Indexed org chart with {} employees, tree: {}", nodeCount, tree);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Records the new direct reports of an employee, adjusting the report counts
+	 * of the employee and everyone above it.
+	 *
+	 * @param employeeId    - The employee that was created or updated
+	 * @param directReports - The direct reports the employee now has
+	 */
+	public void setDirectReports(String employeeId, List<Employee> directReports)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			int node = node(employeeId);
+			int[] previous = reports[node];
+			int[] current = toNodes(directReports);
+			reports[node] = current;
+
+			if (!tree || !adjustCounts(node, previous, current))
+			{
+				recount();
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param employeeId - The employee to count the reports for
+	 * @return The number of distinct employees reporting up to the employee and
+	 *         the number of levels they span
+	 */
+	public ReportCount countReports(String employeeId)
+	{
+		lock.readLock().lock();
+		try
+		{
+			Integer node = nodes.get(employeeId);
+			if (node == null)
+			{
+				return new ReportCount(0, 0);
+			}
+
+			return tree ? new ReportCount(reportCounts[node], heights[node]) : walkReports(node);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies the difference between the old and new direct reports to the
+	 * cached counts and heights. Both arrays are sorted so the difference is
+	 * found in a single merge.
+	 *
+	 * @return false if the change means the org chart is no longer a tree
+	 */
+	private boolean adjustCounts(int node, int[] previous, int[] current)
+	{
+		int delta = 0;
+		int i = 0;
+		int j = 0;
+
+		while (i < previous.length || j < current.length)
+		{
+			if (j == current.length || (i < previous.length && previous[i] < current[j]))
+			{
+				// Removed report
+				int removed = previous[i++];
+				managers[removed] = NO_MANAGER;
+				delta -= reportCounts[removed] + 1;
+			}
+			else if (i == previous.length || current[j] < previous[i])
+			{
+				// Added report, which must not already have a manager or be above this node
+				int added = current[j++];
+				if (managers[added] != NO_MANAGER || isAtOrAbove(added, node))
+				{
+					return false;
+				}
+				managers[added] = node;
+				delta += reportCounts[added] + 1;
+			}
+			else
+			{
+				i++;
+				j++;
+			}
+		}
+
+		for (int manager = node; manager != NO_MANAGER; manager = managers[manager])
+		{
+			reportCounts[manager] += delta;
+		}
+
+		// Heights only change up to the first manager whose deepest branch is unaffected
+		for (int manager = node; manager != NO_MANAGER; manager = managers[manager])
+		{
+			int height = 0;
+			for (int report : reports[manager])
+			{
+				height = Math.max(height, heights[report] + 1);
+			}
+			if (height == heights[manager] && manager != node)
+			{
+				break;
+			}
+			heights[manager] = height;
+		}
+
+		return true;
+	}
+
+	private boolean isAtOrAbove(int candidate, int node)
+	{
+		for (int manager = node; manager != NO_MANAGER; manager = managers[manager])
+		{
+			if (manager == candidate)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Recomputes every manager, report count and height from the direct reports. Nodes
+	 * are ordered top down from the employees without a manager, then counted
+	 * bottom up. Any node not reached is part of a cycle.
+	 */
+	private void recount()
+	{
+		tree = true;
+		Arrays.fill(managers, 0, nodeCount, NO_MANAGER);
+		Arrays.fill(reportCounts, 0, nodeCount, 0);
+		Arrays.fill(heights, 0, nodeCount, 0);
+
+		for (int node = 0; node < nodeCount; node++)
+		{
+			for (int report : reports[node])
+			{
+				if (managers[report] != NO_MANAGER)
+				{
+					tree = false;
+				}
+				managers[report] = node;
+			}
+		}
+
+		int[] order = new int[nodeCount];
+		int ordered = 0;
+		for (int node = 0; node < nodeCount; node++)
+		{
+			if (managers[node] == NO_MANAGER)
+			{
+				order[ordered++] = node;
+			}
+		}
+		for (int next = 0; next < ordered && tree; next++)
+		{
+			for (int report : reports[order[next]])
+			{
+				order[ordered++] = report;
+			}
+		}
+
+		if (!tree || ordered != nodeCount)
+		{
+			tree = false;
+			log.warn("Org chart is not a tree, reporting structure counts will walk the in-memory graph");
+			return;
+		}
+
+		for (int next = ordered - 1; next >= 0; next--)
+		{
+			int node = order[next];
+			if (managers[node] != NO_MANAGER)
+			{
+				reportCounts[managers[node]] += reportCounts[node] + 1;
+				heights[managers[node]] = Math.max(heights[managers[node]], heights[node] + 1);
+			}
+		}
+	}
+
+	/**
+	 * Counts the reports by walking the graph level by level, used when cached
+	 * counts can not be trusted.
+	 */
+	private ReportCount walkReports(int node)
+	{
+		BitSet visited = new BitSet(nodeCount);
+		visited.set(node);
+
+		int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = node;
+		int depth = 0;
+
+		while (true)
+		{
+			int levelEnd = tail;
+			while (head < levelEnd)
+			{
+				for (int report : reports[queue[head++]])
+				{
+					if (!visited.get(report))
+					{
+						visited.set(report);
+						queue[tail++] = report;
+					}
+				}
+			}
+			if (tail == levelEnd)
+			{
+				break;
+			}
+			depth++;
+		}
+
+		// The employee itself is not one of its reports
+		return new ReportCount(tail - 1, depth);
+	}
+
+	private int[] toNodes(List<Employee> directReports)
+	{
+		if (directReports == null || directReports.isEmpty())
+		{
+			return NO_REPORTS;
+		}
+
+		int[] reportNodes = directReports.stream()
+				.map(Employee::getEmployeeId)
+				.filter(id -> id != null)
+				.mapToInt(this::node)
+				.sorted()
+				.distinct()
+				.toArray();
+
+		return reportNodes.length == 0 ? NO_REPORTS : reportNodes;
+	}
+
+	private int node(String employeeId)
+	{
+		Integer existing = nodes.get(employeeId);
+		if (existing != null)
+		{
+			return existing;
+		}
+
+		if (nodeCount == managers.length)
+		{
+			int capacity = nodeCount * 2;
+			reports = Arrays.copyOf(reports, capacity);
+			managers = Arrays.copyOf(managers, capacity);
+			reportCounts = Arrays.copyOf(reportCounts, capacity);
+			heights = Arrays.copyOf(heights, capacity);
+		}
+
+		int node = nodeCount++;
+		nodes.put(employeeId, node);
+		reports[node] = NO_REPORTS;
+		managers[node] = NO_MANAGER;
+		reportCounts[node] = 0;
+		heights[node] = 0;
+		return node;
+	}
+}
@@ -0,0 +1,178 @@
+package com.mindex.challenge.service.impl;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.PayrollReport;
+import com.mindex.challenge.data.PayrollTotal;
+import com.mindex.challenge.service.PayrollService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Service
+@Slf4j
+public class PayrollServiceImpl implements PayrollService
+{
+	// Department totals for employees without a department
+	private static final String NO_DEPARTMENT = "Unassigned";
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private CompensationRepository compensationRepository;
+
+	/**
+	 * Totals the salary in effect on the date by department and by manager. The
+	 * salary of every employee is read with one aggregation and the employee
+	 * store is streamed once, totalling departments as it goes and keeping only
+	 * the direct report IDs. Manager totals are then rolled up the org chart from
+	 * the bottom, so each employee is added once to its own manager rather than
+	 * to every manager above it.
+	 * 
+	 * An employee listed as a direct report of several managers is only counted
+	 * under the first one read, and a cycle in the data is cut where it is found,
+	 * so every employee is counted once in each manager's totals.
+	 * 
+	 * @param asOf - Date the salaries are in effect on, or today if null
+	 * @return Totals for the whole company, each department and each manager
+	 */
+	@Override
+	public PayrollReport findPayroll(LocalDate asOf)
+	{
+		long start = System.nanoTime();
+		LocalDate payDate = asOf == null ? LocalDate.now() : asOf;
+
+		Map<String, BigDecimal> salaries = new HashMap<>();
+		for (CompensationRecord record : compensationRepository.findLatest(null, payDate))
+		{
+			salaries.put(record.getEmployeeId(), record.getSalary());
+		}
+
+		PayrollTotal total = new PayrollTotal();
+		Map<String, PayrollTotal> departments = new TreeMap<>();
+		// Employee IDs in the order they were read, mapped to their direct report IDs
+		Map<String, List<String>> directReports = new LinkedHashMap<>();
+
+		try (Stream<Employee> employees = employeeRepository.streamAll(null, null))
+		{
+			employees.forEach(employee -> {
+				BigDecimal salary = salaries.get(employee.getEmployeeId());
+				total.add(salary);
+				departments.computeIfAbsent(Objects.toString(employee.getDepartment(), NO_DEPARTMENT),
+						department -> new PayrollTotal()).add(salary);
+
+				List<String> reportIds = new ArrayList<>();
+				if (CollectionUtils.isNotEmpty(employee.getDirectReports()))
+				{
+					employee.getDirectReports().stream().map(Employee::getEmployeeId).filter(Objects::nonNull)
+							.forEach(reportIds::add);
+				}
+				directReports.put(employee.getEmployeeId(), reportIds);
+			});
+		}
+
+		PayrollReport report = new PayrollReport();
+		report.setAsOf(payDate);
+		report.setTotal(total);
+		report.setDepartments(departments);
+		report.setManagers(rollUpManagers(directReports, salaries));
+
+		log.info("Computed payroll as of {} for {} employees in {} ms", payDate, total.getEmployees(),
+				(System.nanoTime() - start) / 1_000_000);
+		return report;
+	}
+
+	/**
+	 * Walks the org chart depth first from every employee that is nobody's
+	 * direct report, then from anything left over, which can only be part of a
+	 * cycle. Employees are visited once, so the walk forms a tree. Going through
+	 * the visit order backwards reaches every employee after all of its reports,
+	 * when its totals are complete and can be added to its manager's.
+	 */
+	private static Map<String, PayrollTotal> rollUpManagers(Map<String, List<String>> directReports,
+			Map<String, BigDecimal> salaries)
+	{
+		Map<String, String> managerOf = new HashMap<>();
+		for (Map.Entry<String, List<String>> entry : directReports.entrySet())
+		{
+			for (String reportId : entry.getValue())
+			{
+				if (directReports.containsKey(reportId) && !reportId.equals(entry.getKey()))
+				{
+					managerOf.putIfAbsent(reportId, entry.getKey());
+				}
+			}
+		}
+
+		List<String> roots = new ArrayList<>();
+		directReports.keySet().stream().filter(id -> !managerOf.containsKey(id)).forEach(roots::add);
+		roots.addAll(directReports.keySet());
+
+		// Visit order, with the manager each employee was reached from
+		List<String> order = new ArrayList<>(directReports.size());
+		Map<String, String> visitedFrom = new HashMap<>();
+		Deque<String> stack = new ArrayDeque<>();
+		for (String root : roots)
+		{
+			if (visitedFrom.containsKey(root))
+			{
+				continue;
+			}
+			visitedFrom.put(root, null);
+			stack.push(root);
+			while (!stack.isEmpty())
+			{
+				String id = stack.pop();
+				order.add(id);
+				for (String reportId : directReports.get(id))
+				{
+					if (id.equals(managerOf.get(reportId)) && !visitedFrom.containsKey(reportId))
+					{
+						visitedFrom.put(reportId, id);
+						stack.push(reportId);
+					}
+				}
+			}
+		}
+
+		Map<String, PayrollTotal> subtrees = new HashMap<>();
+		Map<String, PayrollTotal> managers = new TreeMap<>();
+		for (int i = order.size() - 1; i >= 0; i--)
+		{
+			String id = order.get(i);
+			PayrollTotal subtree = subtrees.computeIfAbsent(id, key -> new PayrollTotal());
+			subtree.add(salaries.get(id));
+
+			if (subtree.getEmployees() > 1)
+			{
+				managers.put(id, subtree);
+			}
+
+			String managerId = visitedFrom.get(id);
+			if (managerId != null)
+			{
+				subtrees.computeIfAbsent(managerId, key -> new PayrollTotal()).add(subtree);
+			}
+		}
+		return managers;
+	}
+}
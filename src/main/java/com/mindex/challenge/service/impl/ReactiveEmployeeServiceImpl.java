@@ -0,0 +1,744 @@
+package com.mindex.challenge.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.mindex.challenge.dao.ReactiveCompensationRepository;
+import com.mindex.challenge.dao.ReactiveEmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.data.ReportingTree;
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.EmployeeVersionRequiredException;
+import com.mindex.challenge.exception.InvalidFieldException;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+import com.mindex.challenge.service.ReportingEngine;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking version of {@link EmployeeServiceImpl} on the reactive Mongo
+ * driver, with the same validation and messages. Reads go straight to the
+ * store, as the employee cache loads on the calling thread, but every write
+ * still invalidates the cache and updates the org chart index so the blocking
+ * service stays consistent.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService
+{
+
+	@Autowired
+	private ReactiveEmployeeRepository employeeRepository;
+
+	@Autowired
+	private ReactiveCompensationRepository compensationRepository;
+
+	@Autowired
+	private EmployeeCache employeeCache;
+
+	// Only present when reporting.engine is index
+	@Autowired(required = false)
+	private OrgGraphIndex orgGraphIndex;
+
+	@Value("${reporting.engine:bfs}")
+	private ReportingEngine reportingEngine;
+
+	@Value("${reporting.max-depth:100}")
+	private int reportingMaxDepth;
+
+	@Value("${reporting.max-nodes:1000000}")
+	private int reportingMaxNodes;
+
+	@Value("${employee.page.default-size:100}")
+	private int defaultPageSize;
+
+	@Value("${employee.page.max-size:1000}")
+	private int maxPageSize;
+
+	@Value("${compensation.add.max-attempts:5}")
+	private int compensationMaxAttempts;
+
+	@Override
+	public Mono<Employee> create(Employee employee)
+	{
+		log.debug("Creating employee [{}]", employee);
+
+		// If the employee ID exists, we can not create the user
+		Mono<Boolean> exists = StringUtils.isNotBlank(employee.getEmployeeId())
+				? employeeRepository.existsById(employee.getEmployeeId())
+				: Mono.just(false);
+
+		return exists.flatMap(found -> {
+			if (found)
+			{
+				return Mono.<Void>error(new EmployeeIdAlreadyExistsException(
+						EmployeeServiceImpl.EMPLOYEE_ID_EXISTS.format(employee.getEmployeeId())));
+			}
+			return validateDirectReports(employee);
+		}).then(Mono.defer(() -> {
+			employee.setEmployeeId(UUID.randomUUID().toString());
+			employee.setDirectReports(EmployeeServiceImpl.references(employee.getDirectReports()));
+			// Nobody lists a new employee as a report yet
+			employee.setManagerId(null);
+			employee.setVersion(null);
+			return employeeRepository.insert(employee);
+		})).doOnNext(this::written)
+				.flatMap(created -> updateManagerIndex(created.getEmployeeId(), null, created.getDirectReports())
+						.thenReturn(created));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#createAll(List)
+	 */
+	@Override
+	public Mono<List<EmployeeBatchResult>> createAll(List<Employee> employees)
+	{
+		log.debug("Creating batch of {} employees", employees.size());
+
+		// One lookup for every ID the batch mentions
+		Set<String> referencedIds = EmployeeServiceImpl.referencedIds(employees);
+		Mono<Set<String>> existingIds = referencedIds.isEmpty() ? Mono.just(new HashSet<>())
+				: employeeRepository.findAllById(referencedIds).map(Employee::getEmployeeId).collect(Collectors.toSet());
+
+		return existingIds.flatMap(existing -> {
+			List<Employee> validEmployees = new ArrayList<>(employees.size());
+			List<EmployeeBatchResult> results = EmployeeServiceImpl.prepareBatch(employees, existing, validEmployees);
+
+			Mono<Void> insert = validEmployees.isEmpty() ? Mono.empty() : employeeRepository.insert(validEmployees).then();
+			return insert.then(Mono.fromRunnable(() -> validEmployees.forEach(this::written)))
+					.thenMany(Flux.fromIterable(validEmployees))
+					.concatMap(created -> updateManagerIndex(created.getEmployeeId(), null, created.getDirectReports()))
+					.then(Mono.just(results));
+		});
+	}
+
+	/**
+	 * Reads the employee along with its compensation history.
+	 */
+	@Override
+	public Mono<Employee> read(String id)
+	{
+		log.debug("Reading employee with id [{}]", id);
+
+		return employeeRepository.findById(id)
+				.flatMap(employee -> compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc(id)
+						.map(CompensationRecord::toCompensation)
+						.collectList()
+						.map(history -> {
+							employee.setCompensation(history.isEmpty() ? null : Collections.unmodifiableList(history));
+							return employee;
+						}));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#read(String, List)
+	 */
+	@Override
+	public Mono<Employee> read(String id, List<String> expand)
+	{
+		try
+		{
+			EmployeeServiceImpl.validateExpand(expand);
+		}
+		catch (InvalidFieldException ife)
+		{
+			return Mono.error(ife);
+		}
+
+		return read(id).flatMap(employee -> {
+			if (CollectionUtils.isEmpty(expand) || CollectionUtils.isEmpty(employee.getDirectReports()))
+			{
+				return Mono.just(employee);
+			}
+
+			List<String> directReportIds = employee.getDirectReports().stream().map(Employee::getEmployeeId)
+					.collect(Collectors.toList());
+			return employeeRepository.findAllById(directReportIds).collectList()
+					.map(directReports -> EmployeeServiceImpl.withDirectReports(employee, directReports));
+		});
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#list(String, Integer, List)
+	 */
+	@Override
+	public Mono<EmployeePage> list(String after, Integer limit, List<String> fields)
+	{
+		log.debug("Listing employees after [{}] with limit [{}] and fields {}", after, limit, fields);
+
+		try
+		{
+			EmployeeServiceImpl.validateFields(fields);
+		}
+		catch (InvalidFieldException ife)
+		{
+			return Mono.error(ife);
+		}
+
+		int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+		return employeeRepository.findPage(after, pageSize + 1, fields).collectList().map(employees -> {
+			EmployeePage page = new EmployeePage();
+			if (employees.size() > pageSize)
+			{
+				employees = employees.subList(0, pageSize);
+				page.setNextCursor(employees.get(pageSize - 1).getEmployeeId());
+			}
+			page.setEmployees(employees);
+			return page;
+		});
+	}
+
+	@Override
+	public Flux<Employee> streamAll(String department, String position)
+	{
+		log.debug("Streaming employees with department [{}] and position [{}]", department, position);
+
+		return employeeRepository.streamAll(department, position);
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#update(String, Employee)
+	 */
+	@Override
+	public Mono<Employee> update(String id, Employee employee)
+	{
+		log.debug("Updating employee [{}]", employee);
+
+		// The new employeeID must not exist as employeeIDs must be unique
+		Mono<Optional<Employee>> newIdUnused = validateEmployeeId(id).flatMap(existingEmployee -> {
+			if (!StringUtils.equalsAnyIgnoreCase(id, employee.getEmployeeId()))
+			{
+				return Mono.<Optional<Employee>>error(new EmployeeIdAlreadyExistsException(
+						EmployeeServiceImpl.NEW_ID_EXISTS.format(employee.getEmployeeId(), id)));
+			}
+			return Mono.just(Optional.of(existingEmployee));
+		}).onErrorResume(EmployeeDoesNotExistsException.class, dne -> Mono.just(Optional.empty()));
+
+		return validateEmployeeId(employee.getEmployeeId())
+				.then(newIdUnused)
+				.flatMap(existingEmployee -> {
+					if (existingEmployee.isPresent() && employee.getVersion() == null)
+					{
+						return Mono.error(new EmployeeVersionRequiredException(
+								EmployeeServiceImpl.VERSION_REQUIRED.format(id)));
+					}
+					employee.setEmployeeId(id);
+					employee.setDirectReports(EmployeeServiceImpl.references(employee.getDirectReports()));
+					// The manager is set by whoever lists the employee as a report, never by the employee itself,
+					// and the latest compensation only by adding compensation
+					employee.setManagerId(existingEmployee.map(Employee::getManagerId).orElse(null));
+					employee.setLatestCompensation(existingEmployee.map(Employee::getLatestCompensation).orElse(null));
+					if (existingEmployee.isEmpty())
+					{
+						employee.setVersion(null);
+					}
+					return employeeRepository.save(employee)
+							.onErrorMap(OptimisticLockingFailureException.class, olfe -> {
+								employeeCache.invalidate(id);
+								return new EmployeeVersionConflictException(
+										EmployeeServiceImpl.VERSION_CONFLICT.format(id));
+							})
+							.doOnNext(this::written)
+							.flatMap(saved -> updateManagerIndex(id,
+									existingEmployee.map(Employee::getDirectReports).orElse(null), saved.getDirectReports())
+									.thenReturn(saved));
+				});
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#findReportingTree(String, Integer)
+	 */
+	@Override
+	public Mono<ReportingTree> findReportingTree(String id, Integer maxDepth)
+	{
+		return validateEmployeeId(id).flatMap(employee -> {
+			int levels = EmployeeServiceImpl.treeLevels(maxDepth, reportingMaxDepth);
+
+			ReportingTree tree = new ReportingTree();
+			tree.setEmployeeId(id);
+			ReportingBudget budget = reportingBudget(id);
+			Set<String> visited = new HashSet<>();
+			visited.add(id);
+
+			// Levels are fetched one after another, never concurrently
+			return Mono.just(List.of(id))
+					.expand(level -> {
+						if (level.isEmpty())
+						{
+							return Mono.empty();
+						}
+						return employeeRepository.findTreeNodes(level).collectList().flatMap(employees -> {
+							List<String> nextLevel = new ArrayList<>();
+							for (ReportingTree.Node treeNode : employees)
+							{
+								tree.getEmployees().put(treeNode.getEmployeeId(), treeNode);
+								if (budget.getDepth() < levels)
+								{
+									EmployeeServiceImpl.addUnvisitedReports(treeNode.getDirectReports(), visited, nextLevel);
+								}
+							}
+							if (!nextLevel.isEmpty())
+							{
+								try
+								{
+									budget.addLevel(nextLevel.size());
+								}
+								catch (ReportingLimitExceededException e)
+								{
+									return Mono.error(e);
+								}
+							}
+							return Mono.just(nextLevel);
+						});
+					})
+					.then(Mono.just(tree));
+		});
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#updateManagerIndex(String, List, List)
+	 */
+	private Mono<Void> updateManagerIndex(String managerId, List<Employee> previousReports, List<Employee> currentReports)
+	{
+		Set<String> removed = EmployeeServiceImpl.reportsOnlyIn(previousReports, currentReports);
+		Set<String> added = EmployeeServiceImpl.reportsOnlyIn(currentReports, previousReports);
+
+		Mono<Long> unassign = removed.isEmpty() ? Mono.empty() : employeeRepository.unassignManager(managerId, removed);
+		Mono<Long> assign = added.isEmpty() ? Mono.empty() : employeeRepository.assignManager(managerId, added);
+		return unassign.then(assign).then(Mono.fromRunnable(() -> {
+			removed.forEach(employeeCache::invalidate);
+			added.forEach(employeeCache::invalidate);
+		}));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#findChainOfCommand(String)
+	 */
+	@Override
+	public Mono<List<Employee>> findChainOfCommand(String id)
+	{
+		return validateEmployeeId(id).flatMap(employee -> {
+			Set<String> visited = new HashSet<>();
+			visited.add(id);
+			return climb(employee.getManagerId(), visited, reportingBudget(id), new ArrayList<>());
+		});
+	}
+
+	/**
+	 * Reads the next manager up and carries on from it, until an employee has no
+	 * manager, the manager is not found or it is already in the chain.
+	 */
+	private Mono<List<Employee>> climb(String managerId, Set<String> visited, ReportingBudget budget, List<Employee> chain)
+	{
+		if (managerId == null || !visited.add(managerId))
+		{
+			return Mono.just(chain);
+		}
+		try
+		{
+			budget.addLevel(1);
+		}
+		catch (ReportingLimitExceededException e)
+		{
+			return Mono.error(e);
+		}
+		return read(managerId).flatMap(manager -> {
+			chain.add(manager);
+			return climb(manager.getManagerId(), visited, budget, chain);
+		}).defaultIfEmpty(chain);
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#findReportingStructure(String)
+	 */
+	@Override
+	public Mono<ReportingStructure> findReportingStructure(String id)
+	{
+		return validateEmployeeId(id).flatMap(manager -> {
+			ReportingStructure reportingStructure = new ReportingStructure();
+			reportingStructure.setEmployee(manager);
+
+			// We have an employee, but is not a manager, we can return now
+			if (CollectionUtils.isEmpty(manager.getDirectReports()))
+			{
+				reportingStructure.setNumberOfReports(0);
+				return Mono.just(reportingStructure);
+			}
+
+			Mono<Integer> numberOfReports;
+			if (orgGraphIndex != null)
+			{
+				numberOfReports = Mono.fromCallable(() -> countIndexedReports(id));
+			}
+			else if (reportingEngine == ReportingEngine.GRAPH_LOOKUP)
+			{
+				numberOfReports = countAllReports(id);
+			}
+			else
+			{
+				numberOfReports = countReports(manager);
+			}
+
+			return numberOfReports.map(count -> {
+				reportingStructure.setNumberOfReports(count);
+				return reportingStructure;
+			});
+		}).onErrorResume(e -> e instanceof EmployeeDoesNotExistsException || e instanceof EmployeeIdNotSpecifiedException,
+				badIdException -> Mono.just(new ReportingStructure()));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#findReportingStructures(List)
+	 */
+	@Override
+	public Mono<List<ReportingStructure>> findReportingStructures(List<String> ids)
+	{
+		List<String> managerIds = ids.stream().filter(StringUtils::isNotBlank).distinct().collect(Collectors.toList());
+
+		// The managers with one query and their compensation with one more
+		return employeeRepository.findAllById(managerIds).collectMap(Employee::getEmployeeId)
+				.flatMap(managers -> managers.isEmpty() ? Mono.just(managers)
+						: compensationRepository.findByEmployeeIdInOrderByEffectiveDateAsc(managers.keySet()).collectList()
+								.map(records -> {
+									EmployeeServiceImpl.setCompensation(managers, records);
+									return managers;
+								}))
+				.flatMap(managers -> (orgGraphIndex == null ? walkOrgChart(managers.values()).map(Optional::of)
+						: Mono.just(Optional.<ReportCounter>empty())).flatMap(reportCounter -> {
+					List<ReportingStructure> reportingStructures = new ArrayList<>(ids.size());
+					for (String id : ids)
+					{
+						ReportingStructure reportingStructure = new ReportingStructure();
+						Employee manager = id == null ? null : managers.get(id);
+						if (manager != null)
+						{
+							reportingStructure.setEmployee(manager);
+							try
+							{
+								if (CollectionUtils.isEmpty(manager.getDirectReports()))
+								{
+									reportingStructure.setNumberOfReports(0);
+								}
+								else if (reportCounter.isEmpty())
+								{
+									reportingStructure.setNumberOfReports(countIndexedReports(id));
+								}
+								else
+								{
+									reportingStructure.setNumberOfReports(
+											(int) reportCounter.get().count(id, reportingBudget(id)).getNumberOfReports());
+								}
+							}
+							catch (ReportingLimitExceededException e)
+							{
+								return Mono.error(e);
+							}
+						}
+						reportingStructures.add(reportingStructure);
+					}
+					return Mono.just(reportingStructures);
+				}));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#walkOrgChart(Collection)
+	 */
+	private Mono<ReportCounter> walkOrgChart(Collection<Employee> managers)
+	{
+		ReportCounter reportCounter = new ReportCounter();
+		Set<String> visited = new HashSet<>();
+		for (Employee manager : managers)
+		{
+			visited.add(manager.getEmployeeId());
+			reportCounter.add(manager.getEmployeeId(), EmployeeServiceImpl.directReportIds(manager));
+		}
+		List<String> directReports = new ArrayList<>();
+		managers.forEach(manager -> EmployeeServiceImpl.addUnvisitedReports(manager, visited, directReports));
+
+		// Levels are fetched one after another, never concurrently
+		AtomicInteger depth = new AtomicInteger();
+		AtomicLong reached = new AtomicLong();
+		return Mono.just(directReports)
+				.expand(level -> {
+					if (level.isEmpty() || depth.getAndIncrement() >= reportingMaxDepth)
+					{
+						return Mono.empty();
+					}
+					try
+					{
+						EmployeeServiceImpl.checkSharedNodes(managers, reached.addAndGet(level.size()), reportingMaxNodes);
+					}
+					catch (ReportingLimitExceededException e)
+					{
+						return Mono.error(e);
+					}
+					return employeeRepository.findTreeNodes(level).collectList().map(employees -> {
+						List<String> nextLevel = new ArrayList<>();
+						for (ReportingTree.Node employee : employees)
+						{
+							reportCounter.add(employee.getEmployeeId(), employee.getDirectReports());
+							EmployeeServiceImpl.addUnvisitedReports(employee.getDirectReports(), visited, nextLevel);
+						}
+						return nextLevel;
+					});
+				})
+				.then(Mono.just(reportCounter));
+	}
+
+	/**
+	 * Answers a count from the index, held to the same limits as a traversal.
+	 */
+	private int countIndexedReports(String id) throws ReportingLimitExceededException
+	{
+		ReportCount reportCount = orgGraphIndex.countReports(id);
+		reportingBudget(id).check(reportCount.getDepth(), reportCount.getNumberOfReports());
+		return (int) reportCount.getNumberOfReports();
+	}
+
+	/**
+	 * Counts the reports with a single $graphLookup aggregation, one level deeper
+	 * than allowed to tell an org chart that ends at the limit from one that goes
+	 * past it.
+	 */
+	private Mono<Integer> countAllReports(String id)
+	{
+		return employeeRepository.countAllReports(id, reportingMaxDepth + 1).flatMap(reportCount -> {
+			try
+			{
+				reportingBudget(id).check(reportCount.getDepth(), reportCount.getNumberOfReports());
+			}
+			catch (ReportingLimitExceededException e)
+			{
+				return Mono.error(e);
+			}
+			return Mono.just((int) reportCount.getNumberOfReports());
+		});
+	}
+
+	/**
+	 * Counts every distinct employee underneath the manager, expanding the org
+	 * chart one level at a time. Each level is fetched with a single findAllById
+	 * and the next level is only requested once it arrives, so no thread waits on
+	 * Mongo in between. Employee IDs that have already been seen are skipped, so a
+	 * cycle ends the walk, and a level past the reporting budget signals
+	 * ReportingLimitExceededException instead of being fetched.
+	 */
+	protected Mono<Integer> countReports(Employee manager)
+	{
+		// Levels are expanded one after another, never concurrently
+		Set<String> visited = new HashSet<>();
+		visited.add(manager.getEmployeeId());
+		ReportingBudget budget = reportingBudget(manager.getEmployeeId());
+
+		List<String> directReports = new ArrayList<>();
+		EmployeeServiceImpl.addUnvisitedReports(manager, visited, directReports);
+
+		return Mono.just(directReports)
+				.expand(level -> {
+					if (level.isEmpty())
+					{
+						return Mono.empty();
+					}
+					try
+					{
+						budget.addLevel(level.size());
+					}
+					catch (ReportingLimitExceededException e)
+					{
+						return Mono.error(e);
+					}
+					return employeeRepository.findAllById(level).collectList().map(employees -> {
+						List<String> nextLevel = new ArrayList<>();
+						employees.forEach(employee -> EmployeeServiceImpl.addUnvisitedReports(employee, visited, nextLevel));
+						return nextLevel;
+					});
+				})
+				.then(Mono.fromSupplier(budget::getNodes));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#addCompensation(String, Compensation)
+	 */
+	@Override
+	public Mono<Employee> addCompensation(String id, Compensation compensation)
+	{
+		return addCompensation(id, compensation, 1);
+	}
+
+	private Mono<Employee> addCompensation(String id, Compensation compensation, int attempt)
+	{
+		if (attempt > compensationMaxAttempts)
+		{
+			return Mono.error(() -> new EmployeeVersionConflictException(EmployeeServiceImpl.VERSION_CONFLICT.format(id)));
+		}
+
+		return validateEmployeeId(id).flatMap(employee -> latestCompensation(employee)
+				.filter(latest -> compensation.getEffectiveDate().compareTo(latest.getEffectiveDate()) <= 0)
+				.flatMap(latest -> Mono.<Boolean>error(EmployeeServiceImpl.compensationInPast(id, latest, compensation)))
+				.switchIfEmpty(Mono.defer(
+						() -> employeeRepository.claimLatestCompensation(id, employee.getVersion(), compensation)))
+				.flatMap(claimed -> {
+					if (!claimed)
+					{
+						log.debug("Employee [{}] changed while adding compensation, attempt {} of {}", id, attempt,
+								compensationMaxAttempts);
+						employeeCache.invalidate(id);
+						return addCompensation(id, compensation, attempt + 1);
+					}
+					return compensationRepository.insert(CompensationRecord.of(id, compensation))
+							// Nothing was stored, so the compensation must not stay on the employee as its latest
+							.onErrorResume(e -> !(e instanceof DuplicateKeyException), e -> employeeRepository
+									.claimLatestCompensation(id, EmployeeServiceImpl.claimedVersion(employee),
+											employee.getLatestCompensation())
+									.onErrorResume(restoreException -> {
+										e.addSuppressed(restoreException);
+										return Mono.empty();
+									})
+									.then(Mono.<CompensationRecord>error(e)))
+							// The date is already stored, so the latest record is reported and kept on the employee again
+							.onErrorResume(DuplicateKeyException.class, dke -> compensationRepository
+									.findFirstByEmployeeIdOrderByEffectiveDateDesc(id)
+									.map(CompensationRecord::toCompensation)
+									.flatMap(stored -> employeeRepository
+											.claimLatestCompensation(id, EmployeeServiceImpl.claimedVersion(employee), stored)
+											.then(Mono.<CompensationRecord>error(
+													EmployeeServiceImpl.compensationInPast(id, stored, compensation)))))
+							.doFinally(signal -> employeeCache.invalidate(id))
+							.then(Mono.defer(() -> read(id)));
+				}));
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#latestCompensation(Employee)
+	 */
+	private Mono<Compensation> latestCompensation(Employee employee)
+	{
+		if (employee.getLatestCompensation() != null)
+		{
+			return Mono.just(employee.getLatestCompensation());
+		}
+		return compensationRepository.findFirstByEmployeeIdOrderByEffectiveDateDesc(employee.getEmployeeId())
+				.map(CompensationRecord::toCompensation);
+	}
+
+	@Override
+	public Mono<List<Compensation>> findCompensation(Employee employee)
+	{
+		return validateEmployeeId(employee.getEmployeeId()).map(EmployeeServiceImpl::compensationHistory);
+	}
+
+	@Override
+	public Mono<Compensation> findCompensationAsOf(String id, LocalDate date)
+	{
+		return validateEmployeeId(id).flatMap(employee -> Mono
+				.justOrEmpty(EmployeeServiceImpl.compensationAsOf(EmployeeServiceImpl.compensationHistory(employee), date)));
+	}
+
+	@Override
+	public Mono<List<Compensation>> findCompensationBetween(String id, LocalDate from, LocalDate to)
+	{
+		return validateEmployeeId(id).map(employee -> EmployeeServiceImpl
+				.compensationBetween(EmployeeServiceImpl.compensationHistory(employee), from, to));
+	}
+
+	@Override
+	public Mono<Map<String, Compensation>> findLatestCompensation(Collection<String> ids, LocalDate asOf)
+	{
+		log.debug("Finding compensation as of [{}] for {} employees", asOf, ids.size());
+
+		if (CollectionUtils.isEmpty(ids))
+		{
+			return Mono.just(new HashMap<>());
+		}
+		return compensationRepository.findLatest(new HashSet<>(ids), asOf)
+				.collectMap(CompensationRecord::getEmployeeId, CompensationRecord::toCompensation);
+	}
+
+	/**
+	 * Checks every direct report of the employee exists with one findAllById.
+	 */
+	private Mono<Void> validateDirectReports(Employee employee)
+	{
+		if (CollectionUtils.isEmpty(employee.getDirectReports()))
+		{
+			return Mono.empty();
+		}
+
+		List<String> directReportIds = employee.getDirectReports().stream().map(Employee::getEmployeeId).distinct()
+				.collect(Collectors.toList());
+		return employeeRepository.findAllById(directReportIds).map(Employee::getEmployeeId).collect(Collectors.toSet())
+				.flatMap(found -> {
+					List<String> missingIds = directReportIds.stream().filter(directReportId -> !found.contains(directReportId))
+							.collect(Collectors.toList());
+					if (missingIds.isEmpty())
+					{
+						return Mono.empty();
+					}
+					return Mono.error(new EmployeeDoesNotExistsException(EmployeeServiceImpl.DIRECT_REPORTS_NOT_FOUND
+							.format(missingIds, employee.getFirstName(), employee.getLastName())));
+				});
+	}
+
+	private ReportingBudget reportingBudget(String employeeId)
+	{
+		return new ReportingBudget(employeeId, reportingMaxDepth, reportingMaxNodes);
+	}
+
+	/**
+	 * Keeps the employee cache and org chart index in step with a write.
+	 */
+	private void written(Employee employee)
+	{
+		employeeCache.invalidate(employee.getEmployeeId());
+		if (orgGraphIndex != null)
+		{
+			orgGraphIndex.setDirectReports(employee.getEmployeeId(), employee.getDirectReports());
+		}
+	}
+
+	/**
+	 * @see EmployeeServiceImpl#validateEmployeeId(String)
+	 */
+	private Mono<Employee> validateEmployeeId(String employeeId)
+	{
+		if (StringUtils.isBlank(employeeId))
+		{
+			return Mono.error(EmployeeServiceImpl::employeeIdNotSpecified);
+		}
+		return read(employeeId).switchIfEmpty(Mono.error(() -> EmployeeServiceImpl.employeeNotFound(employeeId)));
+	}
+}
@@ -0,0 +1,154 @@
+package com.mindex.challenge.service.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+
+/**
+ * Counts the reports of many employees from one shared walk of the org chart.
+ * The direct report IDs of every employee fetched by the walk are kept, and the
+ * reports underneath each employee are worked out bottom-up and memoised, so an
+ * employee underneath several of the managers asked about is only counted once
+ * and a manager underneath another reuses its count. Employees that were not
+ * fetched, being below the walk or not found, are counted without reports.
+ * <p>
+ * Adding up the counts of the direct reports is only right while the org chart
+ * is a tree. Once an employee is listed by two managers, or a cycle is found,
+ * each employee is counted by walking the kept direct reports instead, still
+ * without fetching anything again.
+ */
+class ReportCounter
+{
+	private final Map<String, List<String>> directReports = new HashMap<>();
+	private final Set<String> listed = new HashSet<>();
+	private final Map<String, ReportCount> counts = new HashMap<>();
+
+	// True while every employee kept is listed by at most one manager and no cycle has been found
+	private boolean tree = true;
+
+	/**
+	 * Keeps the direct reports of an employee fetched by the walk.
+	 */
+	void add(String employeeId, List<String> directReportIds)
+	{
+		List<String> reports = directReportIds == null ? List.of() : directReportIds;
+		directReports.put(employeeId, reports);
+		for (String directReportId : reports)
+		{
+			if (directReportId != null && !listed.add(directReportId))
+			{
+				tree = false;
+			}
+		}
+	}
+
+	/**
+	 * @param budget - The limits for the employee, checked against its count
+	 * @return The number of distinct employees underneath the employee and how
+	 *         many levels down the deepest is
+	 * @throws ReportingLimitExceededException If the reports go deeper than
+	 *                                         reporting.max-depth or number more
+	 *                                         than reporting.max-nodes
+	 */
+	ReportCount count(String employeeId, ReportingBudget budget) throws ReportingLimitExceededException
+	{
+		ReportCount count = tree ? countBottomUp(employeeId) : null;
+		if (count == null)
+		{
+			return walk(employeeId, budget);
+		}
+		budget.check(count.getDepth(), count.getNumberOfReports());
+		return count;
+	}
+
+	/**
+	 * Works out the counts of the employee and everyone underneath it in post
+	 * order, children before their manager, reusing any count already known. An
+	 * explicit stack is used so a deep chart does not run out of call stack.
+	 * 
+	 * @return The count, or null if a cycle was found
+	 */
+	private ReportCount countBottomUp(String employeeId)
+	{
+		Set<String> onPath = new HashSet<>();
+		Deque<String> stack = new ArrayDeque<>();
+		stack.push(employeeId);
+
+		while (!stack.isEmpty())
+		{
+			String current = stack.peek();
+			if (counts.containsKey(current))
+			{
+				stack.pop();
+				continue;
+			}
+
+			List<String> reports = directReports.getOrDefault(current, List.of());
+			if (onPath.add(current))
+			{
+				for (String directReportId : reports)
+				{
+					if (directReportId == null || counts.containsKey(directReportId))
+					{
+						continue;
+					}
+					if (onPath.contains(directReportId))
+					{
+						tree = false;
+						return null;
+					}
+					stack.push(directReportId);
+				}
+				continue;
+			}
+
+			long numberOfReports = 0;
+			int depth = 0;
+			for (String directReportId : reports)
+			{
+				if (directReportId != null)
+				{
+					ReportCount reportCount = counts.get(directReportId);
+					numberOfReports += 1 + reportCount.getNumberOfReports();
+					depth = Math.max(depth, reportCount.getDepth() + 1);
+				}
+			}
+			counts.put(current, new ReportCount(numberOfReports, depth));
+			onPath.remove(current);
+			stack.pop();
+		}
+		return counts.get(employeeId);
+	}
+
+	/**
+	 * Walks the kept direct reports underneath the employee a level at a time,
+	 * skipping employees already seen, as the bfs engine walks the store.
+	 */
+	private ReportCount walk(String employeeId, ReportingBudget budget) throws ReportingLimitExceededException
+	{
+		Set<String> visited = new HashSet<>();
+		visited.add(employeeId);
+
+		List<String> level = new ArrayList<>();
+		EmployeeServiceImpl.addUnvisitedReports(directReports.get(employeeId), visited, level);
+		while (!level.isEmpty())
+		{
+			budget.addLevel(level.size());
+			List<String> nextLevel = new ArrayList<>();
+			for (String directReportId : level)
+			{
+				EmployeeServiceImpl.addUnvisitedReports(directReports.get(directReportId), visited, nextLevel);
+			}
+			level = nextLevel;
+		}
+		return new ReportCount(budget.getNodes(), budget.getDepth());
+	}
+}
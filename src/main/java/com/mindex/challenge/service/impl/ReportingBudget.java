@@ -0,0 +1,73 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.exception.MessageTemplate;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+
+/**
+ * The levels and employees a single reporting structure traversal may visit,
+ * set by reporting.max-depth and reporting.max-nodes. Each level is added
+ * before it is fetched, so a traversal over the limits fails before making the
+ * round trip that would pass them.
+ */
+class ReportingBudget
+{
+	static final MessageTemplate TOO_DEEP = MessageTemplate.of("Reporting structure for employee %employeeID% "
+			+ "is more than %maxDepth% levels deep, the limit set by reporting.max-depth.");
+	static final MessageTemplate TOO_MANY_REPORTS = MessageTemplate.of("Reporting structure for employee "
+			+ "%employeeID% has more than %maxNodes% reports, the limit set by reporting.max-nodes.");
+	static final MessageTemplate TOO_MANY_SHARED_REPORTS = MessageTemplate.of("Reporting structures for employees "
+			+ "%employeeIDs% reach more than %maxNodes% reports between them, the limit set by reporting.max-nodes.");
+
+	private final String employeeId;
+	private final int maxDepth;
+	private final int maxNodes;
+
+	private int depth;
+	private int nodes;
+
+	ReportingBudget(String employeeId, int maxDepth, int maxNodes)
+	{
+		this.employeeId = employeeId;
+		this.maxDepth = maxDepth;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * @param employees - The number of distinct employees on the next level
+	 * @throws ReportingLimitExceededException If the level is deeper than
+	 *                                         reporting.max-depth or takes the
+	 *                                         count past reporting.max-nodes
+	 */
+	void addLevel(int employees) throws ReportingLimitExceededException
+	{
+		check(depth + 1, (long) nodes + employees);
+		depth++;
+		nodes += employees;
+	}
+
+	/**
+	 * Checks a count made without walking the levels here, such as a
+	 * $graphLookup aggregation.
+	 */
+	void check(int depth, long nodes) throws ReportingLimitExceededException
+	{
+		if (depth > maxDepth)
+		{
+			throw new ReportingLimitExceededException(TOO_DEEP.format(employeeId, maxDepth));
+		}
+		if (nodes > maxNodes)
+		{
+			throw new ReportingLimitExceededException(TOO_MANY_REPORTS.format(employeeId, maxNodes));
+		}
+	}
+
+	int getDepth()
+	{
+		return depth;
+	}
+
+	int getNodes()
+	{
+		return nodes;
+	}
+}
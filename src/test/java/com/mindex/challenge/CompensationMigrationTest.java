@@ -0,0 +1,85 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.service.EmployeeService;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class CompensationMigrationTest {
+
+    @Autowired
+    private CompensationMigration compensationMigration;
+
+    @Autowired
+    private CompensationRepository compensationRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testMigrate() {
+        String employeeId = UUID.randomUUID().toString();
+
+        // Embedded layout, the history is not in date order
+        Document employee = new Document("_id", employeeId)
+                .append("firstName", "Legacy")
+                .append("lastName", "Employee")
+                .append("compensation", Arrays.asList(
+                        new Document("salary", "20").append("effectiveDate", date(LocalDate.of(2021, 1, 1))),
+                        new Document("salary", "10").append("effectiveDate", date(LocalDate.of(2020, 1, 1)))));
+        mongoTemplate.insert(employee, "employee");
+
+        assertEquals(1, compensationMigration.migrate());
+
+        List<CompensationRecord> records = compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc(employeeId);
+        assertEquals(Arrays.asList(LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1)),
+                records.stream().map(CompensationRecord::getEffectiveDate).collect(Collectors.toList()));
+        assertEquals(0, new BigDecimal("20").compareTo(records.get(1).getSalary()));
+
+        Document migrated = mongoTemplate.findById(employeeId, Document.class, "employee");
+        assertFalse(migrated.containsKey("compensation"));
+
+        List<Compensation> compensation = employeeService.read(employeeId).getCompensation();
+        assertEquals(2, compensation.size());
+
+        // Nothing left to migrate
+        assertEquals(0, compensationMigration.migrate());
+    }
+
+    @Test
+    public void testCompensationIndex() {
+        assertTrue(mongoTemplate.indexOps(CompensationRecord.class).getIndexInfo().stream()
+                .anyMatch(index -> index.getName().equals("employee_effective_date") && index.isUnique()));
+    }
+
+    private static Date date(LocalDate localDate) {
+        return Date.from(localDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -1,30 +1,64 @@
-package com.mindex.challenge;
-
-import com.mindex.challenge.dao.EmployeeRepository;
-import com.mindex.challenge.data.Employee;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.context.junit4.SpringRunner;
-import static org.junit.Assert.assertEquals;
-
-import static org.junit.Assert.assertNotNull;
-
-@RunWith(SpringRunner.class)
-@SpringBootTest
-public class DataBootstrapTest {
-
-    @Autowired
-    private EmployeeRepository employeeRepository;
-
-    @Test
-    public void test() {
-        Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
-        assertNotNull(employee);
-        assertEquals("John", employee.getFirstName());
-        assertEquals("Lennon", employee.getLastName());
-        assertEquals("Development Manager", employee.getPosition());
-        assertEquals("Engineering", employee.getDepartment());
-    }
-}
\ No newline at end of file
+package com.mindex.challenge;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import static org.junit.Assert.assertEquals;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class DataBootstrapTest {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private DataBootstrap dataBootstrap;
+
+    @Test
+    public void test() {
+        Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
+        assertNotNull(employee);
+        assertEquals("John", employee.getFirstName());
+        assertEquals("Lennon", employee.getLastName());
+        assertEquals("Development Manager", employee.getPosition());
+        assertEquals("Engineering", employee.getDepartment());
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        // More than one batch, with a partial last batch
+        int count = 2500;
+        String department = UUID.randomUUID().toString();
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"employeeId\":\"").append(UUID.randomUUID())
+                    .append("\",\"firstName\":\"Loaded\",\"lastName\":\"").append(i)
+                    .append("\",\"department\":\"").append(department).append("\"}");
+        }
+        json.append(']');
+
+        long loaded = dataBootstrap.load(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(count, loaded);
+        try (Stream<Employee> employees = employeeRepository.streamAll(department, null)) {
+            assertEquals(count, employees.count());
+        }
+    }
+}
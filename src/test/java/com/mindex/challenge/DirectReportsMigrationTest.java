@@ -0,0 +1,97 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.service.EmployeeService;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class DirectReportsMigrationTest {
+
+    @Autowired
+    private DirectReportsMigration directReportsMigration;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testMigrate() throws MindexException {
+        String managerId = UUID.randomUUID().toString();
+        String reportId = UUID.randomUUID().toString();
+        mongoTemplate.insert(new Document("_id", reportId).append("firstName", "Current"), "employee");
+
+        // Embedded layout, holding a stale copy of the report
+        Document manager = new Document("_id", managerId)
+                .append("firstName", "Legacy")
+                .append("lastName", "Manager")
+                .append("directReports", Arrays.asList(
+                        new Document("_id", reportId).append("firstName", "Stale")));
+        mongoTemplate.insert(manager, "employee");
+
+        // Readable before it is migrated
+        assertEquals(reportId, employeeService.read(managerId).getDirectReports().get(0).getEmployeeId());
+
+        assertEquals(1, directReportsMigration.migrate());
+
+        Document migrated = mongoTemplate.findById(managerId, Document.class, "employee");
+        assertEquals(Arrays.asList(reportId), migrated.getList("directReports", Object.class));
+
+        Employee expanded = employeeService.read(managerId, Arrays.asList("directReports"));
+        assertEquals("Current", expanded.getDirectReports().get(0).getFirstName());
+
+        // Nothing left to migrate
+        assertEquals(0, directReportsMigration.migrate());
+    }
+
+    @Test
+    public void testStoredAsIds() throws MindexException {
+        Employee report = new Employee();
+        report.setFirstName("Report");
+        String reportId = employeeService.create(report).getEmployeeId();
+
+        Employee manager = new Employee();
+        manager.setFirstName("Manager");
+        Employee staleReport = Employee.reference(reportId);
+        staleReport.setFirstName("Stale");
+        manager.setDirectReports(Arrays.asList(staleReport));
+
+        Employee created = employeeService.create(manager);
+        assertNull(created.getDirectReports().get(0).getFirstName());
+
+        Document stored = mongoTemplate.findById(created.getEmployeeId(), Document.class, "employee");
+        assertEquals(Arrays.asList(reportId), stored.getList("directReports", Object.class));
+
+        List<Document> managers = mongoTemplate.getCollection("employee")
+                .find(new Document("directReports", reportId)).into(new ArrayList<>());
+        assertEquals(Arrays.asList(created.getEmployeeId()),
+                managers.stream().map(document -> document.get("_id")).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testDirectReportsIndex() {
+        assertTrue(mongoTemplate.indexOps(Employee.class).getIndexInfo().stream()
+                .anyMatch(index -> index.getName().equals("direct_reports")));
+    }
+}
@@ -0,0 +1,53 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.service.EmployeeService;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class EmployeeVersionMigrationTest {
+
+    @Autowired
+    private EmployeeVersionMigration employeeVersionMigration;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testMigrate() throws MindexException {
+        String employeeId = UUID.randomUUID().toString();
+        mongoTemplate.insert(new Document("_id", employeeId).append("firstName", "Unversioned"), "employee");
+
+        // Employees inserted raw by other tests may be migrated along with it
+        assertTrue(employeeVersionMigration.migrate() >= 1);
+        assertEquals(0L, mongoTemplate.findById(employeeId, Document.class, "employee").get("version"));
+
+        // Updated in place rather than inserted again
+        Employee employee = new Employee();
+        employee.setEmployeeId(employeeId);
+        employee.setFirstName("Versioned");
+        employee.setVersion(0L);
+        assertEquals(Long.valueOf(1), employeeService.update(employeeId, employee).getVersion());
+
+        // Nothing left to migrate
+        assertEquals(0, employeeVersionMigration.migrate());
+    }
+}
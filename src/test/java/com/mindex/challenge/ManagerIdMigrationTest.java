@@ -0,0 +1,74 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.service.EmployeeService;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class ManagerIdMigrationTest {
+
+    @Autowired
+    private ManagerIdMigration managerIdMigration;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testMigrate() throws MindexException {
+        String managerId = UUID.randomUUID().toString();
+        String reportId = UUID.randomUUID().toString();
+        String managedReportId = UUID.randomUUID().toString();
+        mongoTemplate.insert(new Document("_id", reportId).append("firstName", "Unmanaged"), "employee");
+        mongoTemplate.insert(new Document("_id", managedReportId).append("firstName", "Managed")
+                .append("managerId", "someone-else"), "employee");
+        mongoTemplate.insert(new Document("_id", managerId).append("firstName", "Legacy")
+                .append("directReports", Arrays.asList(reportId, managedReportId)), "employee");
+
+        // Employees inserted raw by other tests may be migrated along with it
+        assertTrue(managerIdMigration.migrate() >= 1);
+        assertEquals(managerId, mongoTemplate.findById(reportId, Document.class, "employee").get("managerId"));
+        // A manager already set is kept
+        assertEquals("someone-else", mongoTemplate.findById(managedReportId, Document.class, "employee").get("managerId"));
+
+        List<Employee> chain = employeeService.findChainOfCommand(reportId);
+        assertEquals(Arrays.asList(managerId), chain.stream().map(Employee::getEmployeeId).collect(Collectors.toList()));
+
+        // Nothing left to migrate
+        assertEquals(0, managerIdMigration.migrate());
+    }
+
+    @Test
+    public void testSeedDataMigrated() throws MindexException {
+        // Paul McCartney reports to John Lennon in the seed data
+        List<Employee> chain = employeeService.findChainOfCommand("b7839309-3348-463b-a7e3-5de1c168beb3");
+        assertEquals(Arrays.asList("16a596ae-edd3-4847-99fe-c4518e82c86f"),
+                chain.stream().map(Employee::getEmployeeId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testManagerIndex() {
+        assertTrue(mongoTemplate.indexOps(Employee.class).getIndexInfo().stream()
+                .anyMatch(index -> index.getName().equals("manager")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.mindex.challenge;
+
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class MongoIndexesTest {
+
+    @Autowired
+    private MongoIndexes mongoIndexes;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testEmployeeIndexes() {
+        // Nothing on the fields of the employees held as direct reports
+        assertEquals(Map.of("_id_", "_id", "direct_reports", "directReports", "manager", "managerId"),
+                indexes(Employee.class));
+    }
+
+    @Test
+    public void testCompensationIndexes() {
+        assertEquals(Map.of("_id_", "_id", "employee_effective_date", "employeeId,effectiveDate"),
+                indexes(CompensationRecord.class));
+    }
+
+    @Test
+    public void testInitAgain() {
+        // As on a restart against a store that kept its indexes
+        mongoIndexes.init();
+        assertEquals(3, indexes(Employee.class).size());
+        assertEquals(2, indexes(CompensationRecord.class).size());
+    }
+
+    /**
+     * @return The fields of each index of the collection, by index name
+     */
+    private Map<String, String> indexes(Class<?> entityClass) {
+        return mongoTemplate.indexOps(entityClass).getIndexInfo().stream()
+                .collect(Collectors.toMap(index -> index.getName(), index -> index.getIndexFields().stream()
+                        .map(IndexField::getKey).collect(Collectors.joining(","))));
+    }
+}
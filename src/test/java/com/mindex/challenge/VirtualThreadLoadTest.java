@@ -0,0 +1,90 @@
+package com.mindex.challenge;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.load.LatencyHistogram;
+import com.mindex.challenge.load.LoadDriver;
+import com.mindex.challenge.load.LoadDriver.Operation;
+import com.mindex.challenge.load.LoadTests;
+import com.mindex.challenge.load.LoadReport;
+import com.mindex.challenge.load.OrgChart;
+import com.mindex.challenge.load.OrgChartGenerator;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares throughput and p99 latency of employee reads and reporting
+ * structure requests served on Tomcat's platform thread pool against virtual
+ * threads. Each mode gets its own application, loaded with the same generated
+ * org chart, and the same number of concurrent clients. The size of the run
+ * can be set with the loadtest.size, loadtest.requests and
+ * loadtest.concurrency system properties. Runs with ./gradlew loadTest.
+ */
+@Slf4j
+@Category(LoadTests.class)
+public class VirtualThreadLoadTest {
+
+    private static final int SIZE = Integer.getInteger("loadtest.size", 10_000);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 4000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+    private static final int WARMUP_REQUESTS = 500;
+
+    @BeforeClass
+    public static void requireVirtualThreads() {
+        Assume.assumeTrue("Virtual threads need Java 21 or later", Runtime.version().feature() >= 21);
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(SIZE);
+        generator.setFanOut(8);
+        generator.setSkew(0.5);
+
+        List<String> results = new ArrayList<>();
+        for (boolean virtual : new boolean[] {false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ChallengeApplication.class)
+                    .properties("server.port=0", "spring.threads.virtual.enabled=" + virtual,
+                            "logging.level.com.mindex=INFO")
+                    .run()) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+                // The generator's seed is kept, so both modes get the same org chart
+                OrgChart chart = generator.load(context.getBean(EmployeeRepository.class),
+                        context.getBean(CompensationRepository.class));
+                context.getBeanProvider(OrgGraphIndex.class).ifAvailable(OrgGraphIndex::init);
+                LoadDriver driver = new LoadDriver(port, chart);
+
+                for (Operation operation : new Operation[] {Operation.READ, Operation.REPORTING_STRUCTURE}) {
+                    Map<Operation, Integer> mix = Map.of(operation, 1);
+                    driver.run(mix, WARMUP_REQUESTS, CONCURRENCY);
+
+                    LoadReport report = driver.run(mix, REQUESTS, CONCURRENCY);
+                    assertEquals(0, report.getErrors());
+                    LatencyHistogram histogram = report.getHistogram(operation);
+                    results.add(String.format("%-8s %-20s %8.0f req/s  p50 %6.2f ms  p99 %6.2f ms",
+                            virtual ? "virtual" : "platform", operation, report.getThroughput(),
+                            histogram.percentileMillis(50), histogram.percentileMillis(99)));
+                }
+            }
+        }
+
+        log.info("{} requests per operation from {} concurrent clients on {} employees\n{}", REQUESTS, CONCURRENCY,
+                SIZE, String.join("\n", results));
+    }
+}
@@ -0,0 +1,82 @@
+package com.mindex.challenge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Checks that requests are handled on virtual threads when
+ * spring.threads.virtual.enabled is set. Skipped before Java 21.
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = "spring.threads.virtual.enabled=true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class VirtualThreadTest {
+
+    private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    private static final AtomicReference<Thread> handlerThread = new AtomicReference<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @BeforeClass
+    public static void requireVirtualThreads() {
+        Assume.assumeTrue("Virtual threads need Java 21 or later", Runtime.version().feature() >= 21);
+    }
+
+    @Test
+    public void testHandlerThreadIsVirtual() throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:" + port + "/employee/{id}",
+                String.class, JOHN_LENNON_ID);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        Thread thread = handlerThread.get();
+        assertNotNull(thread);
+        // Thread.isVirtual is not in the Java 17 API the build compiles against
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread), thread.toString());
+    }
+
+    @TestConfiguration
+    static class HandlerThreadConfig {
+
+        @Bean
+        OncePerRequestFilter handlerThreadFilter() {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                        FilterChain chain) throws ServletException, IOException {
+                    handlerThread.set(Thread.currentThread());
+                    chain.doFilter(request, response);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.mindex.challenge.config;
+
+import static org.junit.Assert.assertEquals;
+
+import org.bson.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mongodb.client.MongoClient;
+
+public class MongoConfigTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testH2BackendSurvivesRestart() {
+        String file = folder.getRoot().toPath().resolve("employees.mv").toString();
+
+        MongoConfig first = mongoConfig(MongoBackendType.H2, file);
+        try (MongoClient client = first.mongoClient()) {
+            client.getDatabase("test").getCollection("employee").insertOne(new Document("_id", "1").append("firstName", "John"));
+        }
+        first.destroy();
+
+        MongoConfig second = mongoConfig(MongoBackendType.H2, file);
+        try (MongoClient client = second.mongoClient()) {
+            assertEquals(1, client.getDatabase("test").getCollection("employee").countDocuments());
+        }
+        second.destroy();
+    }
+
+    @Test
+    public void testMemoryBackendStartsEmpty() {
+        MongoConfig first = mongoConfig(MongoBackendType.MEMORY, null);
+        try (MongoClient client = first.mongoClient()) {
+            client.getDatabase("test").getCollection("employee").insertOne(new Document("_id", "1"));
+        }
+        first.destroy();
+
+        MongoConfig second = mongoConfig(MongoBackendType.MEMORY, null);
+        try (MongoClient client = second.mongoClient()) {
+            assertEquals(0, client.getDatabase("test").getCollection("employee").countDocuments());
+        }
+        second.destroy();
+    }
+
+    private static MongoConfig mongoConfig(MongoBackendType backend, String h2File) {
+        MongoConfig mongoConfig = new MongoConfig();
+        ReflectionTestUtils.setField(mongoConfig, "backend", backend);
+        ReflectionTestUtils.setField(mongoConfig, "databaseName", "test");
+        ReflectionTestUtils.setField(mongoConfig, "h2File", h2File);
+        ReflectionTestUtils.setField(mongoConfig, "environment", new MockEnvironment().withProperty("mongo.h2.pool.max-size", "5"));
+        ReflectionTestUtils.setField(mongoConfig, "customizers",
+                new StaticListableBeanFactory().getBeanProvider(MongoClientSettingsBuilderCustomizer.class));
+        return mongoConfig;
+    }
+}
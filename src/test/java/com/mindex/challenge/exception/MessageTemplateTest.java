@@ -0,0 +1,47 @@
+package com.mindex.challenge.exception;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class MessageTemplateTest {
+
+    @Test
+    public void testFormat() {
+        MessageTemplate template = MessageTemplate.of("Employee IDs %ids% were not found while creating %name%.");
+
+        assertEquals(2, template.placeholders());
+        assertEquals("Employee IDs [1, 2] were not found while creating John.",
+                template.format(Arrays.asList("1", "2"), "John"));
+        assertEquals("Employee IDs null were not found while creating $1\\.",
+                template.format(null, "$1\\"));
+    }
+
+    @Test
+    public void testFormat_NoPlaceholders() {
+        MessageTemplate template = MessageTemplate.of("Employee ID must be specified. 100%");
+
+        assertEquals(0, template.placeholders());
+        assertEquals("Employee ID must be specified. 100%", template.format());
+    }
+
+    @Test
+    public void testFormat_PlaceholderAtEnds() {
+        assertEquals("1 to 2", MessageTemplate.of("%from% to %to%").format(1, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFormat_WrongNumberOfValues() {
+        MessageTemplate.of("Employee %id% does not exist").format();
+    }
+
+    @Test
+    public void testStackless() {
+        MindexException exception = new EmployeeDoesNotExistsException("Employee for employee ID 1 does not exists.");
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals("Employee for employee ID 1 does not exists.", exception.getMessage());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mindex.challenge.load;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of request latencies in microseconds. Every power of two
+ * is split into eight buckets, so a percentile is within 12.5% of the latency
+ * that was recorded.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final LongAdder[] buckets = new LongAdder[64 * SUB_BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos, boolean error) {
+        long micros = nanos / 1000;
+        buckets[bucket(micros)].increment();
+        count.increment();
+        max.accumulate(micros);
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getMaxMillis() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * @param percentile - Between 0 and 100
+     * @return The upper bound of the bucket holding the percentile, in ms
+     */
+    public double percentileMillis(double percentile) {
+        long target = (long) Math.ceil(percentile / 100 * getCount());
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= Math.max(1, target)) {
+                return Math.min(lowerBound(i + 1), max.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Renders the counts a power of two at a time, one line per range that
+     * has any requests.
+     */
+    public String render() {
+        long total = Math.max(1, getCount());
+        StringBuilder histogram = new StringBuilder();
+        for (int octave = 0; octave < 64; octave++) {
+            long inOctave = 0;
+            for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                inOctave += buckets[octave * SUB_BUCKETS + sub].sum();
+            }
+            if (inOctave > 0) {
+                long from = lowerBound(octave * SUB_BUCKETS);
+                long to = lowerBound((octave + 1) * SUB_BUCKETS);
+                histogram.append(String.format("  %9.3f - %9.3f ms %8d %s%n", from / 1000.0, to / 1000.0, inOctave,
+                        "#".repeat((int) (50 * inOctave / total))));
+            }
+        }
+        return histogram.toString();
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (octave - SUB_BUCKET_BITS);
+    }
+}
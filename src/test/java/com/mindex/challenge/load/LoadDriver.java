@@ -0,0 +1,132 @@
+package com.mindex.challenge.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a weighted mix of requests against a running application, on the
+ * employees of an org chart loaded into it, and records the latency of every
+ * request by operation. Nothing but the application is needed.
+ */
+public class LoadDriver {
+
+    public enum Operation {
+        READ,
+        REPORTING_STRUCTURE,
+        ADD_COMPENSATION,
+        CREATE
+    }
+
+    /**
+     * Mostly reads, with some reporting structure requests and writes.
+     */
+    public static final Map<Operation, Integer> MIXED = Map.of(Operation.READ, 70, Operation.REPORTING_STRUCTURE, 15,
+            Operation.ADD_COMPENSATION, 10, Operation.CREATE, 5);
+
+    // Compensation added by the driver is after any generated history
+    private static final LocalDate FIRST_ADDED_COMPENSATION = LocalDate.of(2200, 1, 1);
+
+    private final URI baseUri;
+    private final OrgChart chart;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicLong compensationDays = new AtomicLong();
+
+    public LoadDriver(URI baseUri, OrgChart chart) {
+        this.baseUri = baseUri;
+        this.chart = chart;
+    }
+
+    public LoadDriver(int port, OrgChart chart) {
+        this(URI.create("http://localhost:" + port), chart);
+    }
+
+    /**
+     * Sends the requests from concurrency clients at once, each picking the
+     * next operation at random by its weight in the mix.
+     *
+     * @param mix - The weight of every operation to send
+     * @return Throughput and latencies of the run
+     */
+    public LoadReport run(Map<Operation, Integer> mix, int requests, int concurrency) throws Exception {
+        Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+        mix.keySet().forEach(operation -> histograms.put(operation, new LatencyHistogram()));
+        Operation[] operations = weighted(mix);
+
+        AtomicInteger remaining = new AtomicInteger(requests);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            Future<?>[] workers = new Future<?>[concurrency];
+            for (int c = 0; c < concurrency; c++) {
+                Random random = new Random(c);
+                workers[c] = clients.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        Operation operation = operations[random.nextInt(operations.length)];
+                        HttpRequest request = request(operation, random);
+
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        histograms.get(operation).record(System.nanoTime() - sent, response.statusCode() != 200);
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+
+            return new LoadReport(requests, concurrency, System.nanoTime() - start, histograms);
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        switch (operation) {
+            case READ:
+                return get("/employee/" + chart.randomEmployeeId(random));
+            case REPORTING_STRUCTURE:
+                return get("/reportingStructure/" + chart.randomManagerId(random));
+            case ADD_COMPENSATION:
+                LocalDate effectiveDate = FIRST_ADDED_COMPENSATION.plusDays(compensationDays.getAndIncrement());
+                return post("/compensation/add/" + chart.randomEmployeeId(random),
+                        "{\"salary\":" + (50_000 + random.nextInt(100_000)) + ",\"effectiveDate\":\"" + effectiveDate + "\"}");
+            case CREATE:
+                return post("/employee", "{\"firstName\":\"Load\",\"lastName\":\"Driver\",\"department\":\"Load\"}");
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    /**
+     * @return Every operation repeated by its weight, to pick from uniformly
+     */
+    private static Operation[] weighted(Map<Operation, Integer> mix) {
+        return mix.entrySet().stream()
+                .flatMap(entry -> Collections.nCopies(entry.getValue(), entry.getKey()).stream())
+                .toArray(Operation[]::new);
+    }
+}
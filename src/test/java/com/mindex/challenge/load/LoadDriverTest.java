@@ -0,0 +1,73 @@
+package com.mindex.challenge.load;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.service.EmployeeService;
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replays the mixed workload against a generated org chart. The size of the
+ * run can be set with the loadtest.size, loadtest.requests and
+ * loadtest.concurrency system properties.
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = "logging.level.com.mindex=INFO")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LoadDriverTest {
+
+    private static final int SIZE = Integer.getInteger("loadtest.size", 2000);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private CompensationRepository compensationRepository;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    // Only present when reporting.engine is index
+    @Autowired(required = false)
+    private OrgGraphIndex orgGraphIndex;
+
+    @Test
+    public void testMixedWorkload() throws Exception {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(SIZE);
+        generator.setFanOut(8);
+        generator.setSkew(0.5);
+        generator.setCompensationHistory(12);
+        OrgChart chart = generator.load(employeeRepository, compensationRepository);
+
+        // The index is built at startup, before the chart was inserted
+        if (orgGraphIndex != null) {
+            orgGraphIndex.init();
+        }
+        assertEquals(SIZE - 1, (int) employeeService.findReportingStructure(chart.getRootId()).getNumberOfReports());
+
+        LoadReport report = new LoadDriver(port, chart).run(LoadDriver.MIXED, REQUESTS, CONCURRENCY);
+        log.info("Mixed workload on {} employees\n{}", SIZE, report);
+
+        assertEquals(0, report.getErrors());
+        assertEquals(REQUESTS, LoadDriver.MIXED.keySet().stream()
+                .mapToLong(operation -> report.getHistogram(operation).getCount()).sum());
+    }
+}
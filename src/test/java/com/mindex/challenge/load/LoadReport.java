@@ -0,0 +1,54 @@
+package com.mindex.challenge.load;
+
+import java.util.Map;
+
+/**
+ * Throughput and latency of one run of the {@link LoadDriver}, by operation.
+ */
+public class LoadReport {
+
+    private final int requests;
+    private final int concurrency;
+    private final long elapsedNanos;
+    private final Map<LoadDriver.Operation, LatencyHistogram> histograms;
+
+    LoadReport(int requests, int concurrency, long elapsedNanos, Map<LoadDriver.Operation, LatencyHistogram> histograms) {
+        this.requests = requests;
+        this.concurrency = concurrency;
+        this.elapsedNanos = elapsedNanos;
+        this.histograms = histograms;
+    }
+
+    public double getThroughput() {
+        return requests / (elapsedNanos / 1e9);
+    }
+
+    public long getErrors() {
+        return histograms.values().stream().mapToLong(LatencyHistogram::getErrors).sum();
+    }
+
+    public LatencyHistogram getHistogram(LoadDriver.Operation operation) {
+        return histograms.get(operation);
+    }
+
+    /**
+     * @return One line of percentiles per operation
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format("%d requests from %d clients: %.0f req/s, %d errors%n",
+                requests, concurrency, getThroughput(), getErrors()));
+        histograms.forEach((operation, histogram) -> summary.append(String.format(
+                "  %-20s %7d requests  p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n", operation,
+                histogram.getCount(), histogram.percentileMillis(50), histogram.percentileMillis(90),
+                histogram.percentileMillis(99), histogram.getMaxMillis())));
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(summary());
+        histograms.forEach((operation, histogram) -> report.append(operation).append(System.lineSeparator())
+                .append(histogram.render()));
+        return report.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package com.mindex.challenge.load;
+
+/**
+ * JUnit category for tests that start the whole application and drive it with
+ * thousands of requests. They are left out of {@code ./gradlew test} and run
+ * with {@code ./gradlew loadTest}.
+ */
+public interface LoadTests {
+}
@@ -0,0 +1,66 @@
+package com.mindex.challenge.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The employee IDs of a generated org chart, for picking the employees a test
+ * or load run works on.
+ */
+public class OrgChart {
+
+    private final List<String> employeeIds;
+    private final List<String> managerIds = new ArrayList<>();
+    private int depth;
+
+    OrgChart(int size) {
+        employeeIds = new ArrayList<>(size);
+    }
+
+    void add(String employeeId, int level) {
+        employeeIds.add(employeeId);
+        depth = Math.max(depth, level);
+    }
+
+    void addManager(String employeeId) {
+        managerIds.add(employeeId);
+    }
+
+    public String getRootId() {
+        return employeeIds.get(0);
+    }
+
+    /**
+     * @return Every employee ID, the root first and then level by level
+     */
+    public List<String> getEmployeeIds() {
+        return employeeIds;
+    }
+
+    /**
+     * @return The IDs of every employee with direct reports
+     */
+    public List<String> getManagerIds() {
+        return managerIds;
+    }
+
+    public int size() {
+        return employeeIds.size();
+    }
+
+    /**
+     * @return The number of levels below the root
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public String randomEmployeeId(Random random) {
+        return employeeIds.get(random.nextInt(employeeIds.size()));
+    }
+
+    public String randomManagerId(Random random) {
+        return managerIds.get(random.nextInt(managerIds.size()));
+    }
+}
@@ -0,0 +1,228 @@
+package com.mindex.challenge.load;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+
+import lombok.Data;
+
+/**
+ * Generates org charts for tests, load tests and benchmarks. The chart is built
+ * a level at a time from a single root:
+ * <ul>
+ * <li>size - the number of employees, the chart always has exactly this many</li>
+ * <li>fanOut - the average number of direct reports of a manager</li>
+ * <li>maxDepth - the number of levels below the root. Once reached, the
+ * employees left over are spread over the managers of the last level</li>
+ * <li>skew - 0 gives every manager fanOut direct reports. Towards 1 the counts
+ * follow a Pareto distribution with the same average, a few very wide managers
+ * and many narrow ones</li>
+ * <li>managerShare - the share of each manager's direct reports who have
+ * reports of their own, rounded up, the rest are leaves</li>
+ * <li>compensationHistory - the number of monthly compensation records of
+ * every employee</li>
+ * </ul>
+ * Employee IDs and report counts come from the seed, random unless set, so
+ * the same seed and settings always generate the same chart. Direct reports are stored as ID-only
+ * references, the same as the seed data, and every employee but the root has
+ * its managerId set, as create and update keep it. The root's direct reports are spread
+ * over ten departments and everyone below them is in their department.
+ */
+@Data
+public class OrgChartGenerator {
+
+    public static final LocalDate FIRST_EFFECTIVE_DATE = LocalDate.of(2000, 1, 1);
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int DEPARTMENTS = 10;
+
+    private int size = 1000;
+    private int fanOut = 10;
+    private int maxDepth = Integer.MAX_VALUE;
+    private double skew;
+    private double managerShare = 1.0;
+    private int compensationHistory;
+    private long seed = new Random().nextLong();
+
+    /**
+     * @return A generator with everyone reporting straight to the root
+     */
+    public static OrgChartGenerator wide(int size) {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(size);
+        generator.setFanOut(Math.max(1, size - 1));
+        generator.setMaxDepth(1);
+        return generator;
+    }
+
+    /**
+     * @return A generator for a chain of managers, each with one manager and
+     *         fanOut - 1 leaves below it
+     */
+    public static OrgChartGenerator deep(int size, int fanOut) {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(size);
+        generator.setFanOut(fanOut);
+        generator.setManagerShare(1.0 / fanOut);
+        return generator;
+    }
+
+    /**
+     * @return A generator where every manager has fanOut direct reports
+     */
+    public static OrgChartGenerator balanced(int size, int fanOut) {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(size);
+        generator.setFanOut(fanOut);
+        return generator;
+    }
+
+    /**
+     * Generates the chart and inserts it in batches through the repositories,
+     * into whichever backend the application is configured with.
+     */
+    public OrgChart load(EmployeeRepository employeeRepository, CompensationRepository compensationRepository) {
+        return generate(employees -> insert(employees, employeeRepository::insert),
+                records -> insert(records, compensationRepository::insert));
+    }
+
+    /**
+     * Generates the chart without keeping it, handing each batch of employees
+     * to the consumer once their direct reports are set, so large charts can be
+     * inserted as they are generated.
+     *
+     * @param employees    - Receives every employee exactly once
+     * @param compensation - Receives the compensation history of the employees
+     * @return The IDs of the generated employees
+     */
+    public OrgChart generate(Consumer<List<Employee>> employees, Consumer<List<CompensationRecord>> compensation) {
+        if (size < 1 || fanOut < 1 || maxDepth < 1 || skew < 0 || skew >= 1 || managerShare <= 0 || managerShare > 1) {
+            throw new IllegalArgumentException("Invalid org chart settings " + this);
+        }
+
+        Random random = new Random(seed);
+        OrgChart chart = new OrgChart(size);
+
+        Employee root = newEmployee(random, 0, "Executive");
+        chart.add(root.getEmployeeId(), 0);
+
+        List<Employee> managers = List.of(root);
+        for (int depth = 1; !managers.isEmpty(); depth++) {
+            boolean lastLevel = depth == maxDepth;
+            int[] reportCounts = reportCounts(random, managers.size(), size - chart.size(), lastLevel);
+
+            List<Employee> nextManagers = new ArrayList<>();
+            List<Employee> leaves = new ArrayList<>();
+            for (int m = 0; m < managers.size(); m++) {
+                Employee manager = managers.get(m);
+                List<Employee> references = new ArrayList<>(reportCounts[m]);
+                int managerCount = lastLevel ? 0 : (int) Math.ceil(reportCounts[m] * managerShare);
+
+                for (int i = 0; i < reportCounts[m]; i++) {
+                    Employee directReport = newEmployee(random, depth,
+                            depth == 1 ? "Department " + i % DEPARTMENTS : manager.getDepartment());
+                    directReport.setManagerId(manager.getEmployeeId());
+                    references.add(reference(directReport));
+                    chart.add(directReport.getEmployeeId(), depth);
+
+                    if (i < managerCount) {
+                        nextManagers.add(directReport);
+                    } else {
+                        leaves.add(directReport);
+                    }
+                }
+                if (!references.isEmpty()) {
+                    manager.setDirectReports(references);
+                    manager.setPosition("Manager");
+                    chart.addManager(manager.getEmployeeId());
+                }
+            }
+
+            emit(random, managers, employees, compensation);
+            emit(random, leaves, employees, compensation);
+            managers = nextManagers;
+        }
+
+        return chart;
+    }
+
+    /**
+     * Draws the number of direct reports of every manager on a level, never more
+     * than the employees left. Every manager gets at least one so the chart keeps
+     * growing, and on the last level every employee left is handed out.
+     */
+    private int[] reportCounts(Random random, int managers, int remaining, boolean lastLevel) {
+        int[] counts = new int[managers];
+        for (int m = 0; m < managers && remaining > 0; m++) {
+            // The Pareto draw has a mean of 1 / (1 - skew), scaled back to fanOut
+            double draw = fanOut * (1 - skew) / Math.pow(1 - random.nextDouble(), skew);
+            counts[m] = (int) Math.min(remaining, Math.max(1, Math.round(draw)));
+            remaining -= counts[m];
+        }
+        for (int m = 0; lastLevel && remaining > 0; m = (m + 1) % managers) {
+            counts[m]++;
+            remaining--;
+        }
+        return counts;
+    }
+
+    private void emit(Random random, List<Employee> batch, Consumer<List<Employee>> employees,
+            Consumer<List<CompensationRecord>> compensation) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        employees.accept(batch);
+
+        if (compensationHistory > 0) {
+            List<CompensationRecord> records = new ArrayList<>(batch.size() * compensationHistory);
+            for (Employee employee : batch) {
+                BigDecimal salary = BigDecimal.valueOf(40_000 + random.nextInt(80_000));
+                for (int month = 0; month < compensationHistory; month++) {
+                    Compensation comp = new Compensation();
+                    comp.setSalary(salary);
+                    comp.setEffectiveDate(FIRST_EFFECTIVE_DATE.plusMonths(month));
+                    records.add(CompensationRecord.of(employee.getEmployeeId(), comp));
+
+                    // Raises of up to 5% a month
+                    salary = salary.add(BigDecimal.valueOf(salary.longValue() * random.nextInt(6) / 100));
+                }
+            }
+            compensation.accept(records);
+        }
+    }
+
+    private static <T> void insert(List<T> items, Consumer<List<T>> insert) {
+        for (int from = 0; from < items.size(); from += INSERT_BATCH_SIZE) {
+            insert.accept(items.subList(from, Math.min(items.size(), from + INSERT_BATCH_SIZE)));
+        }
+    }
+
+    private static Employee newEmployee(Random random, int level, String department) {
+        Employee employee = new Employee();
+        employee.setEmployeeId(new UUID(random.nextLong(), random.nextLong()).toString());
+        employee.setFirstName("Generated");
+        employee.setLastName("Level " + level);
+        employee.setPosition("Engineer");
+        employee.setDepartment(department);
+        return employee;
+    }
+
+    /**
+     * @return An ID-only copy of the employee, as stored in direct reports
+     */
+    public static Employee reference(Employee employee) {
+        Employee reference = new Employee();
+        reference.setEmployeeId(employee.getEmployeeId());
+        return reference;
+    }
+}
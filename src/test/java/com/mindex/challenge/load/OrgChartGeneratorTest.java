@@ -0,0 +1,115 @@
+package com.mindex.challenge.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+
+public class OrgChartGeneratorTest {
+
+    @Test
+    public void testBalanced() {
+        List<Employee> employees = new ArrayList<>();
+        OrgChart chart = OrgChartGenerator.balanced(1111, 10).generate(employees::addAll, records -> {});
+
+        assertChart(chart, employees, 1111);
+        assertEquals(3, chart.getDepth());
+        assertEquals(111, chart.getManagerIds().size());
+        assertEquals(10, reports(employees, chart.getRootId()).size());
+    }
+
+    @Test
+    public void testWide() {
+        List<Employee> employees = new ArrayList<>();
+        OrgChart chart = OrgChartGenerator.wide(500).generate(employees::addAll, records -> {});
+
+        assertChart(chart, employees, 500);
+        assertEquals(1, chart.getDepth());
+        assertEquals(499, reports(employees, chart.getRootId()).size());
+    }
+
+    @Test
+    public void testDeep() {
+        List<Employee> employees = new ArrayList<>();
+        OrgChart chart = OrgChartGenerator.deep(1000, 10).generate(employees::addAll, records -> {});
+
+        assertChart(chart, employees, 1000);
+        // One manager and nine leaves per level
+        assertEquals(100, chart.getDepth());
+    }
+
+    @Test
+    public void testSkewedWithDepthLimit() {
+        OrgChartGenerator generator = new OrgChartGenerator();
+        generator.setSize(5000);
+        generator.setFanOut(4);
+        generator.setSkew(0.8);
+        generator.setMaxDepth(3);
+        generator.setSeed(42);
+
+        List<Employee> employees = new ArrayList<>();
+        OrgChart chart = generator.generate(employees::addAll, records -> {});
+
+        assertChart(chart, employees, 5000);
+        assertEquals(3, chart.getDepth());
+
+        // The same seed always generates the same chart
+        OrgChart again = generator.generate(batch -> {}, records -> {});
+        assertEquals(chart.getEmployeeIds(), again.getEmployeeIds());
+    }
+
+    @Test
+    public void testCompensationHistory() {
+        OrgChartGenerator generator = OrgChartGenerator.balanced(100, 5);
+        generator.setCompensationHistory(12);
+
+        List<CompensationRecord> records = new ArrayList<>();
+        OrgChart chart = generator.generate(batch -> {}, records::addAll);
+
+        assertEquals(1200, records.size());
+        Map<String, List<CompensationRecord>> history = new HashMap<>();
+        records.forEach(record -> history.computeIfAbsent(record.getEmployeeId(), id -> new ArrayList<>()).add(record));
+        assertEquals(new HashSet<>(chart.getEmployeeIds()), history.keySet());
+
+        List<CompensationRecord> rootHistory = history.get(chart.getRootId());
+        assertEquals(OrgChartGenerator.FIRST_EFFECTIVE_DATE, rootHistory.get(0).getEffectiveDate());
+        assertEquals(OrgChartGenerator.FIRST_EFFECTIVE_DATE.plusMonths(11), rootHistory.get(11).getEffectiveDate());
+    }
+
+    /**
+     * Checks every employee was generated once and that the direct reports form
+     * a single tree under the root.
+     */
+    private static void assertChart(OrgChart chart, List<Employee> employees, int size) {
+        assertEquals(size, chart.size());
+        assertEquals(size, employees.size());
+
+        Set<String> ids = new HashSet<>();
+        employees.forEach(employee -> assertTrue(ids.add(employee.getEmployeeId())));
+        assertEquals(new HashSet<>(chart.getEmployeeIds()), ids);
+
+        Set<String> reported = new HashSet<>();
+        for (Employee employee : employees) {
+            if (employee.getDirectReports() != null) {
+                employee.getDirectReports().forEach(report -> assertTrue(reported.add(report.getEmployeeId())));
+            }
+        }
+        assertEquals(size - 1, reported.size());
+        assertTrue(!reported.contains(chart.getRootId()));
+    }
+
+    private static List<Employee> reports(List<Employee> employees, String employeeId) {
+        return employees.stream().filter(employee -> employee.getEmployeeId().equals(employeeId)).findFirst()
+                .get().getDirectReports();
+    }
+}
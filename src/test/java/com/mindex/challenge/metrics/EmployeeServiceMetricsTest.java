@@ -0,0 +1,75 @@
+package com.mindex.challenge.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mindex.challenge.data.Compensation;
+
+// Metrics export is turned off in tests unless asked for
+@AutoConfigureObservability
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeServiceMetricsTest {
+
+    private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testPrometheus() {
+        String baseUrl = "http://localhost:" + port;
+        restTemplate.getForEntity(baseUrl + "/employee/{id}", String.class, JOHN_LENNON_ID);
+        restTemplate.getForEntity(baseUrl + "/employee/{id}", String.class, JOHN_LENNON_ID);
+        restTemplate.getForEntity(baseUrl + "/reportingStructure/{id}", String.class, JOHN_LENNON_ID);
+
+        Compensation compensation = new Compensation();
+        compensation.setSalary(BigDecimal.TEN);
+        compensation.setEffectiveDate(LocalDate.now());
+        ResponseEntity<String> badId = restTemplate.postForEntity(baseUrl + "/compensation/add/{id}", compensation,
+                String.class, "does-not-exist");
+        assertEquals(HttpStatus.BAD_REQUEST, badId.getStatusCode());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String metrics = response.getBody();
+
+        // Service calls, with a latency histogram
+        assertContains(metrics, "employee_service_seconds_count{exception=\"none\",method=\"read\"");
+        assertContains(metrics, "employee_service_seconds_bucket{exception=\"none\",method=\"findReportingStructure\"");
+        assertContains(metrics, "employee_service_errors_total{exception=\"EmployeeDoesNotExistsException\",method=\"addCompensation\"");
+
+        // Repository calls and the Mongo commands behind them
+        assertContains(metrics, "spring_data_repository_invocations_seconds_bucket{");
+        assertContains(metrics, "mongodb_driver_commands_seconds_count{");
+
+        // The reporting structure traversal and the employee cache
+        assertContains(metrics, "reporting_structure_nodes_count{engine=\"bfs\"");
+        assertContains(metrics, "reporting_structure_round_trips_sum{engine=\"bfs\"");
+        assertContains(metrics, "cache_gets_total{cache=\"employee\",result=\"hit\"");
+        assertContains(metrics, "cache_size{cache=\"employee\"");
+    }
+
+    private static void assertContains(String metrics, String expected) {
+        assertTrue(metrics.contains(expected), () -> "Missing " + expected);
+    }
+}
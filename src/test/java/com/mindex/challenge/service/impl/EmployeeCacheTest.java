@@ -0,0 +1,111 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.mindex.challenge.data.CacheStatistics;
+import com.mindex.challenge.data.Employee;
+
+public class EmployeeCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	public void testHitAndMiss()
+	{
+		EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(5));
+
+		Employee first = employeeCache.get("1", this::load);
+		assertSame(first, employeeCache.get("1", this::load));
+		assertEquals(1, loads.get());
+
+		CacheStatistics statistics = employeeCache.getStatistics();
+		assertEquals(1L, statistics.getHits());
+		assertEquals(1L, statistics.getMisses());
+		assertEquals(1, statistics.getSize());
+	}
+
+	@Test
+	public void testMissingNotCached()
+	{
+		EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(5));
+
+		assertNull(employeeCache.get("1", id -> null));
+		assertNull(employeeCache.get("1", id -> null));
+		assertEquals(0, employeeCache.getStatistics().getSize());
+		assertEquals(2L, employeeCache.getStatistics().getMisses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction()
+	{
+		EmployeeCache employeeCache = new EmployeeCache(2, Duration.ofMinutes(5));
+
+		employeeCache.get("1", this::load);
+		employeeCache.get("2", this::load);
+		// Touch 1 so 2 is the least recently used
+		employeeCache.get("1", this::load);
+		employeeCache.get("3", this::load);
+
+		assertEquals(1L, employeeCache.getStatistics().getEvictions());
+		assertEquals(3, loads.get());
+
+		employeeCache.get("1", this::load);
+		assertEquals(3, loads.get());
+		employeeCache.get("2", this::load);
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void testExpiry() throws InterruptedException
+	{
+		EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMillis(1));
+
+		employeeCache.get("1", this::load);
+		Thread.sleep(5);
+		employeeCache.get("1", this::load);
+
+		assertEquals(2, loads.get());
+		assertEquals(1L, employeeCache.getStatistics().getExpirations());
+	}
+
+	@Test
+	public void testInvalidate()
+	{
+		EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(5));
+
+		employeeCache.get("1", this::load);
+		employeeCache.invalidate("1");
+		employeeCache.get("1", this::load);
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testWriteDuringLoadNotCached()
+	{
+		EmployeeCache employeeCache = new EmployeeCache(10, Duration.ofMinutes(5));
+
+		// The employee is written while it is being loaded, so the loaded copy may be stale
+		employeeCache.get("1", id -> {
+			employeeCache.invalidate(id);
+			return load(id);
+		});
+
+		assertEquals(0, employeeCache.getStatistics().getSize());
+	}
+
+	private Employee load(String employeeId)
+	{
+		loads.incrementAndGet();
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		return employee;
+	}
+}
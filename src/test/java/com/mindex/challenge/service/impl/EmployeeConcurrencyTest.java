@@ -0,0 +1,191 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.MindexException;
+import com.mindex.challenge.service.EmployeeService;
+
+/**
+ * Hammers a single employee with writes from many threads at once and checks
+ * that every write that reported success is stored, and nothing else is.
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest
+public class EmployeeConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int WRITES_PER_THREAD = 10;
+
+	// The latest compensation a rejected add names
+	private static final Pattern LATEST_DATE = Pattern
+			.compile("Latest compensation Compensation\\(salary=[^,]*, effectiveDate=([0-9-]+)\\)");
+
+	@Autowired
+	private EmployeeService employeeService;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setup()
+	{
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testAddCompensation_NoLostAdds() throws Exception
+	{
+		String employeeId = createEmployee("0").getEmployeeId();
+		LocalDate start = LocalDate.of(2000, 1, 1);
+		AtomicInteger nextDay = new AtomicInteger();
+
+		Set<LocalDate> added = new ConcurrentSkipListSet<>();
+		Set<LocalDate> rejectedAgainst = new ConcurrentSkipListSet<>();
+		AtomicInteger inPast = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+
+		runConcurrently(() -> {
+			for (int i = 0; i < WRITES_PER_THREAD; i++)
+			{
+				Compensation compensation = new Compensation();
+				compensation.setSalary(BigDecimal.TEN);
+				compensation.setEffectiveDate(start.plusDays(nextDay.incrementAndGet()));
+				try
+				{
+					employeeService.addCompensation(employeeId, compensation);
+					added.add(compensation.getEffectiveDate());
+				}
+				catch (CompensationCanNotBeInPastException inPastException)
+				{
+					// A later date was added first
+					inPast.incrementAndGet();
+					Matcher latest = LATEST_DATE.matcher(inPastException.getMessage());
+					assertTrue(inPastException.getMessage(), latest.find());
+					rejectedAgainst.add(LocalDate.parse(latest.group(1)));
+				}
+				catch (EmployeeVersionConflictException vce)
+				{
+					conflicts.incrementAndGet();
+				}
+			}
+			return null;
+		});
+
+		assertEquals(THREADS * WRITES_PER_THREAD, added.size() + inPast.get() + conflicts.get());
+		assertTrue(added.size() > 0);
+
+		// Exactly the adds that succeeded are stored, in the order they were accepted
+		Employee employee = employeeService.read(employeeId);
+		List<LocalDate> history = employee.getCompensation().stream().map(Compensation::getEffectiveDate)
+				.collect(Collectors.toList());
+		assertEquals(new ArrayList<>(added), history);
+		// Every add was rejected against compensation that was kept, never one that lost its own race
+		assertTrue(history.containsAll(rejectedAgainst));
+		assertEquals(Long.valueOf(added.size()), employee.getVersion());
+	}
+
+	@Test
+	public void testUpdate_NoLostUpdates() throws Exception
+	{
+		String employeeId = createEmployee("0").getEmployeeId();
+		AtomicInteger conflicts = new AtomicInteger();
+
+		// Each write reads the counter held in the position and saves it plus one, again on a conflict
+		runConcurrently(() -> {
+			for (int i = 0; i < WRITES_PER_THREAD; i++)
+			{
+				while (true)
+				{
+					Employee current = employeeService.read(employeeId);
+					Employee employee = new Employee();
+					employee.setEmployeeId(employeeId);
+					employee.setFirstName(current.getFirstName());
+					employee.setPosition(String.valueOf(Integer.parseInt(current.getPosition()) + 1));
+					employee.setVersion(current.getVersion());
+					try
+					{
+						employeeService.update(employeeId, employee);
+						break;
+					}
+					catch (EmployeeVersionConflictException vce)
+					{
+						conflicts.incrementAndGet();
+					}
+				}
+			}
+			return null;
+		});
+
+		Employee employee = employeeService.read(employeeId);
+		assertEquals(String.valueOf(THREADS * WRITES_PER_THREAD), employee.getPosition());
+		assertEquals(Long.valueOf(THREADS * WRITES_PER_THREAD), employee.getVersion());
+	}
+
+	private Employee createEmployee(String position) throws MindexException
+	{
+		Employee employee = new Employee();
+		employee.setFirstName("Concurrent");
+		employee.setPosition(position);
+		return employeeService.create(employee);
+	}
+
+	/**
+	 * Starts the task on every thread at the same moment and waits for all of
+	 * them, rethrowing the first failure.
+	 */
+	private void runConcurrently(Callable<Void> task) throws Exception
+	{
+		CountDownLatch ready = new CountDownLatch(1);
+		List<Future<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++)
+		{
+			futures.add(executor.submit(() -> {
+				ready.await();
+				return task.call();
+			}));
+		}
+		ready.countDown();
+
+		for (Future<Void> future : futures)
+		{
+			future.get(2, TimeUnit.MINUTES);
+		}
+	}
+}
@@ -1,466 +1,1277 @@
-package com.mindex.challenge.service.impl;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.junit.jupiter.api.Assertions.fail;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
-import org.apache.commons.collections4.CollectionUtils;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.test.context.TestPropertySource;
-
-import com.mindex.challenge.dao.EmployeeRepository;
-import com.mindex.challenge.data.Compensation;
-import com.mindex.challenge.data.Employee;
-import com.mindex.challenge.data.ReportingStructure;
-import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
-import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
-import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
-import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
-
-@RunWith(MockitoJUnitRunner.class)
-@TestPropertySource(locations = "classpath:application.properties")
-public class EmployeeServiceImplMockTest {
-    
-    @Mock
-    private EmployeeRepository employeeRepository;
-
-    @InjectMocks
-    private EmployeeServiceImpl employeeService;
-
-    @Test
-    public void testCreateReadUpdate() throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException {
-        Employee testEmployee = new Employee();
-        testEmployee.setFirstName("John");
-        testEmployee.setLastName("Doe");
-        testEmployee.setDepartment("Engineering");
-        testEmployee.setPosition("Developer");
-
-        Employee createdEmployee = employeeService.create(testEmployee);
-        
-
-        assertNotNull(createdEmployee.getEmployeeId());
-        assertEmployeeEquivalence(testEmployee, createdEmployee);
-        verify(employeeRepository, times(0)).findByEmployeeId(anyString());
-
-        // Read checks
-        when(employeeRepository.findByEmployeeId(anyString())).thenReturn(createdEmployee);
-        Employee readEmployee = employeeService.read(createdEmployee.getEmployeeId());
-        assertEquals(createdEmployee.getEmployeeId(), readEmployee.getEmployeeId());
-        assertEmployeeEquivalence(createdEmployee, readEmployee);
-        verify(employeeRepository, times(1)).findByEmployeeId(anyString());
-
-
-        // Update checks
-        readEmployee.setPosition("Development Manager");
-
-        when(employeeRepository.save(any())).thenReturn(readEmployee);
-        Employee updatedEmployee = employeeService.update(readEmployee.getEmployeeId(), readEmployee);
-        verify(employeeRepository, times(1)).save(any(Employee.class));
-        
-        assertEmployeeEquivalence(readEmployee, updatedEmployee);
-    }
-    
-    @Test
-    public void testReportingStructure_0_Reports()
-    {
-    	Employee employee = new Employee();
-    	employee.setDepartment("MOCK department");
-    	employee.setEmployeeId("1");
-    	employee.setFirstName("Bob");
-    	employee.setLastName("Newhart");
-    	employee.setDepartment("MOCK Department");
-    	
-    	when(employeeRepository.findByEmployeeId(employee.getEmployeeId())).thenReturn(employee);
-    	
-    	ReportingStructure reportingStructure = employeeService.findReportingStructure(employee.getEmployeeId());
-    	
-    	Employee reportingEmployee = reportingStructure.getEmployee();
-    	assertNotNull(reportingEmployee);
-    	assertEmployeeEquivalence(employee, reportingEmployee);
-    	
-    	assertEquals((Integer) 0, reportingStructure.getNumberOfReports());
-    	
-    	verify(employeeRepository, times(1)).findByEmployeeId(employee.getEmployeeId());
-    }
-    
-    @Test
-    public void testReportingStructure_SingleTier_Reports()
-    {
-    	Employee tier1Emp1 = new Employee();
-    	tier1Emp1.setDepartment("Tier 1");
-    	tier1Emp1.setEmployeeId("1");
-    	tier1Emp1.setFirstName("Macho");
-    	tier1Emp1.setLastName("Man");
-    	
-    	Employee tier2Emp1 = new Employee();
-    	tier2Emp1.setDepartment("Tier 2-1");
-    	tier2Emp1.setEmployeeId("2-1");
-    	tier2Emp1.setFirstName("Wimpy");
-    	tier2Emp1.setLastName("Wimpy");
-    	
-    	Employee tier2Emp2 = new Employee();
-    	tier2Emp2.setDepartment("Tier 2-2");
-    	tier2Emp2.setEmployeeId("2-2");
-    	tier2Emp2.setFirstName("Here's");
-    	tier2Emp2.setLastName("Waldo");
-    	
-    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1, tier2Emp2));
-    	
-    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
-    	when(employeeRepository.findByEmployeeId(tier2Emp1.getEmployeeId())).thenReturn(tier2Emp1);
-    	when(employeeRepository.findByEmployeeId(tier2Emp2.getEmployeeId())).thenReturn(tier2Emp2);
-    	
-    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
-    	assertNotNull(reportingStructure.getEmployee());
-    	Employee employee = reportingStructure.getEmployee();
-    	
-    	assertEmployeeEquivalence(tier1Emp1, employee);
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
-    	assertEquals((Integer) 2, reportingStructure.getNumberOfReports());
-    	
-    	verify(employeeRepository, times(3)).findByEmployeeId(any());
-    }
-    
-    @Test
-    public void testReportingStructure_MultipleTier_Reports()
-    {
-    	Employee tier1Emp1 = new Employee();
-    	tier1Emp1.setDepartment("Tier 1");
-    	tier1Emp1.setEmployeeId("1");
-    	tier1Emp1.setFirstName("Macho");
-    	tier1Emp1.setLastName("Man");
-    	
-    	Employee tier2Emp1 = new Employee();
-    	tier2Emp1.setDepartment("Tier 2-1");
-    	tier2Emp1.setEmployeeId("2-1");
-    	tier2Emp1.setFirstName("Wimpy");
-    	tier2Emp1.setLastName("Wimpy");
-    	
-    	Employee tier2Emp2 = new Employee();
-    	tier2Emp2.setDepartment("Tier 2-2");
-    	tier2Emp2.setEmployeeId("2-2");
-    	tier2Emp2.setFirstName("Here's");
-    	tier2Emp2.setLastName("Waldo");
-    	
-    	Employee tier3Emp1 = new Employee();
-    	tier3Emp1.setDepartment("Tier 3-1");
-    	tier3Emp1.setEmployeeId("3-1");
-    	tier3Emp1.setFirstName("Amilla");
-    	tier3Emp1.setLastName("Badilla");
-    	
-    	tier2Emp2.setDirectReports(Arrays.asList(tier3Emp1));
-    	
-    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1, tier2Emp2));
-    	
-    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
-    	when(employeeRepository.findByEmployeeId(tier2Emp1.getEmployeeId())).thenReturn(tier2Emp1);
-    	when(employeeRepository.findByEmployeeId(tier2Emp2.getEmployeeId())).thenReturn(tier2Emp2);
-    	
-    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
-    	assertNotNull(reportingStructure.getEmployee());
-    	Employee employee = reportingStructure.getEmployee();
-    	
-    	assertEmployeeEquivalence(tier1Emp1, employee);
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
-    	assertEquals((Integer) 3, reportingStructure.getNumberOfReports());
-    	
-    	verify(employeeRepository, times(3)).findByEmployeeId(any());
-    }
-    
-    @Test
-    public void testAddCompensation_FirstCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
-    {
-    	Employee emp = new Employee();
-    	emp.setDepartment("Tier 1");
-    	emp.setEmployeeId("1");
-    	emp.setFirstName("Macho");
-    	emp.setLastName("Man");
-    	
-    	Employee readEmp = new Employee();
-    	readEmp.setDepartment("Tier 1");
-    	readEmp.setEmployeeId("1");
-    	readEmp.setFirstName("Macho");
-    	readEmp.setLastName("Man");
-    	
-    	Compensation comp = new Compensation();
-    	comp.setEffectiveDate(LocalDate.now());
-    	comp.setSalary(BigDecimal.TEN);
-    	
-    	readEmp.setCompensation(Arrays.asList(comp));
-    	
-    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
-    	when(employeeRepository.save(any())).thenReturn(readEmp);
-    	Employee compEmployee = employeeService.addCompensation(emp.getEmployeeId(), comp);
-    	verify(employeeRepository, times(1)).findByEmployeeId(anyString());
-    	
-    	assertNotNull(compEmployee);
-    	List<Compensation> comps = compEmployee.getCompensation();
-    	assertTrue(CollectionUtils.isNotEmpty(comps));
-    	assertEquals((Integer) 1,(Integer) comps.size());
-    	
-    	assertComps(comp, comps.get(0));
-    	
-    }
-    
-    @Test
-    public void testAddCompensation_MultipleCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
-    {
-    	Employee emp = new Employee();
-    	emp.setDepartment("Tier 1");
-    	emp.setEmployeeId("1");
-    	emp.setFirstName("Macho");
-    	emp.setLastName("Man");
-    	
-    	Employee returnEmp = new Employee();
-    	returnEmp.setDepartment("Tier 1");
-    	returnEmp.setEmployeeId("1");
-    	returnEmp.setFirstName("Macho");
-    	returnEmp.setLastName("Man");
-    	
-    	Compensation comp1 = new Compensation();
-    	comp1.setEffectiveDate(LocalDate.of(2020,1,1));
-    	comp1.setSalary(BigDecimal.ONE);
-    	
-    	Compensation comp2 = new Compensation();
-    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
-    	comp2.setSalary(new BigDecimal(5));
-    	
-    	emp.setCompensation(Arrays.asList(comp1, comp2));
-    	
-    	Compensation comp3 = new Compensation();
-    	comp3.setEffectiveDate(LocalDate.now());
-    	comp3.setSalary(BigDecimal.TEN);
-    	
-    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
-    	
-    	returnEmp.setCompensation(Arrays.asList(comp1, comp2, comp3));
-    	
-    	when(employeeRepository.save(any())).thenReturn(returnEmp);
-    	Employee compEmployee = employeeService.addCompensation(returnEmp.getEmployeeId(), comp3);
-    	verify(employeeRepository, times(1)).findByEmployeeId(anyString());
-    	verify(employeeRepository, times(1)).save(any());
-    	
-    	assertNotNull(compEmployee);
-    	List<Compensation> comps = compEmployee.getCompensation();
-    	assertTrue(CollectionUtils.isNotEmpty(comps));
-    	assertEquals((Integer) 3,(Integer) comps.size());
-    	
-    	assertComps(comp3, comps.get(2));
-    	
-    }
-    
-    @Test
-    public void testAddCompensation_PastCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
-    {
-    	Employee emp = new Employee();
-    	emp.setDepartment("Tier 1");
-    	emp.setEmployeeId("1");
-    	emp.setFirstName("Macho");
-    	emp.setLastName("Man");
-    	
-    	Employee returnEmp = new Employee();
-    	returnEmp.setDepartment("Tier 1");
-    	returnEmp.setEmployeeId("1");
-    	returnEmp.setFirstName("Macho");
-    	returnEmp.setLastName("Man");
-    	
-    	Compensation comp1 = new Compensation();
-    	comp1.setEffectiveDate(LocalDate.of(2020,1,1));
-    	comp1.setSalary(BigDecimal.ONE);
-    	
-    	Compensation comp2 = new Compensation();
-    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
-    	comp2.setSalary(new BigDecimal(5));
-    	
-    	emp.setCompensation(Arrays.asList(comp1, comp2));
-    	
-    	Compensation comp3 = new Compensation();
-    	comp3.setEffectiveDate(LocalDate.of(2019,1,1));
-    	comp3.setSalary(BigDecimal.TEN);
-    	
-    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
-    	
-    	returnEmp.setCompensation(Arrays.asList(comp1, comp2, comp3));
-    	
-    	try
-    	{
-    		Employee compEmployee = employeeService.addCompensation(returnEmp.getEmployeeId(), comp3);
-    		fail("Should have failed as compensation is in the past.");
-    	}
-    	catch (CompensationCanNotBeInPastException inPastException)
-    	{
-    		assertEquals("Failed to update employee 1. Latest compensation Compensation(salary=5, effectiveDate=2021-01-01) is after requested comp Compensation(salary=10, effectiveDate=2019-01-01)", inPastException.getMessage());
-    		verify(employeeRepository, times(1)).findByEmployeeId(anyString());
-    		verify(employeeRepository, times(0)).save(any());
-    	}
-    	catch (Exception e)
-    	{
-    		fail("Should have caught expcetion.", e);
-    	}
-    	
-    	
-    }
-    
-    @Test
-    public void testFindCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
-    {
-    	Employee emp = new Employee();
-    	emp.setDepartment("Tier 1");
-    	emp.setEmployeeId("1");
-    	emp.setFirstName("Macho");
-    	emp.setLastName("Man");
-    	
-    	Compensation comp1 = new Compensation();
-    	comp1.setEffectiveDate(LocalDate.of(2020,1,1));
-    	comp1.setSalary(BigDecimal.ONE);
-    	
-    	Compensation comp2 = new Compensation();
-    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
-    	comp2.setSalary(new BigDecimal(5));
-    	
-    	emp.setCompensation(Arrays.asList(comp1, comp2));
-    	
-    	
-    	
-    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
-    	
-    	List<Compensation> returnComps = employeeService.findCompensation(emp);
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(returnComps));
-    	assertEquals((Integer) 2, (Integer) returnComps.size());
-    	assertComps(comp1, returnComps.get(0));
-    	assertComps(comp2, returnComps.get(1));
-    	
-    	
-    	
-    }
-    
-    @Test
-    public void testAddAlreadyExists()
-    {
-    	Employee emp1 = new Employee();
-    	emp1.setFirstName("Already");
-    	emp1.setLastName("Exists");
-    	emp1.setEmployeeId("1");
-    	
-    	Employee emp2 = new Employee();
-    	emp2.setFirstName("New");
-    	emp2.setLastName("Employee");
-    	emp2.setEmployeeId("1");
-    	
-    	try
-    	{
-    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp1);
-    		employeeService.create(emp2);
-    		fail("Should have failed as employee ID already exists.");
-    	}
-    	catch (EmployeeIdAlreadyExistsException eiaee)
-    	{
-    		verify(employeeRepository, times(0)).save(any());
-    		assertEquals("User \"1\" already exists. Employee ID must be unique", eiaee.getMessage());
-    	}
-    	catch (Exception e)
-    	{
-    		fail("Should have failed with EmployeeIdAlreadyExistsException.", e);
-    	}
-    	
-    }
-    
-    @Test
-    public void testUpdateIdAlreadyExists()
-    {
-    	Employee emp1 = new Employee();
-    	emp1.setFirstName("Already");
-    	emp1.setLastName("Exists");
-    	emp1.setEmployeeId("1");
-    	
-    	Employee emp2 = new Employee();
-    	emp2.setFirstName("New");
-    	emp2.setLastName("Employee");
-    	emp2.setEmployeeId("2");
-    	
-    	try
-    	{
-    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp1, emp2);
-    		employeeService.update("2", emp1);
-    		fail("Should have failed as employee ID already exists.");
-    	}
-    	catch (EmployeeIdAlreadyExistsException eiaee)
-    	{
-    		verify(employeeRepository, times(0)).save(any());
-    		assertEquals("Unable to change employee ID from 1 to 2. New ID already exists.", eiaee.getMessage());
-    	}
-    	catch (Exception e)
-    	{
-    		fail("Should have failed with EmployeeIdAlreadyExistsException.", e);
-    	}
-    	
-    }
-    
-    @Test
-    public void testAddMissingDirectReports()
-    {
-    	Employee emp1 = new Employee();
-    	emp1.setFirstName("Already");
-    	emp1.setLastName("Exists");
-    	emp1.setEmployeeId("1");
-    	
-    	Employee emp2 = new Employee();
-    	emp2.setEmployeeId("2");
-    	
-    	emp1.setDirectReports(Arrays.asList(emp2));
-    	
-    	try
-    	{
-    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(null);
-    		when(employeeRepository.findAllById(any())).thenReturn(new ArrayList<>());
-    		employeeService.create(emp1);
-    		fail("Should have as direct reports don't exists");
-    	}
-    	catch (EmployeeDoesNotExistsException ednee)
-    	{
-    		verify(employeeRepository, times(0)).save(any());
-    		verify(employeeRepository, times(1)).findByEmployeeId(anyString());
-    		//verify(employeeRepository, times(1)).findAllById(any());
-    		assertEquals("Employee IDs [2] were not found while creating Employee(employeeId=1, firstName=Already, lastName=Exists, position=null, department=null, directReports=[Employee(employeeId=2, firstName=null, lastName=null, position=null, department=null, directReports=null, compensation=null)], compensation=null)", ednee.getMessage());
-    	}
-    	catch (Exception e)
-    	{
-    		fail("Should have failed with EmployeeDoesNotExistsException.", e);
-    	}
-    	
-    }
-    
-
-    private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
-        assertEquals(expected.getFirstName(), actual.getFirstName());
-        assertEquals(expected.getLastName(), actual.getLastName());
-        assertEquals(expected.getDepartment(), actual.getDepartment());
-        assertEquals(expected.getPosition(), actual.getPosition());
-    }
-    
-    private static void assertComps(Compensation expected, Compensation actual)
-    {
-    	assertTrue(expected.getEffectiveDate().compareTo(actual.getEffectiveDate())==0, "Dates do not match");
-    	assertTrue(expected.getSalary().compareTo(actual.getSalary())==0, "Salaries do not match.");
-    	
-    }
-}
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.data.ReportingTree;
+import com.mindex.challenge.exception.CompensationCanNotBeInPastException;
+import com.mindex.challenge.exception.EmployeeDoesNotExistsException;
+import com.mindex.challenge.exception.EmployeeIdAlreadyExistsException;
+import com.mindex.challenge.exception.EmployeeIdNotSpecifiedException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.EmployeeVersionRequiredException;
+import com.mindex.challenge.exception.InvalidFieldException;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.service.ReportingEngine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+public class EmployeeServiceImplMockTest {
+    
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private CompensationRepository compensationRepository;
+
+    @Spy
+    private EmployeeCache employeeCache = new EmployeeCache(100, Duration.ofMinutes(5));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private EmployeeServiceImpl employeeService;
+
+    @Before
+    public void setup()
+    {
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 100);
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxNodes", 1_000_000);
+    	ReflectionTestUtils.setField(employeeService, "compensationMaxAttempts", 5);
+    	// Not a Spring bean here, so @PostConstruct is not run
+    	employeeService.registerReportingSummaries();
+    }
+
+    @Test
+    public void testCreateReadUpdate() throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionConflictException, EmployeeVersionRequiredException {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("John");
+        testEmployee.setLastName("Doe");
+        testEmployee.setDepartment("Engineering");
+        testEmployee.setPosition("Developer");
+
+        Employee createdEmployee = employeeService.create(testEmployee);
+        
+
+        assertNotNull(createdEmployee.getEmployeeId());
+        assertEmployeeEquivalence(testEmployee, createdEmployee);
+        verify(employeeRepository, times(0)).findByEmployeeId(anyString());
+
+        // Read checks
+        when(employeeRepository.findByEmployeeId(anyString())).thenReturn(createdEmployee);
+        Employee readEmployee = employeeService.read(createdEmployee.getEmployeeId());
+        assertEquals(createdEmployee.getEmployeeId(), readEmployee.getEmployeeId());
+        assertEmployeeEquivalence(createdEmployee, readEmployee);
+        verify(employeeRepository, times(1)).findByEmployeeId(anyString());
+
+
+        // Update checks
+        readEmployee.setPosition("Development Manager");
+        readEmployee.setVersion(0L);
+
+        when(employeeRepository.save(any())).thenReturn(readEmployee);
+        Employee updatedEmployee = employeeService.update(readEmployee.getEmployeeId(), readEmployee);
+        verify(employeeRepository, times(1)).save(any(Employee.class));
+        
+        assertEmployeeEquivalence(readEmployee, updatedEmployee);
+    }
+    
+    @Test
+    public void testReadExpanded() throws InvalidFieldException
+    {
+    	Employee manager = new Employee();
+    	manager.setEmployeeId("1");
+    	manager.setManagerId("0");
+    	manager.setVersion(4L);
+    	manager.setDirectReports(Arrays.asList(reference("2"), reference("missing"), reference("3")));
+
+    	Employee report2 = new Employee();
+    	report2.setEmployeeId("2");
+    	report2.setFirstName("Two");
+    	Employee report3 = new Employee();
+    	report3.setEmployeeId("3");
+    	report3.setFirstName("Three");
+
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(manager);
+    	when(employeeRepository.findAllById(Arrays.asList("2", "missing", "3"))).thenReturn(Arrays.asList(report3, report2));
+
+    	// Expanded in the order they are referenced, keeping the reference of a report that is not found
+    	Employee expanded = employeeService.read("1", Arrays.asList("directReports"));
+    	assertEquals(Arrays.asList("Two", null, "Three"),
+    			expanded.getDirectReports().stream().map(Employee::getFirstName).collect(Collectors.toList()));
+    	assertEquals("missing", expanded.getDirectReports().get(1).getEmployeeId());
+    	// An expanded employee can be sent back as an update
+    	assertEquals("0", expanded.getManagerId());
+    	assertEquals(Long.valueOf(4), expanded.getVersion());
+
+    	// The cached employee still holds references
+    	assertNull(employeeService.read("1", null).getDirectReports().get(0).getFirstName());
+    	verify(employeeRepository, times(1)).findByEmployeeId("1");
+    }
+
+    @Test(expected = InvalidFieldException.class)
+    public void testReadExpanded_InvalidField() throws InvalidFieldException
+    {
+    	employeeService.read("1", Arrays.asList("directReports", "compensation"));
+    }
+
+    @Test
+    public void testReadCached() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	emp.setFirstName("Macho");
+    	emp.setLastName("Man");
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	
+    	employeeService.read("1");
+    	employeeService.read("1");
+    	verify(employeeRepository, times(1)).findByEmployeeId("1");
+    	
+    	// Writes go to the repository and invalidate the cached employee
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.TEN);
+    	when(employeeRepository.claimLatestCompensation("1", null, comp)).thenReturn(true);
+    	employeeService.addCompensation("1", comp);
+    	verify(employeeRepository, times(2)).findByEmployeeId("1");
+    	
+    	employeeService.read("1");
+    	verify(employeeRepository, times(2)).findByEmployeeId("1");
+    	
+    	assertEquals(3L, employeeCache.getStatistics().getHits());
+    	assertEquals(2L, employeeCache.getStatistics().getMisses());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateAll()
+    {
+    	Employee existing = new Employee();
+    	existing.setEmployeeId("1");
+    	
+    	Employee manager = new Employee();
+    	manager.setEmployeeId("manager");
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(reference("1")));
+    	
+    	Employee duplicate = new Employee();
+    	duplicate.setEmployeeId("1");
+    	
+    	Employee invalidReports = new Employee();
+    	invalidReports.setDirectReports(Arrays.asList(reference("-999")));
+    	
+    	// Refers to the manager by the ID it was sent with
+    	Employee director = new Employee();
+    	director.setDirectReports(Arrays.asList(reference("manager")));
+    	
+    	when(employeeRepository.findAllById(any())).thenReturn(Arrays.asList(existing));
+    	
+    	List<EmployeeBatchResult> results = employeeService.createAll(Arrays.asList(manager, duplicate, invalidReports, director));
+    	
+    	assertEquals(4, results.size());
+    	assertTrue(results.get(0).isCreated());
+    	assertFalse(results.get(1).isCreated());
+    	assertTrue(results.get(1).getMessage().contains("already exists"));
+    	assertFalse(results.get(2).isCreated());
+    	assertTrue(results.get(2).getMessage().startsWith("Employee IDs [-999] were not found"));
+    	assertTrue(results.get(3).isCreated());
+    	
+    	assertNotEquals("manager", results.get(0).getEmployeeId());
+    	assertEquals(results.get(0).getEmployeeId(), director.getDirectReports().get(0).getEmployeeId());
+    	
+    	// One lookup and one write for the whole batch
+    	verify(employeeRepository, times(1)).findAllById(any());
+    	ArgumentCaptor<List<Employee>> inserted = ArgumentCaptor.forClass(List.class);
+    	verify(employeeRepository, times(1)).insert(inserted.capture());
+    	assertEquals(Arrays.asList(manager, director), inserted.getValue());
+    }
+    
+    @Test
+    public void testList() throws InvalidFieldException
+    {
+    	ReflectionTestUtils.setField(employeeService, "defaultPageSize", 2);
+    	ReflectionTestUtils.setField(employeeService, "maxPageSize", 2);
+    	List<String> fields = Arrays.asList("firstName", "lastName");
+    	
+    	when(employeeRepository.findPage("", 3, fields)).thenReturn(Arrays.asList(reference("1"), reference("2"), reference("3")));
+    	when(employeeRepository.findPage("2", 3, fields)).thenReturn(Arrays.asList(reference("3")));
+    	
+    	EmployeePage page = employeeService.list("", null, fields);
+    	assertEquals(2, page.getEmployees().size());
+    	assertEquals("2", page.getNextCursor());
+    	
+    	// Limit is capped at the max page size
+    	page = employeeService.list(page.getNextCursor(), 50, fields);
+    	assertEquals(1, page.getEmployees().size());
+    	assertNull(page.getNextCursor());
+    }
+    
+    @Test
+    public void testList_InvalidField()
+    {
+    	try
+    	{
+    		employeeService.list(null, null, Arrays.asList("firstName", "salary"));
+    		fail("Expected InvalidFieldException");
+    	}
+    	catch (InvalidFieldException ife)
+    	{
+    		assertTrue(ife.getMessage().startsWith("Fields [salary] can not be selected"));
+    	}
+    }
+    
+    @Test
+    public void testReportingStructure_0_Reports() throws ReportingLimitExceededException
+    {
+    	Employee employee = new Employee();
+    	employee.setDepartment("MOCK department");
+    	employee.setEmployeeId("1");
+    	employee.setFirstName("Bob");
+    	employee.setLastName("Newhart");
+    	employee.setDepartment("MOCK Department");
+    	
+    	when(employeeRepository.findByEmployeeId(employee.getEmployeeId())).thenReturn(employee);
+    	
+    	ReportingStructure reportingStructure = employeeService.findReportingStructure(employee.getEmployeeId());
+    	
+    	Employee reportingEmployee = reportingStructure.getEmployee();
+    	assertNotNull(reportingEmployee);
+    	assertEmployeeEquivalence(employee, reportingEmployee);
+    	
+    	assertEquals((Integer) 0, reportingStructure.getNumberOfReports());
+    	
+    	verify(employeeRepository, times(1)).findByEmployeeId(employee.getEmployeeId());
+    }
+    
+    @Test
+    public void testReportingStructure_SingleTier_Reports() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setDepartment("Tier 1");
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setFirstName("Macho");
+    	tier1Emp1.setLastName("Man");
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setDepartment("Tier 2-1");
+    	tier2Emp1.setEmployeeId("2-1");
+    	tier2Emp1.setFirstName("Wimpy");
+    	tier2Emp1.setLastName("Wimpy");
+    	
+    	Employee tier2Emp2 = new Employee();
+    	tier2Emp2.setDepartment("Tier 2-2");
+    	tier2Emp2.setEmployeeId("2-2");
+    	tier2Emp2.setFirstName("Here's");
+    	tier2Emp2.setLastName("Waldo");
+    	
+    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1, tier2Emp2));
+    	
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	when(employeeRepository.findAllById(Arrays.asList("2-1", "2-2"))).thenReturn(Arrays.asList(tier2Emp1, tier2Emp2));
+    	
+    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    	assertNotNull(reportingStructure.getEmployee());
+    	Employee employee = reportingStructure.getEmployee();
+    	
+    	assertEmployeeEquivalence(tier1Emp1, employee);
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
+    	assertEquals((Integer) 2, reportingStructure.getNumberOfReports());
+    	
+    	verify(employeeRepository, times(1)).findByEmployeeId(any());
+    	verify(employeeRepository, times(1)).findAllById(any());
+    }
+    
+    @Test
+    public void testReportingStructure_MultipleTier_Reports() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setDepartment("Tier 1");
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setFirstName("Macho");
+    	tier1Emp1.setLastName("Man");
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setDepartment("Tier 2-1");
+    	tier2Emp1.setEmployeeId("2-1");
+    	tier2Emp1.setFirstName("Wimpy");
+    	tier2Emp1.setLastName("Wimpy");
+    	
+    	Employee tier2Emp2 = new Employee();
+    	tier2Emp2.setDepartment("Tier 2-2");
+    	tier2Emp2.setEmployeeId("2-2");
+    	tier2Emp2.setFirstName("Here's");
+    	tier2Emp2.setLastName("Waldo");
+    	
+    	Employee tier3Emp1 = new Employee();
+    	tier3Emp1.setDepartment("Tier 3-1");
+    	tier3Emp1.setEmployeeId("3-1");
+    	tier3Emp1.setFirstName("Amilla");
+    	tier3Emp1.setLastName("Badilla");
+    	
+    	tier2Emp2.setDirectReports(Arrays.asList(tier3Emp1));
+    	
+    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1, tier2Emp2));
+    	
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	when(employeeRepository.findAllById(Arrays.asList("2-1", "2-2"))).thenReturn(Arrays.asList(tier2Emp1, tier2Emp2));
+    	when(employeeRepository.findAllById(Arrays.asList("3-1"))).thenReturn(Arrays.asList(tier3Emp1));
+    	
+    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    	assertNotNull(reportingStructure.getEmployee());
+    	Employee employee = reportingStructure.getEmployee();
+    	
+    	assertEmployeeEquivalence(tier1Emp1, employee);
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
+    	assertEquals((Integer) 3, reportingStructure.getNumberOfReports());
+    	
+    	verify(employeeRepository, times(1)).findByEmployeeId(any());
+    	verify(employeeRepository, times(2)).findAllById(any());
+    	assertEquals(2L, employeeService.getReportingLevelsVisited());
+    	assertEquals(3L, employeeService.getReportingDocumentsFetched());
+    }
+    
+    @Test
+    public void testReportingStructure_Cycle_Reports() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setEmployeeId("2-1");
+    	
+    	Employee tier3Emp1 = new Employee();
+    	tier3Emp1.setEmployeeId("3-1");
+    	
+    	// 3-1 reports back up to 1, which would loop forever without tracking visited IDs
+    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1));
+    	tier2Emp1.setDirectReports(Arrays.asList(tier3Emp1));
+    	tier3Emp1.setDirectReports(Arrays.asList(tier1Emp1, tier2Emp1));
+    	
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	when(employeeRepository.findAllById(Arrays.asList("2-1"))).thenReturn(Arrays.asList(tier2Emp1));
+    	when(employeeRepository.findAllById(Arrays.asList("3-1"))).thenReturn(Arrays.asList(tier3Emp1));
+    	
+    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    	
+    	assertEquals((Integer) 2, reportingStructure.getNumberOfReports());
+    	verify(employeeRepository, times(2)).findAllById(any());
+    }
+    
+    @Test
+    public void testReportingStructure_GraphLookup_Reports() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setEmployeeId("2-1");
+    	
+    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1));
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingEngine", ReportingEngine.GRAPH_LOOKUP);
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 10);
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	// One level more than the limit is looked up
+    	when(employeeRepository.countAllReports(tier1Emp1.getEmployeeId(), 11)).thenReturn(new ReportCount(7, 10));
+    	
+    	ReportingStructure reportingStructure = employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    	
+    	assertEquals((Integer) 7, reportingStructure.getNumberOfReports());
+    	verify(employeeRepository, times(0)).findAllById(any());
+    	
+    	when(employeeRepository.countAllReports(tier1Emp1.getEmployeeId(), 11)).thenReturn(new ReportCount(7, 11));
+    	try
+    	{
+    		employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    		fail("Should have failed as the reports go past the max depth.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 is more than 10 levels deep, the limit set by reporting.max-depth.", rlee.getMessage());
+    	}
+    }
+    
+    @Test
+    public void testReportingStructure_Index_Limits() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setDirectReports(Arrays.asList(reference("2-1")));
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setEmployeeId("2-1");
+    	tier2Emp1.setDirectReports(Arrays.asList(reference("3-1"), reference("3-2")));
+    	
+    	OrgGraphIndex orgGraphIndex = new OrgGraphIndex();
+    	orgGraphIndex.rebuild(Arrays.asList(tier1Emp1, tier2Emp1));
+    	ReflectionTestUtils.setField(employeeService, "orgGraphIndex", orgGraphIndex);
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	
+    	assertEquals((Integer) 3, employeeService.findReportingStructure(tier1Emp1.getEmployeeId()).getNumberOfReports());
+    	
+    	// Answers from the index are held to the same limits as a walk
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 1);
+    	try
+    	{
+    		employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    		fail("Should have failed as the reports go past the max depth.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 is more than 1 levels deep, the limit set by reporting.max-depth.", rlee.getMessage());
+    	}
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 100);
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxNodes", 2);
+    	when(employeeRepository.findAllById(new HashSet<>(Arrays.asList("1")))).thenReturn(Arrays.asList(tier1Emp1));
+    	try
+    	{
+    		employeeService.findReportingStructures(Arrays.asList(tier1Emp1.getEmployeeId()));
+    		fail("Should have failed as there are more reports than the max nodes.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 has more than 2 reports, the limit set by reporting.max-nodes.", rlee.getMessage());
+    	}
+    	
+    	// Only the managers are read, nothing underneath them is walked
+    	verify(employeeRepository, times(1)).findAllById(any());
+    	verify(employeeRepository, never()).findTreeNodes(any());
+    }
+    
+    @Test
+    public void testReportingStructure_MaxDepth()
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	
+    	Employee tier2Emp1 = new Employee();
+    	tier2Emp1.setEmployeeId("2-1");
+    	
+    	Employee tier3Emp1 = new Employee();
+    	tier3Emp1.setEmployeeId("3-1");
+    	
+    	tier1Emp1.setDirectReports(Arrays.asList(tier2Emp1));
+    	tier2Emp1.setDirectReports(Arrays.asList(tier3Emp1));
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 1);
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	when(employeeRepository.findAllById(Arrays.asList("2-1"))).thenReturn(Arrays.asList(tier2Emp1));
+    	
+    	try
+    	{
+    		employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    		fail("Should have failed as the reports go past the max depth.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 is more than 1 levels deep, the limit set by reporting.max-depth.", rlee.getMessage());
+    	}
+    	
+    	// The level past the limit is never fetched
+    	verify(employeeRepository, times(1)).findAllById(any());
+    }
+    
+    @Test
+    public void testReportingStructure_MaxNodes()
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setDirectReports(Arrays.asList(reference("2-1"), reference("2-2"), reference("2-3")));
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxNodes", 2);
+    	when(employeeRepository.findByEmployeeId(tier1Emp1.getEmployeeId())).thenReturn(tier1Emp1);
+    	
+    	try
+    	{
+    		employeeService.findReportingStructure(tier1Emp1.getEmployeeId());
+    		fail("Should have failed as there are more reports than the max nodes.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 has more than 2 reports, the limit set by reporting.max-nodes.", rlee.getMessage());
+    	}
+    	
+    	verify(employeeRepository, times(0)).findAllById(any());
+    }
+    
+    @Test
+    public void testReportingStructures_SharedWalk_MaxNodes()
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setDirectReports(Arrays.asList(reference("2-1"), reference("2-2")));
+    	Employee tier1Emp2 = new Employee();
+    	tier1Emp2.setEmployeeId("4");
+    	tier1Emp2.setDirectReports(Arrays.asList(reference("5-1")));
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxNodes", 2);
+    	when(employeeRepository.findAllById(new HashSet<>(Arrays.asList("1", "4")))).thenReturn(Arrays.asList(tier1Emp2, tier1Emp1));
+    	
+    	try
+    	{
+    		employeeService.findReportingStructures(Arrays.asList("1", "4"));
+    		fail("Should have failed as the managers reach more reports than the max nodes.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structures for employees [1, 4] reach more than 2 reports between them, the limit set by reporting.max-nodes.", rlee.getMessage());
+    	}
+    	
+    	// The level past the limit is never fetched
+    	verify(employeeRepository, times(0)).findTreeNodes(any());
+    }
+    
+    @Test
+    public void testReportingStructures_SharedWalk() throws ReportingLimitExceededException
+    {
+    	Employee tier1Emp1 = new Employee();
+    	tier1Emp1.setEmployeeId("1");
+    	tier1Emp1.setDirectReports(Arrays.asList(reference("2-1"), reference("2-2")));
+    	Employee tier2Emp2 = new Employee();
+    	tier2Emp2.setEmployeeId("2-2");
+    	tier2Emp2.setDirectReports(Arrays.asList(reference("3-1")));
+    	
+    	when(employeeRepository.findAllById(new HashSet<>(Arrays.asList("1", "missing", "2-2"))))
+    			.thenReturn(Arrays.asList(tier1Emp1, tier2Emp2));
+    	when(compensationRepository.findByEmployeeIdInOrderByEffectiveDateAsc(new HashSet<>(Arrays.asList("1", "2-2"))))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", compensation(LocalDate.of(2020, 1, 1), BigDecimal.TEN)),
+    					CompensationRecord.of("1", compensation(LocalDate.of(2021, 1, 1), BigDecimal.ONE))));
+    	when(employeeRepository.findTreeNodes(Arrays.asList("2-1", "3-1"))).thenReturn(Arrays.asList(treeNode("2-1"), treeNode("3-1")));
+    	
+    	List<ReportingStructure> reportingStructures = employeeService.findReportingStructures(Arrays.asList("1", "missing", "2-2", "1"));
+    	assertEquals(Arrays.asList(3, null, 1, 3),
+    			reportingStructures.stream().map(ReportingStructure::getNumberOfReports).collect(Collectors.toList()));
+    	assertNull(reportingStructures.get(1).getEmployee());
+    	assertEquals("2-2", reportingStructures.get(2).getEmployee().getEmployeeId());
+    	assertEquals(Arrays.asList(LocalDate.of(2020, 1, 1), LocalDate.of(2021, 1, 1)), reportingStructures.get(0).getEmployee()
+    			.getCompensation().stream().map(Compensation::getEffectiveDate).collect(Collectors.toList()));
+    	assertNull(reportingStructures.get(2).getEmployee().getCompensation());
+    	
+    	// The managers are read with one query and their compensation with another, not one read each.
+    	// 2-2 was read as a requested manager, so one query fetches the rest of the chart
+    	verify(employeeRepository, times(1)).findAllById(any());
+    	verify(employeeRepository, never()).findByEmployeeId(anyString());
+    	verify(compensationRepository, times(1)).findByEmployeeIdInOrderByEffectiveDateAsc(any());
+    	verify(compensationRepository, never()).findByEmployeeIdOrderByEffectiveDateAsc(anyString());
+    	verify(employeeRepository, times(1)).findTreeNodes(any());
+    }
+    
+    @Test
+    public void testReportingTree_LevelPerQuery() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException, IOException
+    {
+    	Employee manager = new Employee();
+    	manager.setEmployeeId("1");
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(manager);
+    	when(employeeRepository.findTreeNodes(Arrays.asList("1"))).thenReturn(Arrays.asList(treeNode("1", "2-1", "2-2")));
+    	when(employeeRepository.findTreeNodes(Arrays.asList("2-1", "2-2")))
+    			.thenReturn(Arrays.asList(treeNode("2-1", "3-1"), treeNode("2-2", "3-1", "1")));
+    	
+    	// The report listed twice and the cycle back to the top are only fetched once
+    	ReportingTree tree = employeeService.findReportingTree("1", 1);
+    	assertEquals("{\"employeeId\":\"1\",\"directReports\":["
+    			+ "{\"employeeId\":\"2-1\",\"directReports\":[{\"employeeId\":\"3-1\"}]},"
+    			+ "{\"employeeId\":\"2-2\",\"directReports\":[{\"employeeId\":\"3-1\"},{\"employeeId\":\"1\"}]}]}",
+    			new ObjectMapper().writeValueAsString(tree).replaceAll(",?\"(firstName|lastName|position|department)\":null", ""));
+    	verify(employeeRepository, times(2)).findTreeNodes(any());
+    	
+    	// One query per level, however many managers are on it
+    	when(employeeRepository.findTreeNodes(Arrays.asList("3-1"))).thenReturn(Arrays.asList(treeNode("3-1")));
+    	assertEquals(4, employeeService.findReportingTree("1", null).getEmployees().size());
+    	verify(employeeRepository, times(5)).findTreeNodes(any());
+    	
+    	// The third level is checked before it is fetched
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxNodes", 2);
+    	try
+    	{
+    		employeeService.findReportingTree("1", null);
+    		fail("Should have failed as there are more reports than the max nodes.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 has more than 2 reports, the limit set by reporting.max-nodes.", rlee.getMessage());
+    	}
+    	verify(employeeRepository, times(1)).findTreeNodes(Arrays.asList("3-1"));
+    }
+    
+    @Test
+    public void testUpdate_ManagerIndex() throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionConflictException, EmployeeVersionRequiredException
+    {
+    	Employee existing = new Employee();
+    	existing.setEmployeeId("1");
+    	existing.setManagerId("0");
+    	existing.setVersion(0L);
+    	existing.setDirectReports(Arrays.asList(reference("2"), reference("3")));
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(existing);
+    	when(employeeRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    	
+    	Employee employee = new Employee();
+    	employee.setEmployeeId("1");
+    	employee.setManagerId("9");
+    	employee.setVersion(0L);
+    	employee.setDirectReports(Arrays.asList(reference("3"), reference("4")));
+    	Employee updated = employeeService.update("1", employee);
+    	
+    	// The manager comes from the stored employee, not the request
+    	assertEquals("0", updated.getManagerId());
+    	verify(employeeRepository, times(1)).unassignManager("1", new HashSet<>(Arrays.asList("2")));
+    	verify(employeeRepository, times(1)).assignManager("1", new HashSet<>(Arrays.asList("4")));
+    }
+    
+    @Test
+    public void testChainOfCommand_Cycle() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, ReportingLimitExceededException
+    {
+    	Employee employee = new Employee();
+    	employee.setEmployeeId("1");
+    	employee.setManagerId("2");
+    	Employee manager = new Employee();
+    	manager.setEmployeeId("2");
+    	manager.setManagerId("3");
+    	Employee topManager = new Employee();
+    	topManager.setEmployeeId("3");
+    	topManager.setManagerId("1");
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(employee);
+    	when(employeeRepository.findByEmployeeId("2")).thenReturn(manager);
+    	when(employeeRepository.findByEmployeeId("3")).thenReturn(topManager);
+    	
+    	// Stops when it comes back round to the employee
+    	List<Employee> chain = employeeService.findChainOfCommand("1");
+    	assertEquals(Arrays.asList("2", "3"), chain.stream().map(Employee::getEmployeeId).collect(Collectors.toList()));
+    	
+    	ReflectionTestUtils.setField(employeeService, "reportingMaxDepth", 1);
+    	try
+    	{
+    		employeeService.findChainOfCommand("1");
+    		fail("Should have failed as the chain goes past the max depth.");
+    	}
+    	catch (ReportingLimitExceededException rlee)
+    	{
+    		assertEquals("Reporting structure for employee 1 is more than 1 levels deep, the limit set by reporting.max-depth.", rlee.getMessage());
+    	}
+    }
+    
+    @Test
+    public void testAddCompensation_FirstCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Employee emp = new Employee();
+    	emp.setDepartment("Tier 1");
+    	emp.setEmployeeId("1");
+    	emp.setFirstName("Macho");
+    	emp.setLastName("Man");
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
+    	when(compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc("1"))
+    			.thenReturn(new ArrayList<>())
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp)));
+    	when(employeeRepository.claimLatestCompensation("1", null, comp)).thenReturn(true);
+    	Employee compEmployee = employeeService.addCompensation(emp.getEmployeeId(), comp);
+    	verify(compensationRepository, times(1)).insert(CompensationRecord.of("1", comp));
+    	verify(employeeRepository, times(0)).save(any());
+    	
+    	assertNotNull(compEmployee);
+    	List<Compensation> comps = compEmployee.getCompensation();
+    	assertTrue(CollectionUtils.isNotEmpty(comps));
+    	assertEquals((Integer) 1,(Integer) comps.size());
+    	
+    	assertComps(comp, comps.get(0));
+    	
+    }
+    
+    @Test
+    public void testAddCompensation_MultipleCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Employee emp = new Employee();
+    	emp.setDepartment("Tier 1");
+    	emp.setEmployeeId("1");
+    	emp.setFirstName("Macho");
+    	emp.setLastName("Man");
+    	
+    	Compensation comp1 = new Compensation();
+    	comp1.setEffectiveDate(LocalDate.of(2020,1,1));
+    	comp1.setSalary(BigDecimal.ONE);
+    	
+    	Compensation comp2 = new Compensation();
+    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp2.setSalary(new BigDecimal(5));
+    	
+    	Compensation comp3 = new Compensation();
+    	comp3.setEffectiveDate(LocalDate.now());
+    	comp3.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
+    	when(compensationRepository.findFirstByEmployeeIdOrderByEffectiveDateDesc("1")).thenReturn(CompensationRecord.of("1", comp2));
+    	when(compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc("1"))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("1", comp2)))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("1", comp2), CompensationRecord.of("1", comp3)));
+    	when(employeeRepository.claimLatestCompensation("1", null, comp3)).thenReturn(true);
+    	
+    	Employee compEmployee = employeeService.addCompensation(emp.getEmployeeId(), comp3);
+    	
+    	// Only the new record is written, the employee and its history are left alone
+    	verify(compensationRepository, times(1)).insert(CompensationRecord.of("1", comp3));
+    	verify(employeeRepository, times(0)).save(any());
+    	
+    	assertNotNull(compEmployee);
+    	List<Compensation> comps = compEmployee.getCompensation();
+    	assertTrue(CollectionUtils.isNotEmpty(comps));
+    	assertEquals((Integer) 3,(Integer) comps.size());
+    	
+    	assertComps(comp3, comps.get(2));
+    	
+    }
+    
+    @Test
+    public void testAddCompensation_PastCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Employee emp = new Employee();
+    	emp.setDepartment("Tier 1");
+    	emp.setEmployeeId("1");
+    	emp.setFirstName("Macho");
+    	emp.setLastName("Man");
+    	
+    	Compensation comp2 = new Compensation();
+    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp2.setSalary(new BigDecimal(5));
+    	
+    	Compensation comp3 = new Compensation();
+    	comp3.setEffectiveDate(LocalDate.of(2019,1,1));
+    	comp3.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
+    	when(compensationRepository.findFirstByEmployeeIdOrderByEffectiveDateDesc("1")).thenReturn(CompensationRecord.of("1", comp2));
+    	
+    	try
+    	{
+    		employeeService.addCompensation(emp.getEmployeeId(), comp3);
+    		fail("Should have failed as compensation is in the past.");
+    	}
+    	catch (CompensationCanNotBeInPastException inPastException)
+    	{
+    		assertEquals("Failed to update employee 1. Latest compensation Compensation(salary=5, effectiveDate=2021-01-01) is after requested comp Compensation(salary=10, effectiveDate=2019-01-01)", inPastException.getMessage());
+    		verify(employeeRepository, times(1)).findByEmployeeId(anyString());
+    		verify(compensationRepository, times(0)).insert(any(CompensationRecord.class));
+    	}
+    	catch (Exception e)
+    	{
+    		fail("Should have caught expcetion.", e);
+    	}
+    	
+    	
+    }
+    
+    @Test
+    public void testAddCompensation_LatestOnEmployee() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Compensation latest = new Compensation();
+    	latest.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	latest.setSalary(new BigDecimal(5));
+    	
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	emp.setLatestCompensation(latest);
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	
+    	try
+    	{
+    		employeeService.addCompensation("1", comp);
+    		fail("Should have failed as compensation is not after the latest.");
+    	}
+    	catch (CompensationCanNotBeInPastException inPastException)
+    	{
+    		assertEquals("Failed to update employee 1. Latest compensation Compensation(salary=5, effectiveDate=2021-01-01) is after requested comp Compensation(salary=10, effectiveDate=2021-01-01)", inPastException.getMessage());
+    	}
+    	
+    	// The latest compensation kept on the employee is checked without reading the records
+    	verify(compensationRepository, never()).findFirstByEmployeeIdOrderByEffectiveDateDesc(anyString());
+    	verify(employeeRepository, never()).claimLatestCompensation(anyString(), any(), any());
+    }
+    
+    @Test
+    public void testAddCompensation_DuplicateDate() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Compensation older = new Compensation();
+    	older.setEffectiveDate(LocalDate.of(2020, 1, 1));
+    	older.setSalary(BigDecimal.ONE);
+    	
+    	Compensation stored = new Compensation();
+    	stored.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	stored.setSalary(new BigDecimal(5));
+    	
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	emp.setVersion(2L);
+    	// Behind the records, which already hold the date being added
+    	emp.setLatestCompensation(older);
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	when(employeeRepository.claimLatestCompensation("1", 2L, comp)).thenReturn(true);
+    	when(compensationRepository.insert(CompensationRecord.of("1", comp))).thenThrow(new DuplicateKeyException("duplicate"));
+    	when(compensationRepository.findFirstByEmployeeIdOrderByEffectiveDateDesc("1")).thenReturn(CompensationRecord.of("1", stored));
+    	
+    	try
+    	{
+    		employeeService.addCompensation("1", comp);
+    		fail("Should have failed as compensation is already stored for the date.");
+    	}
+    	catch (CompensationCanNotBeInPastException inPastException)
+    	{
+    		// The stored record is named as the latest, not the compensation that was rejected
+    		assertEquals("Failed to update employee 1. Latest compensation Compensation(salary=5, effectiveDate=2021-01-01) is after requested comp Compensation(salary=10, effectiveDate=2021-01-01)", inPastException.getMessage());
+    	}
+    	
+    	// And kept on the employee again in place of the rejected compensation
+    	verify(employeeRepository, times(1)).claimLatestCompensation("1", 3L, stored);
+    }
+    
+    @Test
+    public void testAddCompensation_InsertFailed() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Compensation latest = new Compensation();
+    	latest.setEffectiveDate(LocalDate.of(2020, 1, 1));
+    	latest.setSalary(BigDecimal.ONE);
+    	
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	emp.setVersion(2L);
+    	emp.setLatestCompensation(latest);
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection lost");
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	when(employeeRepository.claimLatestCompensation("1", 2L, comp)).thenReturn(true);
+    	when(compensationRepository.insert(CompensationRecord.of("1", comp))).thenThrow(failure);
+    	
+    	try
+    	{
+    		employeeService.addCompensation("1", comp);
+    		fail("Should have failed as the compensation could not be stored.");
+    	}
+    	catch (DataAccessResourceFailureException e)
+    	{
+    		assertEquals(failure, e);
+    	}
+    	
+    	// The latest compensation the employee had is put back, if the employee is still at the claimed version
+    	verify(employeeRepository, times(1)).claimLatestCompensation("1", 3L, latest);
+    	verify(compensationRepository, never()).findFirstByEmployeeIdOrderByEffectiveDateDesc("1");
+    	verify(employeeCache, times(1)).invalidate("1");
+    }
+    
+    @Test
+    public void testAddCompensation_Retried() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException, EmployeeVersionConflictException
+    {
+    	Employee stale = new Employee();
+    	stale.setEmployeeId("1");
+    	stale.setVersion(3L);
+    	
+    	Employee current = new Employee();
+    	current.setEmployeeId("1");
+    	current.setVersion(4L);
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(stale).thenReturn(current);
+    	// Another write moved the employee on between the read and the claim
+    	when(employeeRepository.claimLatestCompensation("1", 3L, comp)).thenReturn(false);
+    	when(employeeRepository.claimLatestCompensation("1", 4L, comp)).thenReturn(true);
+    	
+    	assertNotNull(employeeService.addCompensation("1", comp));
+    	
+    	// Nothing is inserted for the lost attempt, the retry is checked against the employee as it is now
+    	verify(compensationRepository, times(1)).insert(CompensationRecord.of("1", comp));
+    	verify(compensationRepository, never()).delete(any(CompensationRecord.class));
+    	verify(compensationRepository, times(2)).findFirstByEmployeeIdOrderByEffectiveDateDesc("1");
+    }
+    
+    @Test
+    public void testAddCompensation_Conflict() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
+    {
+    	ReflectionTestUtils.setField(employeeService, "compensationMaxAttempts", 3);
+    	
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	when(employeeRepository.claimLatestCompensation("1", null, comp)).thenReturn(false);
+    	
+    	try
+    	{
+    		employeeService.addCompensation("1", comp);
+    		fail("Should have given up after 3 attempts.");
+    	}
+    	catch (EmployeeVersionConflictException vce)
+    	{
+    		assertEquals("Employee 1 was changed by another request. Read it again and retry.", vce.getMessage());
+    		verify(employeeRepository, times(3)).claimLatestCompensation("1", null, comp);
+    		verify(compensationRepository, never()).insert(any(CompensationRecord.class));
+    	}
+    }
+    
+    @Test
+    public void testUpdate_VersionConflict() throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionRequiredException
+    {
+    	Employee existing = new Employee();
+    	existing.setEmployeeId("1");
+    	existing.setVersion(7L);
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(existing);
+    	when(employeeRepository.save(any())).thenThrow(new OptimisticLockingFailureException("Version 7 is stale"));
+    	
+    	Employee employee = new Employee();
+    	employee.setEmployeeId("1");
+    	employee.setPosition("Drummer");
+    	employee.setVersion(7L);
+    	try
+    	{
+    		employeeService.update("1", employee);
+    		fail("Should have failed as the employee changed.");
+    	}
+    	catch (EmployeeVersionConflictException vce)
+    	{
+    		assertEquals("Employee 1 was changed by another request. Read it again and retry.", vce.getMessage());
+    	}
+    	
+    	// The update is made against the version sent
+    	ArgumentCaptor<Employee> saved = ArgumentCaptor.forClass(Employee.class);
+    	verify(employeeRepository, times(1)).save(saved.capture());
+    	assertEquals(Long.valueOf(7), saved.getValue().getVersion());
+    	verify(employeeRepository, never()).assignManager(anyString(), any());
+    	
+    	// The stale cached employee is dropped
+    	employeeService.read("1");
+    	verify(employeeRepository, times(2)).findByEmployeeId("1");
+    }
+    
+    @Test
+    public void testUpdate_VersionRequired() throws EmployeeIdAlreadyExistsException, EmployeeDoesNotExistsException, EmployeeIdNotSpecifiedException, EmployeeVersionConflictException
+    {
+    	Employee existing = new Employee();
+    	existing.setEmployeeId("1");
+    	existing.setVersion(7L);
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(existing);
+    	
+    	Employee employee = new Employee();
+    	employee.setEmployeeId("1");
+    	employee.setPosition("Drummer");
+    	try
+    	{
+    		employeeService.update("1", employee);
+    		fail("Should have failed as no version was sent.");
+    	}
+    	catch (EmployeeVersionRequiredException vre)
+    	{
+    		assertEquals("Employee 1 must be updated with the version it was read at.", vre.getMessage());
+    	}
+    	verify(employeeRepository, never()).save(any());
+    }
+    
+    @Test
+    public void testFindCompensation() throws EmployeeIdNotSpecifiedException, CompensationCanNotBeInPastException, EmployeeDoesNotExistsException, EmployeeIdAlreadyExistsException
+    {
+    	Employee emp = new Employee();
+    	emp.setDepartment("Tier 1");
+    	emp.setEmployeeId("1");
+    	emp.setFirstName("Macho");
+    	emp.setLastName("Man");
+    	
+    	Compensation comp1 = new Compensation();
+    	comp1.setEffectiveDate(LocalDate.of(2020,1,1));
+    	comp1.setSalary(BigDecimal.ONE);
+    	
+    	Compensation comp2 = new Compensation();
+    	comp2.setEffectiveDate(LocalDate.of(2021, 1, 1));
+    	comp2.setSalary(new BigDecimal(5));
+    	
+    	when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp);
+    	when(compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc("1"))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("1", comp2)));
+    	
+    	List<Compensation> returnComps = employeeService.findCompensation(emp);
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(returnComps));
+    	assertEquals((Integer) 2, (Integer) returnComps.size());
+    	assertComps(comp1, returnComps.get(0));
+    	assertComps(comp2, returnComps.get(1));
+    	
+    	
+    	
+    }
+    
+    @Test
+    public void testFindCompensationAsOf() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+    {
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	
+    	Compensation comp1 = compensation(LocalDate.of(2020, 1, 1), BigDecimal.ONE);
+    	Compensation comp2 = compensation(LocalDate.of(2021, 1, 1), new BigDecimal(5));
+    	Compensation comp3 = compensation(LocalDate.of(2022, 1, 1), BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	when(compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc("1"))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("1", comp2), CompensationRecord.of("1", comp3)));
+    	
+    	assertNull(employeeService.findCompensationAsOf("1", LocalDate.of(2019, 12, 31)));
+    	assertComps(comp1, employeeService.findCompensationAsOf("1", LocalDate.of(2020, 1, 1)));
+    	assertComps(comp2, employeeService.findCompensationAsOf("1", LocalDate.of(2021, 6, 30)));
+    	assertComps(comp3, employeeService.findCompensationAsOf("1", LocalDate.of(2030, 1, 1)));
+    	
+    	// The history is read once and searched from the cache after that
+    	verify(compensationRepository, times(1)).findByEmployeeIdOrderByEffectiveDateAsc("1");
+    }
+    
+    @Test
+    public void testFindCompensationBetween() throws EmployeeIdNotSpecifiedException, EmployeeDoesNotExistsException
+    {
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("1");
+    	
+    	Compensation comp1 = compensation(LocalDate.of(2020, 1, 1), BigDecimal.ONE);
+    	Compensation comp2 = compensation(LocalDate.of(2021, 1, 1), new BigDecimal(5));
+    	Compensation comp3 = compensation(LocalDate.of(2022, 1, 1), BigDecimal.TEN);
+    	
+    	when(employeeRepository.findByEmployeeId("1")).thenReturn(emp);
+    	when(compensationRepository.findByEmployeeIdOrderByEffectiveDateAsc("1"))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("1", comp2), CompensationRecord.of("1", comp3)));
+    	
+    	assertEquals(Arrays.asList(comp2, comp3), employeeService.findCompensationBetween("1", LocalDate.of(2021, 1, 1), LocalDate.of(2022, 1, 1)));
+    	assertEquals(Arrays.asList(comp2), employeeService.findCompensationBetween("1", LocalDate.of(2020, 1, 2), LocalDate.of(2021, 12, 31)));
+    	assertEquals(Arrays.asList(comp1, comp2), employeeService.findCompensationBetween("1", null, LocalDate.of(2021, 1, 1)));
+    	assertEquals(Arrays.asList(comp3), employeeService.findCompensationBetween("1", LocalDate.of(2021, 1, 2), null));
+    	assertTrue(employeeService.findCompensationBetween("1", LocalDate.of(2023, 1, 1), LocalDate.of(2024, 1, 1)).isEmpty());
+    	assertTrue(employeeService.findCompensationBetween("1", LocalDate.of(2022, 1, 1), LocalDate.of(2020, 1, 1)).isEmpty());
+    }
+    
+    @Test
+    public void testFindLatestCompensation()
+    {
+    	Compensation comp1 = compensation(LocalDate.of(2020, 1, 1), BigDecimal.ONE);
+    	Compensation comp2 = compensation(LocalDate.of(2021, 1, 1), new BigDecimal(5));
+    	LocalDate asOf = LocalDate.of(2021, 6, 30);
+    	
+    	when(compensationRepository.findLatest(new HashSet<>(Arrays.asList("1", "2", "3")), asOf))
+    			.thenReturn(Arrays.asList(CompensationRecord.of("1", comp1), CompensationRecord.of("2", comp2)));
+    	
+    	Map<String, Compensation> latest = employeeService.findLatestCompensation(Arrays.asList("1", "2", "3", "1"), asOf);
+    	
+    	assertEquals(2, latest.size());
+    	assertComps(comp1, latest.get("1"));
+    	assertComps(comp2, latest.get("2"));
+    	assertFalse(latest.containsKey("3"));
+    	
+    	assertTrue(employeeService.findLatestCompensation(new ArrayList<>(), asOf).isEmpty());
+    	verify(compensationRepository, times(1)).findLatest(any(), any());
+    }
+    
+    @Test
+    public void testAddAlreadyExists()
+    {
+    	Employee emp1 = new Employee();
+    	emp1.setFirstName("Already");
+    	emp1.setLastName("Exists");
+    	emp1.setEmployeeId("1");
+    	
+    	Employee emp2 = new Employee();
+    	emp2.setFirstName("New");
+    	emp2.setLastName("Employee");
+    	emp2.setEmployeeId("1");
+    	
+    	try
+    	{
+    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp1);
+    		employeeService.create(emp2);
+    		fail("Should have failed as employee ID already exists.");
+    	}
+    	catch (EmployeeIdAlreadyExistsException eiaee)
+    	{
+    		verify(employeeRepository, times(0)).save(any());
+    		assertEquals("User \"1\" already exists. Employee ID must be unique", eiaee.getMessage());
+    	}
+    	catch (Exception e)
+    	{
+    		fail("Should have failed with EmployeeIdAlreadyExistsException.", e);
+    	}
+    	
+    }
+    
+    @Test
+    public void testUpdateIdAlreadyExists()
+    {
+    	Employee emp1 = new Employee();
+    	emp1.setFirstName("Already");
+    	emp1.setLastName("Exists");
+    	emp1.setEmployeeId("1");
+    	
+    	Employee emp2 = new Employee();
+    	emp2.setFirstName("New");
+    	emp2.setLastName("Employee");
+    	emp2.setEmployeeId("2");
+    	
+    	try
+    	{
+    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(emp1, emp2);
+    		employeeService.update("2", emp1);
+    		fail("Should have failed as employee ID already exists.");
+    	}
+    	catch (EmployeeIdAlreadyExistsException eiaee)
+    	{
+    		verify(employeeRepository, times(0)).save(any());
+    		assertEquals("Unable to change employee ID from 1 to 2. New ID already exists.", eiaee.getMessage());
+    	}
+    	catch (Exception e)
+    	{
+    		fail("Should have failed with EmployeeIdAlreadyExistsException.", e);
+    	}
+    	
+    }
+    
+    @Test
+    public void testAddMissingDirectReports()
+    {
+    	Employee emp1 = new Employee();
+    	emp1.setFirstName("Already");
+    	emp1.setLastName("Exists");
+    	emp1.setEmployeeId("1");
+    	
+    	Employee emp2 = new Employee();
+    	emp2.setEmployeeId("2");
+    	
+    	emp1.setDirectReports(Arrays.asList(emp2));
+    	
+    	try
+    	{
+    		when(employeeRepository.findByEmployeeId(anyString())).thenReturn(null);
+    		when(employeeRepository.findAllById(any())).thenReturn(new ArrayList<>());
+    		employeeService.create(emp1);
+    		fail("Should have as direct reports don't exists");
+    	}
+    	catch (EmployeeDoesNotExistsException ednee)
+    	{
+    		verify(employeeRepository, times(0)).save(any());
+    		verify(employeeRepository, times(1)).findByEmployeeId(anyString());
+    		//verify(employeeRepository, times(1)).findAllById(any());
+    		assertEquals("Employee IDs [2] were not found while creating employee Already Exists", ednee.getMessage());
+    	}
+    	catch (Exception e)
+    	{
+    		fail("Should have failed with EmployeeDoesNotExistsException.", e);
+    	}
+    	
+    }
+    
+
+    private static ReportingTree.Node treeNode(String employeeId, String... directReportIds)
+    {
+    	ReportingTree.Node treeNode = new ReportingTree.Node();
+    	treeNode.setEmployeeId(employeeId);
+    	treeNode.setDirectReports(Arrays.asList(directReportIds));
+    	return treeNode;
+    }
+    
+    private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getDepartment(), actual.getDepartment());
+        assertEquals(expected.getPosition(), actual.getPosition());
+    }
+    
+    private static void assertComps(Compensation expected, Compensation actual)
+    {
+    	assertTrue(expected.getEffectiveDate().compareTo(actual.getEffectiveDate())==0, "Dates do not match");
+    	assertTrue(expected.getSalary().compareTo(actual.getSalary())==0, "Salaries do not match.");
+    	
+    }
+    
+    private static Compensation compensation(LocalDate effectiveDate, BigDecimal salary)
+    {
+    	Compensation compensation = new Compensation();
+    	compensation.setEffectiveDate(effectiveDate);
+    	compensation.setSalary(salary);
+    	return compensation;
+    }
+    
+    private static Employee reference(String employeeId)
+    {
+    	Employee reference = new Employee();
+    	reference.setEmployeeId(employeeId);
+    	return reference;
+    }
+}
@@ -1,315 +1,809 @@
-package com.mindex.challenge.service.impl;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
-import static org.junit.Assert.assertNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.Arrays;
-import java.util.List;
-
-import org.apache.commons.collections4.CollectionUtils;
-import org.junit.Before;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.web.client.TestRestTemplate;
-import org.springframework.boot.test.web.server.LocalServerPort;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.test.annotation.Rollback;
-import org.springframework.test.context.TestPropertySource;
-import org.springframework.test.context.junit4.SpringRunner;
-
-import com.mindex.challenge.data.Compensation;
-import com.mindex.challenge.data.Employee;
-import com.mindex.challenge.data.ReportingStructure;
-import com.mindex.challenge.service.EmployeeService;
-
-@RunWith(SpringRunner.class)
-@TestPropertySource(locations = "classpath:application.properties")
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-public class EmployeeServiceImplTest {
-
-    private String employeeUrl;
-    private String employeeIdUrl;
-    private String reportinStructureUrl;
-    private String addCompensationUrl;
-    private String findCompensationUrl;
-    
-    @Autowired
-    private EmployeeService employeeService;
-
-    @LocalServerPort
-    private int port;
-
-    @Autowired
-    private TestRestTemplate restTemplate;
-
-    @Before
-    public void setup() {
-        employeeUrl = "http://localhost:" + port + "/employee";
-        employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
-        reportinStructureUrl = "http://localhost:" + port + "/reportingStructure/{id}";
-        addCompensationUrl = "http://localhost:" + port + "/compensation/add/{id}";
-        findCompensationUrl = "http://localhost:" + port + "/compensation/";
-        
-        
-    }
-
-    @Test
-    @Rollback
-    public void testCreateReadUpdate() {
-        Employee testEmployee = new Employee();
-        testEmployee.setFirstName("John");
-        testEmployee.setLastName("Doe");
-        testEmployee.setDepartment("Engineering");
-        testEmployee.setPosition("Developer");
-
-        // Create checks
-        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
-
-        assertNotNull(createdEmployee.getEmployeeId());
-        assertEmployeeEquivalence(testEmployee, createdEmployee);
-
-
-        // Read checks
-        Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
-        assertEquals(createdEmployee.getEmployeeId(), readEmployee.getEmployeeId());
-        assertEmployeeEquivalence(createdEmployee, readEmployee);
-
-
-        // Update checks
-        readEmployee.setPosition("Development Manager");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        Employee updatedEmployee =
-                restTemplate.exchange(employeeIdUrl,
-                        HttpMethod.PUT,
-                        new HttpEntity<Employee>(readEmployee, headers),
-                        Employee.class,
-                        readEmployee.getEmployeeId()).getBody();
-
-        assertEmployeeEquivalence(readEmployee, updatedEmployee);
-    }
-    
-    @Test
-    @Rollback
-    public void testUpdateEmployeeId()
-    {
-    	Employee testEmployee = new Employee();
-        testEmployee.setFirstName("John");
-        testEmployee.setLastName("Doe");
-        testEmployee.setDepartment("Engineering");
-        testEmployee.setPosition("Developer");
-
-        // Create checks
-        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
-
-        assertNotNull(createdEmployee.getEmployeeId());
-        assertEmployeeEquivalence(testEmployee, createdEmployee);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        Employee updatedEmployee =
-                restTemplate.exchange(employeeIdUrl,
-                        HttpMethod.PUT,
-                        new HttpEntity<Employee>(createdEmployee, headers),
-                        Employee.class,
-                        5).getBody();
-        
-    }
-
-    
-    @Test
-    @Rollback
-    public void testReportingStructure_0_Reports()
-    {
-    	String employeeId = "62c1084e-6e34-4630-93fd-9153afb65309";
-    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
-    	assertNotNull(reportingStructure.getEmployee());
-    	Employee employee = reportingStructure.getEmployee();
-    	assertEquals(employeeId, employee.getEmployeeId());
-    	assertEquals("Pete", employee.getFirstName());
-    	assertEquals("Best", employee.getLastName());
-    	assertEquals("Developer II", employee.getPosition());
-    	assertEquals("Engineering", employee.getDepartment());
-    	assertTrue(CollectionUtils.isEmpty(employee.getDirectReports()));
-    	assertEquals((Integer) 0, reportingStructure.getNumberOfReports());
-    }
-    
-    @Test
-    @Rollback
-    public void testReportingStructure_MultipleTier_Reports()
-    {
-    	String employeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
-    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
-    	assertNotNull(reportingStructure.getEmployee());
-    	Employee employee = reportingStructure.getEmployee();
-    	assertEquals(employeeId, employee.getEmployeeId());
-    	assertEquals("John", employee.getFirstName());
-    	assertEquals("Lennon", employee.getLastName());
-    	assertEquals("Development Manager", employee.getPosition());
-    	assertEquals("Engineering", employee.getDepartment());
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
-    	assertEquals((Integer) 4, reportingStructure.getNumberOfReports());
-    }
-    
-    @Test
-    @Rollback
-    public void testReportingStructure_SingleTier_Reports()
-    {
-    	String employeeId = "03aa1462-ffa9-4978-901b-7c001562cf6f";
-    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
-    	assertNotNull(reportingStructure.getEmployee());
-    	Employee employee = reportingStructure.getEmployee();
-    	assertEquals(employeeId, employee.getEmployeeId());
-    	assertEquals("Ringo", employee.getFirstName());
-    	assertEquals("Starr", employee.getLastName());
-    	assertEquals("Developer V", employee.getPosition());
-    	assertEquals("Engineering", employee.getDepartment());
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
-    	assertEquals((Integer) 2, reportingStructure.getNumberOfReports());
-    }
-    
-    @Test
-    @Rollback
-    public void testAddCompensation()
-    {
-    	Compensation comp = new Compensation();
-    	comp.setEffectiveDate(LocalDate.now());
-    	comp.setSalary(BigDecimal.ONE);
-    	
-    	String employeeId = "03aa1462-ffa9-4978-901b-7c001562cf6f";
-    	
-    	Employee employee = restTemplate.postForEntity(addCompensationUrl, comp, Employee.class, employeeId).getBody();
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getCompensation()));
-    	
-    	Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, employeeId).getBody();
-        
-    	assertEmployeeEquivalence(employee, readEmployee);
-    	assertTrue(CollectionUtils.isNotEmpty(readEmployee.getCompensation()));
-    	
-    	
-    }
-    
-    @Test
-    @Rollback
-    public void testAddCompensation_WithNewerCompensation()
-    {
-    	Compensation comp = new Compensation();
-    	comp.setEffectiveDate(LocalDate.now());
-    	comp.setSalary(BigDecimal.ONE);
-    	
-    	String employeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
-    	
-    	Employee employee = restTemplate.postForEntity(addCompensationUrl, comp, Employee.class, employeeId).getBody();
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(employee.getCompensation()));
-    	
-    	Compensation comp2 = new Compensation();
-    	comp2.setSalary(BigDecimal.TEN);
-    	comp2.setEffectiveDate(LocalDate.of(2020, 5, 20));
-    	
-    	ResponseEntity<String> invalidCompResponse = restTemplate.postForEntity(addCompensationUrl, comp2, String.class, employeeId);
-    	
-    	assertEquals(HttpStatus.BAD_REQUEST, invalidCompResponse.getStatusCode());
-    	String body = invalidCompResponse.getBody();
-    	assertTrue(body.startsWith("Failed to update employee"));
-    	
-    	Employee emp = new Employee();
-    	emp.setEmployeeId(employeeId);
-    	List<Compensation> comps = restTemplate.postForEntity(findCompensationUrl, emp, List.class).getBody();
-    	
-    	assertTrue(CollectionUtils.isNotEmpty(comps));
-    	assertEquals(1, comps.size());
-        
-    	
-    	
-    }
-    
-    @Test
-    @Rollback
-    public void testCompBadId()
-    {
-    	Compensation comp2 = new Compensation();
-    	comp2.setSalary(BigDecimal.TEN);
-    	comp2.setEffectiveDate(LocalDate.of(2020, 5, 20));
-    	
-    	ResponseEntity<String> invalidCompResponse = restTemplate.postForEntity(addCompensationUrl, comp2, String.class, " ");
-    	
-    	assertEquals(HttpStatus.BAD_REQUEST, invalidCompResponse.getStatusCode());
-    	
-    	assertEquals("Employee ID must be specified.", invalidCompResponse.getBody());
-    }
-    
-    @Test
-    @Rollback
-    public void testAddEmployee_With_InvalidDirectReports()
-    {
-    	Employee emp = new Employee();
-    	emp.setFirstName("John");
-    	emp.setLastName("Smith");
-    	
-    	Employee report1 = new Employee();
-    	report1.setFirstName("Invalid");
-    	report1.setLastName("Person");
-    	report1.setEmployeeId("-999");
-    	
-    	emp.setDirectReports(Arrays.asList(report1));
-    	
-    	ResponseEntity<String> response = restTemplate.postForEntity(employeeUrl, emp, String.class);
-    	
-    	String body = response.getBody().toString();
-    	
-    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-    	assertTrue(body.startsWith("Employee IDs [-999] were not found"));
-    }
-    
-    @Test
-    @Rollback
-    public void testAddEmployee_AlreadyExists()
-    {
-    	Employee emp = new Employee();
-    	emp.setEmployeeId("03aa1462-ffa9-4978-901b-7c001562cf6f");
-    	emp.setFirstName("John");
-    	emp.setLastName("Smith");
-    	
-    	ResponseEntity<String> response = restTemplate.postForEntity(employeeUrl, emp, String.class);
-    	
-    	String body = response.getBody().toString();
-    	
-    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-    	assertEquals("Employee ID already exists. Employee ID must be unique.", body);
-    }
-    
-    @Test
-    public void testFindReportingStructure_NoId()
-    {
-    	String employeeId = " ";
-    	ResponseEntity<ReportingStructure> response = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId);
-    
-    	assertEquals(HttpStatus.OK, response.getStatusCode());
-    	assertNull(response.getBody().getEmployee());
-    	assertNull(response.getBody().getNumberOfReports());
-    	
-    }
-
-    private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
-        assertEquals(expected.getFirstName(), actual.getFirstName());
-        assertEquals(expected.getLastName(), actual.getLastName());
-        assertEquals(expected.getDepartment(), actual.getDepartment());
-        assertEquals(expected.getPosition(), actual.getPosition());
-    }
-}
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeeBatchResult;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.PayrollReport;
+import com.mindex.challenge.data.PayrollTotal;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class EmployeeServiceImplTest {
+
+    private String employeeUrl;
+    private String employeeBatchUrl;
+    private String employeeExportUrl;
+    private String employeeListUrl;
+    private String employeeIdUrl;
+    private String chainOfCommandUrl;
+    private String reportinStructureUrl;
+    private String reportingTreeUrl;
+    private String reportingStructureBatchUrl;
+    private String addCompensationUrl;
+    private String findCompensationUrl;
+    private String compensationAsOfUrl;
+    private String compensationHistoryUrl;
+    private String latestCompensationUrl;
+    private String payrollUrl;
+    private String snapshotUrl;
+    
+    @Autowired
+    private EmployeeService employeeService;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setup() {
+        employeeUrl = "http://localhost:" + port + "/employee";
+        employeeBatchUrl = "http://localhost:" + port + "/employee/batch";
+        employeeExportUrl = "http://localhost:" + port + "/employees/export";
+        employeeListUrl = "http://localhost:" + port + "/employees";
+        employeeIdUrl = "http://localhost:" + port + "/employee/{id}";
+        chainOfCommandUrl = "http://localhost:" + port + "/employee/{id}/chain";
+        reportinStructureUrl = "http://localhost:" + port + "/reportingStructure/{id}";
+        reportingTreeUrl = "http://localhost:" + port + "/reportingStructure/{id}/tree";
+        reportingStructureBatchUrl = "http://localhost:" + port + "/reportingStructure/batch";
+        addCompensationUrl = "http://localhost:" + port + "/compensation/add/{id}";
+        findCompensationUrl = "http://localhost:" + port + "/compensation/";
+        compensationAsOfUrl = "http://localhost:" + port + "/compensation/{id}/asOf?date={date}";
+        compensationHistoryUrl = "http://localhost:" + port + "/compensation/{id}/history?from={from}&to={to}";
+        latestCompensationUrl = "http://localhost:" + port + "/compensation/latest?asOf={asOf}";
+        payrollUrl = "http://localhost:" + port + "/payroll";
+        snapshotUrl = "http://localhost:" + port + "/admin/snapshot";
+        
+        
+    }
+
+    @Test
+    @Rollback
+    public void testCreateReadUpdate() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("John");
+        testEmployee.setLastName("Doe");
+        testEmployee.setDepartment("Engineering");
+        testEmployee.setPosition("Developer");
+
+        // Create checks
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+
+        assertNotNull(createdEmployee.getEmployeeId());
+        assertEmployeeEquivalence(testEmployee, createdEmployee);
+
+
+        // Read checks
+        Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+        assertEquals(createdEmployee.getEmployeeId(), readEmployee.getEmployeeId());
+        assertEmployeeEquivalence(createdEmployee, readEmployee);
+
+
+        // Update checks
+        readEmployee.setPosition("Development Manager");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        Employee updatedEmployee =
+                restTemplate.exchange(employeeIdUrl,
+                        HttpMethod.PUT,
+                        new HttpEntity<Employee>(readEmployee, headers),
+                        Employee.class,
+                        readEmployee.getEmployeeId()).getBody();
+
+        assertEmployeeEquivalence(readEmployee, updatedEmployee);
+    }
+    
+    @Test
+    @Rollback
+    public void testUpdateEmployeeId()
+    {
+    	Employee testEmployee = new Employee();
+        testEmployee.setFirstName("John");
+        testEmployee.setLastName("Doe");
+        testEmployee.setDepartment("Engineering");
+        testEmployee.setPosition("Developer");
+
+        // Create checks
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+
+        assertNotNull(createdEmployee.getEmployeeId());
+        assertEmployeeEquivalence(testEmployee, createdEmployee);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        Employee updatedEmployee =
+                restTemplate.exchange(employeeIdUrl,
+                        HttpMethod.PUT,
+                        new HttpEntity<Employee>(createdEmployee, headers),
+                        Employee.class,
+                        5).getBody();
+        
+    }
+
+    
+    @Test
+    @Rollback
+    public void testReportingStructure_0_Reports()
+    {
+    	String employeeId = "62c1084e-6e34-4630-93fd-9153afb65309";
+    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
+    	assertNotNull(reportingStructure.getEmployee());
+    	Employee employee = reportingStructure.getEmployee();
+    	assertEquals(employeeId, employee.getEmployeeId());
+    	assertEquals("Pete", employee.getFirstName());
+    	assertEquals("Best", employee.getLastName());
+    	assertEquals("Developer II", employee.getPosition());
+    	assertEquals("Engineering", employee.getDepartment());
+    	assertTrue(CollectionUtils.isEmpty(employee.getDirectReports()));
+    	assertEquals((Integer) 0, reportingStructure.getNumberOfReports());
+    }
+    
+    @Test
+    @Rollback
+    public void testReportingStructure_MultipleTier_Reports()
+    {
+    	String employeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
+    	assertNotNull(reportingStructure.getEmployee());
+    	Employee employee = reportingStructure.getEmployee();
+    	assertEquals(employeeId, employee.getEmployeeId());
+    	assertEquals("John", employee.getFirstName());
+    	assertEquals("Lennon", employee.getLastName());
+    	assertEquals("Development Manager", employee.getPosition());
+    	assertEquals("Engineering", employee.getDepartment());
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
+    	assertEquals((Integer) 4, reportingStructure.getNumberOfReports());
+    }
+    
+    @Test
+    @Rollback
+    public void testReportingStructure_SingleTier_Reports()
+    {
+    	String employeeId = "03aa1462-ffa9-4978-901b-7c001562cf6f";
+    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId).getBody();
+    	assertNotNull(reportingStructure.getEmployee());
+    	Employee employee = reportingStructure.getEmployee();
+    	assertEquals(employeeId, employee.getEmployeeId());
+    	assertEquals("Ringo", employee.getFirstName());
+    	assertEquals("Starr", employee.getLastName());
+    	assertEquals("Developer V", employee.getPosition());
+    	assertEquals("Engineering", employee.getDepartment());
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getDirectReports()));
+    	assertEquals((Integer) 2, reportingStructure.getNumberOfReports());
+    }
+    
+    @Test
+    public void testUpdate_StaleVersion()
+    {
+    	Employee testEmployee = new Employee();
+    	testEmployee.setFirstName("Pete");
+    	testEmployee.setLastName("Best");
+    	testEmployee.setPosition("Drummer");
+    	Employee createdEmployee = restTemplate.postForEntity(employeeUrl, testEmployee, Employee.class).getBody();
+    	assertEquals(Long.valueOf(0), createdEmployee.getVersion());
+
+    	HttpHeaders headers = new HttpHeaders();
+    	headers.setContentType(MediaType.APPLICATION_JSON);
+
+    	Employee replaced = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+    	replaced.setPosition("Former Drummer");
+    	Employee updatedEmployee = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+    			new HttpEntity<Employee>(replaced, headers), Employee.class, createdEmployee.getEmployeeId()).getBody();
+    	assertEquals(Long.valueOf(1), updatedEmployee.getVersion());
+
+    	// Made from the version read before the update above, so it would overwrite it
+    	createdEmployee.setPosition("Session Drummer");
+    	ResponseEntity<String> response = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+    			new HttpEntity<Employee>(createdEmployee, headers), String.class, createdEmployee.getEmployeeId());
+    	assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    	assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+    	ProblemDetail problem = problem(response);
+    	assertEquals(HttpStatus.CONFLICT.value(), problem.getStatus());
+    	assertEquals("Employee changed concurrently", problem.getTitle());
+
+    	// Without a version it can not be told which change the update was made from
+    	createdEmployee.setVersion(null);
+    	response = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+    			new HttpEntity<Employee>(createdEmployee, headers), String.class, createdEmployee.getEmployeeId());
+    	assertEquals(HttpStatus.PRECONDITION_REQUIRED, response.getStatusCode());
+    	assertEquals("Employee version required", problem(response).getTitle());
+
+    	Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+    	assertEquals("Former Drummer", readEmployee.getPosition());
+    	assertEquals(Long.valueOf(1), readEmployee.getVersion());
+    }
+
+    @Test
+    @Rollback
+    public void testReportingStructure_AfterCreateAndUpdate()
+    {
+    	Employee ringo = new Employee();
+    	ringo.setEmployeeId("03aa1462-ffa9-4978-901b-7c001562cf6f");
+    	
+    	Employee manager = new Employee();
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(ringo));
+    	
+    	Employee createdManager = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody();
+    	
+    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, createdManager.getEmployeeId()).getBody();
+    	assertEquals((Integer) 3, reportingStructure.getNumberOfReports());
+    	
+    	// Drop ringo, so no one is left reporting to the manager
+    	createdManager.setDirectReports(null);
+    	
+    	HttpHeaders headers = new HttpHeaders();
+    	headers.setContentType(MediaType.APPLICATION_JSON);
+    	restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<Employee>(createdManager, headers),
+    			Employee.class, createdManager.getEmployeeId());
+    	
+    	reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, createdManager.getEmployeeId()).getBody();
+    	assertEquals((Integer) 0, reportingStructure.getNumberOfReports());
+    }
+    
+    @Test
+    @Rollback
+    public void testAddCompensation()
+    {
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.ONE);
+    	
+    	String employeeId = "03aa1462-ffa9-4978-901b-7c001562cf6f";
+    	
+    	Employee employee = restTemplate.postForEntity(addCompensationUrl, comp, Employee.class, employeeId).getBody();
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getCompensation()));
+    	
+    	Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, employeeId).getBody();
+        
+    	assertEmployeeEquivalence(employee, readEmployee);
+    	assertTrue(CollectionUtils.isNotEmpty(readEmployee.getCompensation()));
+    	
+    	
+    }
+    
+    @Test
+    @Rollback
+    public void testAddCompensation_WithNewerCompensation()
+    {
+    	Compensation comp = new Compensation();
+    	comp.setEffectiveDate(LocalDate.now());
+    	comp.setSalary(BigDecimal.ONE);
+    	
+    	String employeeId = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+    	
+    	Employee employee = restTemplate.postForEntity(addCompensationUrl, comp, Employee.class, employeeId).getBody();
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(employee.getCompensation()));
+    	
+    	Compensation comp2 = new Compensation();
+    	comp2.setSalary(BigDecimal.TEN);
+    	comp2.setEffectiveDate(LocalDate.of(2020, 5, 20));
+    	
+    	ResponseEntity<String> invalidCompResponse = restTemplate.postForEntity(addCompensationUrl, comp2, String.class, employeeId);
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, invalidCompResponse.getStatusCode());
+    	assertEquals(MediaType.APPLICATION_PROBLEM_JSON, invalidCompResponse.getHeaders().getContentType());
+    	ProblemDetail problem = problem(invalidCompResponse);
+    	assertEquals(HttpStatus.BAD_REQUEST.value(), problem.getStatus());
+    	assertEquals("Compensation in the past", problem.getTitle());
+    	assertTrue(problem.getDetail().startsWith("Failed to update employee"));
+    	
+    	Employee emp = new Employee();
+    	emp.setEmployeeId(employeeId);
+    	List<Compensation> comps = restTemplate.postForEntity(findCompensationUrl, emp, List.class).getBody();
+    	
+    	assertTrue(CollectionUtils.isNotEmpty(comps));
+    	assertEquals(1, comps.size());
+        
+    	
+    	
+    }
+    
+    @Test
+    public void testCompensationTimeSeries()
+    {
+    	Employee employee = new Employee();
+    	employee.setFirstName("Ringo");
+    	employee.setLastName("Starr");
+    	String employeeId = restTemplate.postForEntity(employeeUrl, employee, Employee.class).getBody().getEmployeeId();
+    	
+    	for (int year = 2020; year <= 2022; year++)
+    	{
+    		Compensation comp = new Compensation();
+    		comp.setEffectiveDate(LocalDate.of(year, 1, 1));
+    		comp.setSalary(new BigDecimal(year));
+    		restTemplate.postForEntity(addCompensationUrl, comp, Employee.class, employeeId);
+    	}
+    	
+    	Compensation asOf = restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2021-06-30").getBody();
+    	assertEquals(LocalDate.of(2021, 1, 1), asOf.getEffectiveDate());
+    	assertNull(restTemplate.getForEntity(compensationAsOfUrl, Compensation.class, employeeId, "2019-12-31").getBody());
+    	
+    	Compensation[] history = restTemplate.getForEntity(compensationHistoryUrl, Compensation[].class, employeeId, "2021-01-01", "2022-01-01").getBody();
+    	assertEquals(2, history.length);
+    	assertEquals(LocalDate.of(2021, 1, 1), history[0].getEffectiveDate());
+    	assertEquals(LocalDate.of(2022, 1, 1), history[1].getEffectiveDate());
+    	
+    	List<String> ids = Arrays.asList(employeeId, "16a596ae-edd3-4847-99fe-c4518e82c86e");
+    	ResponseEntity<Map<String, Compensation>> latest = restTemplate.exchange(latestCompensationUrl, HttpMethod.POST,
+    			new HttpEntity<>(ids), new ParameterizedTypeReference<Map<String, Compensation>>() {}, "2020-06-30");
+    	assertEquals(HttpStatus.OK, latest.getStatusCode());
+    	assertEquals(1, latest.getBody().size());
+    	assertEquals(0, new BigDecimal(2020).compareTo(latest.getBody().get(employeeId).getSalary()));
+    	assertEquals(LocalDate.of(2020, 1, 1), latest.getBody().get(employeeId).getEffectiveDate());
+    	
+    	ResponseEntity<String> badId = restTemplate.getForEntity(compensationAsOfUrl, String.class, "missing", "2021-06-30");
+    	assertEquals(HttpStatus.BAD_REQUEST, badId.getStatusCode());
+    }
+    
+    @Test
+    @Rollback
+    public void testCompBadId()
+    {
+    	Compensation comp2 = new Compensation();
+    	comp2.setSalary(BigDecimal.TEN);
+    	comp2.setEffectiveDate(LocalDate.of(2020, 5, 20));
+    	
+    	ResponseEntity<String> invalidCompResponse = restTemplate.postForEntity(addCompensationUrl, comp2, String.class, " ");
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, invalidCompResponse.getStatusCode());
+    	
+    	assertEquals("Employee ID must be specified.", problem(invalidCompResponse).getDetail());
+    }
+    
+    @Test
+    @Rollback
+    public void testAddEmployee_With_InvalidDirectReports()
+    {
+    	Employee emp = new Employee();
+    	emp.setFirstName("John");
+    	emp.setLastName("Smith");
+    	
+    	Employee report1 = new Employee();
+    	report1.setFirstName("Invalid");
+    	report1.setLastName("Person");
+    	report1.setEmployeeId("-999");
+    	
+    	emp.setDirectReports(Arrays.asList(report1));
+    	
+    	ResponseEntity<String> response = restTemplate.postForEntity(employeeUrl, emp, String.class);
+    	
+    	String detail = problem(response).getDetail();
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertEquals("Employee IDs [-999] were not found while creating employee John Smith", detail);
+    }
+    
+    @Test
+    @Rollback
+    public void testAddEmployee_AlreadyExists()
+    {
+    	Employee emp = new Employee();
+    	emp.setEmployeeId("03aa1462-ffa9-4978-901b-7c001562cf6f");
+    	emp.setFirstName("John");
+    	emp.setLastName("Smith");
+    	
+    	ResponseEntity<String> response = restTemplate.postForEntity(employeeUrl, emp, String.class);
+    	
+    	String detail = problem(response).getDetail();
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertEquals("User \"03aa1462-ffa9-4978-901b-7c001562cf6f\" already exists. Employee ID must be unique", detail);
+    }
+    
+    @Test
+    @Rollback
+    public void testCreateAll()
+    {
+    	Employee ringo = new Employee();
+    	ringo.setEmployeeId("03aa1462-ffa9-4978-901b-7c001562cf6f");
+    	
+    	Employee manager = new Employee();
+    	manager.setEmployeeId("batch-manager");
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(ringo));
+    	
+    	Employee managerReference = new Employee();
+    	managerReference.setEmployeeId("batch-manager");
+    	
+    	Employee director = new Employee();
+    	director.setFirstName("George");
+    	director.setLastName("Martin");
+    	director.setDirectReports(Arrays.asList(managerReference));
+    	
+    	Employee duplicate = new Employee();
+    	duplicate.setEmployeeId("03aa1462-ffa9-4978-901b-7c001562cf6f");
+    	
+    	ResponseEntity<EmployeeBatchResult[]> response = restTemplate.postForEntity(employeeBatchUrl,
+    			Arrays.asList(manager, director, duplicate), EmployeeBatchResult[].class);
+    	
+    	assertEquals(HttpStatus.OK, response.getStatusCode());
+    	EmployeeBatchResult[] results = response.getBody();
+    	assertEquals(3, results.length);
+    	assertTrue(results[0].isCreated());
+    	assertTrue(results[1].isCreated());
+    	assertFalse(results[2].isCreated());
+    	
+    	Employee createdManager = restTemplate.getForEntity(employeeIdUrl, Employee.class, results[0].getEmployeeId()).getBody();
+    	assertEmployeeEquivalence(manager, createdManager);
+    	
+    	// Director -> manager -> ringo -> pete, george
+    	ReportingStructure reportingStructure = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, results[1].getEmployeeId()).getBody();
+    	assertEquals((Integer) 4, reportingStructure.getNumberOfReports());
+    }
+    
+    @Test
+    public void testList_Paged()
+    {
+    	List<String> employeeIds = new ArrayList<>();
+    	String after = "";
+    	do
+    	{
+    		ResponseEntity<EmployeePage> response = restTemplate.getForEntity(employeeListUrl + "?after={after}&limit=2&fields=firstName,lastName",
+    				EmployeePage.class, after);
+    		assertEquals(HttpStatus.OK, response.getStatusCode());
+    		
+    		EmployeePage page = response.getBody();
+    		assertTrue(page.getEmployees().size() <= 2);
+    		for (Employee employee : page.getEmployees())
+    		{
+    			employeeIds.add(employee.getEmployeeId());
+    			assertNotNull(employee.getLastName());
+    			assertNull(employee.getDepartment());
+    			assertNull(employee.getDirectReports());
+    		}
+    		after = page.getNextCursor();
+    	}
+    	while (after != null);
+    	
+    	// Every employee once, in employee ID order
+    	List<String> sorted = new ArrayList<>(employeeIds);
+    	sorted.sort(null);
+    	assertEquals(sorted, employeeIds);
+    	assertEquals(employeeIds.size(), employeeIds.stream().distinct().count());
+    	assertTrue(employeeIds.containsAll(Arrays.asList("16a596ae-edd3-4847-99fe-c4518e82c86f", "b7839309-3348-463b-a7e3-5de1c168beb3",
+    			"03aa1462-ffa9-4978-901b-7c001562cf6f", "62c1084e-6e34-4630-93fd-9153afb65309", "c0c2293d-16bd-4603-8e08-638a9d18b22c")));
+    }
+    
+    @Test
+    public void testList_InvalidField()
+    {
+    	ResponseEntity<String> response = restTemplate.getForEntity(employeeListUrl + "?fields=firstName,salary", String.class);
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertTrue(problem(response).getDetail().startsWith("Fields [salary] can not be selected"));
+    }
+    
+    @Test
+    public void testRead_ExpandDirectReports()
+    {
+    	Employee report = new Employee();
+    	report.setFirstName("Pete");
+    	report.setLastName("Best");
+    	report.setPosition("Drummer");
+    	String reportId = restTemplate.postForEntity(employeeUrl, report, Employee.class).getBody().getEmployeeId();
+
+    	// Sent with a stale copy of the report, only the employee ID is kept
+    	Employee staleReport = new Employee();
+    	staleReport.setEmployeeId(reportId);
+    	staleReport.setPosition("Bassist");
+    	Employee manager = new Employee();
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(staleReport));
+    	String managerId = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody().getEmployeeId();
+
+    	Employee readManager = restTemplate.getForEntity(employeeIdUrl, Employee.class, managerId).getBody();
+    	assertEquals(reportId, readManager.getDirectReports().get(0).getEmployeeId());
+    	assertNull(readManager.getDirectReports().get(0).getPosition());
+
+    	Employee expandedManager = restTemplate.getForEntity(employeeIdUrl + "?expand=directReports", Employee.class, managerId).getBody();
+    	assertEquals("Epstein", expandedManager.getLastName());
+    	assertEquals(1, expandedManager.getDirectReports().size());
+    	assertEmployeeEquivalence(report, expandedManager.getDirectReports().get(0));
+
+    	ResponseEntity<String> response = restTemplate.getForEntity(employeeIdUrl + "?expand=compensation", String.class, managerId);
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertTrue(problem(response).getDetail().startsWith("Fields [compensation] can not be expanded"));
+    }
+
+    @Test
+    public void testReportingStructureBatch()
+    {
+    	Employee report = new Employee();
+    	report.setFirstName("Mal");
+    	report.setLastName("Evans");
+    	Employee createdReport = restTemplate.postForEntity(employeeUrl, report, Employee.class).getBody();
+
+    	Employee manager = new Employee();
+    	manager.setFirstName("Neil");
+    	manager.setLastName("Aspinall");
+    	manager.setDirectReports(Arrays.asList(Employee.reference(createdReport.getEmployeeId())));
+    	Employee createdManager = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody();
+
+    	Employee topManager = new Employee();
+    	topManager.setFirstName("Brian");
+    	topManager.setLastName("Epstein");
+    	topManager.setDirectReports(Arrays.asList(Employee.reference(createdManager.getEmployeeId())));
+    	Employee createdTopManager = restTemplate.postForEntity(employeeUrl, topManager, Employee.class).getBody();
+
+    	List<String> ids = Arrays.asList(createdTopManager.getEmployeeId(), "missing", createdManager.getEmployeeId(),
+    			createdReport.getEmployeeId());
+    	ReportingStructure[] reportingStructures = restTemplate.postForEntity(reportingStructureBatchUrl, ids,
+    			ReportingStructure[].class).getBody();
+
+    	assertEquals(4, reportingStructures.length);
+    	assertEquals((Integer) 2, reportingStructures[0].getNumberOfReports());
+    	assertEmployeeEquivalence(createdTopManager, reportingStructures[0].getEmployee());
+    	assertNull(reportingStructures[1].getEmployee());
+    	assertNull(reportingStructures[1].getNumberOfReports());
+    	assertEquals((Integer) 1, reportingStructures[2].getNumberOfReports());
+    	assertEquals((Integer) 0, reportingStructures[3].getNumberOfReports());
+    }
+
+    @Test
+    public void testReportingTree()
+    {
+    	Employee roadie = new Employee();
+    	roadie.setFirstName("Mal");
+    	roadie.setLastName("Evans");
+    	Employee createdRoadie = restTemplate.postForEntity(employeeUrl, roadie, Employee.class).getBody();
+
+    	Employee tourManager = new Employee();
+    	tourManager.setFirstName("Neil");
+    	tourManager.setLastName("Aspinall");
+    	tourManager.setDirectReports(Arrays.asList(Employee.reference(createdRoadie.getEmployeeId())));
+    	Employee createdTourManager = restTemplate.postForEntity(employeeUrl, tourManager, Employee.class).getBody();
+
+    	Employee producer = new Employee();
+    	producer.setFirstName("George");
+    	producer.setLastName("Martin");
+    	Employee createdProducer = restTemplate.postForEntity(employeeUrl, producer, Employee.class).getBody();
+
+    	Employee manager = new Employee();
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(Employee.reference(createdTourManager.getEmployeeId()),
+    			Employee.reference(createdProducer.getEmployeeId())));
+    	Employee createdManager = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody();
+
+    	Employee tree = restTemplate.getForEntity(reportingTreeUrl, Employee.class, createdManager.getEmployeeId()).getBody();
+    	assertEmployeeEquivalence(createdManager, tree);
+    	assertEquals(2, tree.getDirectReports().size());
+    	assertEmployeeEquivalence(createdTourManager, tree.getDirectReports().get(0));
+    	assertEmployeeEquivalence(createdProducer, tree.getDirectReports().get(1));
+    	assertEmployeeEquivalence(createdRoadie, tree.getDirectReports().get(0).getDirectReports().get(0));
+
+    	// Reports below the depth asked for only hold their employee ID
+    	tree = restTemplate.getForEntity(reportingTreeUrl + "?maxDepth=1", Employee.class, createdManager.getEmployeeId()).getBody();
+    	assertEquals("Aspinall", tree.getDirectReports().get(0).getLastName());
+    	Employee roadieReference = tree.getDirectReports().get(0).getDirectReports().get(0);
+    	assertEquals(createdRoadie.getEmployeeId(), roadieReference.getEmployeeId());
+    	assertNull(roadieReference.getLastName());
+    	assertNull(roadieReference.getDirectReports());
+
+    	// A cycle ends at the employee it comes back round to. Read again, as being given a manager moved it on a version
+    	Employee currentRoadie = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdRoadie.getEmployeeId()).getBody();
+    	currentRoadie.setDirectReports(Arrays.asList(Employee.reference(createdManager.getEmployeeId())));
+    	HttpHeaders headers = new HttpHeaders();
+    	headers.setContentType(MediaType.APPLICATION_JSON);
+    	restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<Employee>(currentRoadie, headers),
+    			Employee.class, createdRoadie.getEmployeeId());
+    	tree = restTemplate.getForEntity(reportingTreeUrl, Employee.class, createdManager.getEmployeeId()).getBody();
+    	Employee managerReference = tree.getDirectReports().get(0).getDirectReports().get(0).getDirectReports().get(0);
+    	assertEquals(createdManager.getEmployeeId(), managerReference.getEmployeeId());
+    	assertNull(managerReference.getLastName());
+
+    	ResponseEntity<String> response = restTemplate.getForEntity(reportingTreeUrl, String.class, "missing");
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertEquals(HttpStatus.BAD_REQUEST.value(), problem(response).getStatus());
+    }
+
+    @Test
+    public void testChainOfCommand()
+    {
+    	Employee drummer = new Employee();
+    	drummer.setFirstName("Ringo");
+    	drummer.setLastName("Starr");
+    	drummer.setManagerId("16a596ae-edd3-4847-99fe-c4518e82c86f");
+    	Employee createdDrummer = restTemplate.postForEntity(employeeUrl, drummer, Employee.class).getBody();
+    	// A managerId sent by the client is ignored, only direct reports set it
+    	assertNull(createdDrummer.getManagerId());
+
+    	Employee bandLeader = new Employee();
+    	bandLeader.setFirstName("John");
+    	bandLeader.setLastName("Lennon");
+    	bandLeader.setDirectReports(Arrays.asList(Employee.reference(createdDrummer.getEmployeeId())));
+    	Employee createdBandLeader = restTemplate.postForEntity(employeeUrl, bandLeader, Employee.class).getBody();
+
+    	Employee manager = new Employee();
+    	manager.setFirstName("Brian");
+    	manager.setLastName("Epstein");
+    	manager.setDirectReports(Arrays.asList(Employee.reference(createdBandLeader.getEmployeeId())));
+    	Employee createdManager = restTemplate.postForEntity(employeeUrl, manager, Employee.class).getBody();
+
+    	Employee[] chain = restTemplate.getForEntity(chainOfCommandUrl, Employee[].class, createdDrummer.getEmployeeId()).getBody();
+    	assertEquals(2, chain.length);
+    	assertEquals(createdBandLeader.getEmployeeId(), chain[0].getEmployeeId());
+    	assertEquals(createdDrummer.getEmployeeId(), chain[0].getDirectReports().get(0).getEmployeeId());
+    	assertEquals(createdManager.getEmployeeId(), chain[0].getManagerId());
+    	assertEquals(createdManager.getEmployeeId(), chain[1].getEmployeeId());
+    	assertNull(chain[1].getManagerId());
+
+    	Employee currentBandLeader = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdBandLeader.getEmployeeId()).getBody();
+    	currentBandLeader.setManagerId(createdDrummer.getEmployeeId());
+    	HttpHeaders headers = new HttpHeaders();
+    	headers.setContentType(MediaType.APPLICATION_JSON);
+    	ResponseEntity<Employee> updated = restTemplate.exchange(employeeIdUrl, HttpMethod.PUT,
+    			new HttpEntity<Employee>(currentBandLeader, headers), Employee.class, createdBandLeader.getEmployeeId());
+    	assertEquals(HttpStatus.OK, updated.getStatusCode());
+    	chain = restTemplate.getForEntity(chainOfCommandUrl, Employee[].class, createdBandLeader.getEmployeeId()).getBody();
+    	assertEquals(1, chain.length);
+    	assertEquals(createdManager.getEmployeeId(), chain[0].getEmployeeId());
+
+    	// The band leader no longer reports to the manager
+    	createdManager.setDirectReports(null);
+    	restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<Employee>(createdManager, headers),
+    			Employee.class, createdManager.getEmployeeId());
+    	chain = restTemplate.getForEntity(chainOfCommandUrl, Employee[].class, createdDrummer.getEmployeeId()).getBody();
+    	assertEquals(1, chain.length);
+    	assertEquals(createdBandLeader.getEmployeeId(), chain[0].getEmployeeId());
+    	assertEquals(0, restTemplate.getForEntity(chainOfCommandUrl, Employee[].class, createdManager.getEmployeeId()).getBody().length);
+
+    	ResponseEntity<String> response = restTemplate.getForEntity(chainOfCommandUrl, String.class, "missing");
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertEquals(HttpStatus.BAD_REQUEST.value(), problem(response).getStatus());
+    }
+
+    @Test
+    public void testExport()
+    {
+    	ResponseEntity<String> response = restTemplate.getForEntity(employeeExportUrl, String.class);
+    	
+    	assertEquals(HttpStatus.OK, response.getStatusCode());
+    	assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    	
+    	List<Employee> employees = readLines(response.getBody());
+    	assertTrue(employees.size() >= 5);
+    	assertTrue(employees.stream().anyMatch(employee -> "16a596ae-edd3-4847-99fe-c4518e82c86f".equals(employee.getEmployeeId())));
+    }
+    
+    @Test
+    public void testExport_Filtered()
+    {
+    	ResponseEntity<String> response = restTemplate.getForEntity(employeeExportUrl + "?department={department}&position={position}",
+    			String.class, "Engineering", "Developer V");
+    	
+    	assertEquals(HttpStatus.OK, response.getStatusCode());
+    	
+    	List<Employee> employees = readLines(response.getBody());
+    	assertEquals(1, employees.size());
+    	assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", employees.get(0).getEmployeeId());
+    	assertEquals("Starr", employees.get(0).getLastName());
+    }
+    
+    @Test
+    public void testPayroll()
+    {
+    	ResponseEntity<PayrollReport> response = restTemplate.getForEntity(payrollUrl + "?asOf={asOf}", PayrollReport.class, "2024-01-01");
+    	
+    	assertEquals(HttpStatus.OK, response.getStatusCode());
+    	PayrollReport report = response.getBody();
+    	assertEquals(LocalDate.of(2024, 1, 1), report.getAsOf());
+    	assertTrue(report.getDepartments().containsKey("Engineering"));
+    	
+    	// John Lennon and the four employees underneath
+    	PayrollTotal lennon = report.getManagers().get("16a596ae-edd3-4847-99fe-c4518e82c86f");
+    	assertNotNull(lennon);
+    	assertTrue(lennon.getEmployees() >= 5);
+    	assertTrue(report.getTotal().getEmployees() >= lennon.getEmployees());
+    }
+    
+    @Test
+    public void testSnapshot_NoPath()
+    {
+    	ResponseEntity<String> response = restTemplate.postForEntity(snapshotUrl, null, String.class);
+    	
+    	assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    	assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+    	assertEquals("Set bootstrap.snapshot.path to write a snapshot.", problem(response).getDetail());
+    }
+    
+    @Test
+    public void testFindReportingStructure_NoId()
+    {
+    	String employeeId = " ";
+    	ResponseEntity<ReportingStructure> response = restTemplate.getForEntity(reportinStructureUrl, ReportingStructure.class, employeeId);
+    
+    	assertEquals(HttpStatus.OK, response.getStatusCode());
+    	assertNull(response.getBody().getEmployee());
+    	assertNull(response.getBody().getNumberOfReports());
+    	
+    }
+
+    private List<Employee> readLines(String body)
+    {
+    	List<Employee> employees = new ArrayList<>();
+    	for (String line : body.split("\n"))
+    	{
+    		try
+    		{
+    			employees.add(objectMapper.readValue(line, Employee.class));
+    		}
+    		catch (JsonProcessingException e)
+    		{
+    			throw new AssertionError("Unable to read exported line: " + line, e);
+    		}
+    	}
+    	return employees;
+    }
+
+    private ProblemDetail problem(ResponseEntity<String> response)
+    {
+    	try
+    	{
+    		return objectMapper.readValue(response.getBody(), ProblemDetail.class);
+    	}
+    	catch (JsonProcessingException e)
+    	{
+    		throw new AssertionError("Unable to read problem detail: " + response.getBody(), e);
+    	}
+    }
+    
+    private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
+        assertEquals(expected.getFirstName(), actual.getFirstName());
+        assertEquals(expected.getLastName(), actual.getLastName());
+        assertEquals(expected.getDepartment(), actual.getDepartment());
+        assertEquals(expected.getPosition(), actual.getPosition());
+    }
+}
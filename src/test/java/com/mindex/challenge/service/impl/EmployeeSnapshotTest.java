@@ -0,0 +1,115 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmployeeSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+
+	@Mock
+	private CompensationRepository compensationRepository;
+
+	@InjectMocks
+	private EmployeeSnapshot employeeSnapshot;
+
+	@Test
+	public void testWriteRead() throws IOException
+	{
+		Employee manager = employee("1", "John", "Lennon", "Development Manager", "Engineering");
+		manager.setDirectReports(Arrays.asList(reference("2"), reference("3")));
+		Compensation comp = new Compensation();
+		comp.setSalary(new BigDecimal("123456.78"));
+		comp.setEffectiveDate(LocalDate.of(2024, 3, 1));
+		List<CompensationRecord> compensation = Arrays.asList(CompensationRecord.of("1", comp));
+
+		Employee developer = employee("2", "Paul", "McCartney", "Developer I", "Engineering");
+		Employee unnamed = employee("3", null, "Starr", null, null);
+
+		List<Employee> employees = Arrays.asList(manager, developer, unnamed);
+		when(employeeRepository.streamAll(null, null)).thenReturn(employees.stream());
+		when(compensationRepository.streamAllBy()).thenReturn(compensation.stream());
+
+		Path path = folder.getRoot().toPath().resolve("employees.snapshot");
+		assertEquals(3, employeeSnapshot.write(path));
+
+		List<Employee> read = new ArrayList<>();
+		List<CompensationRecord> readCompensation = new ArrayList<>();
+		assertEquals(3, employeeSnapshot.read(path, read::add, readCompensation::add));
+
+		assertEquals(employees, read);
+		assertEquals(Arrays.asList(reference("2"), reference("3")), read.get(0).getDirectReports());
+		assertEquals(compensation, readCompensation);
+		assertNull(read.get(1).getDirectReports());
+		assertNull(read.get(2).getFirstName());
+		assertNull(read.get(2).getDepartment());
+
+		// Departments are stored once and shared by every employee reading them back
+		assertTrue(read.get(0).getDepartment() == read.get(1).getDepartment());
+	}
+
+	@Test
+	public void testReadNotSnapshot() throws IOException
+	{
+		Path path = folder.newFile("employees.json").toPath();
+		Files.writeString(path, "[{\"employeeId\": \"1\"}]");
+
+		try
+		{
+			employeeSnapshot.read(path, employee -> fail("Nothing should be read"), comp -> fail("Nothing should be read"));
+			fail("Expected IOException");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage().endsWith("is not an employee snapshot"));
+		}
+	}
+
+	private static Employee employee(String employeeId, String firstName, String lastName, String position, String department)
+	{
+		Employee employee = reference(employeeId);
+		employee.setFirstName(firstName);
+		employee.setLastName(lastName);
+		employee.setPosition(position);
+		employee.setDepartment(department);
+		return employee;
+	}
+
+	private static Employee reference(String employeeId)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		return employee;
+	}
+}
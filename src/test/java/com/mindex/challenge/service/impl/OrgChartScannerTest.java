@@ -0,0 +1,99 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.OrgChartScan;
+
+public class OrgChartScannerTest {
+
+	@Test
+	public void testScan_Clean()
+	{
+		OrgChartScan scan = OrgChartScanner.scan(Arrays.asList(
+				employee("john", "paul", "ringo"),
+				employee("paul"),
+				employee("ringo", "pete", "george"),
+				employee("pete"),
+				employee("george")));
+
+		assertEquals(5, scan.getEmployees());
+		assertEquals(4, scan.getDirectReports());
+		assertTrue(scan.getOrphanedReferences().isEmpty());
+		assertTrue(scan.getCycles().isEmpty());
+	}
+
+	@Test
+	public void testScan_OrphanedReferences()
+	{
+		OrgChartScan scan = OrgChartScanner.scan(Arrays.asList(
+				employee("john", "paul", "stuart"),
+				employee("paul", "brian"),
+				employee("ringo")));
+
+		assertEquals(3, scan.getEmployees());
+		assertEquals(Collections.singletonList("stuart"), scan.getOrphanedReferences().get("john"));
+		assertEquals(Collections.singletonList("brian"), scan.getOrphanedReferences().get("paul"));
+		assertEquals(2, scan.getOrphanedReferences().size());
+		assertTrue(scan.getCycles().isEmpty());
+	}
+
+	@Test
+	public void testScan_Cycles()
+	{
+		// john -> paul -> john and a self managing ringo, reached from both sides of the chart
+		OrgChartScan scan = OrgChartScanner.scan(Arrays.asList(
+				employee("john", "paul", "ringo"),
+				employee("paul", "john", "george"),
+				employee("george", "ringo"),
+				employee("ringo", "ringo")));
+
+		assertTrue(scan.getOrphanedReferences().isEmpty());
+		assertEquals(2, scan.getCycles().size());
+		assertTrue(scan.getCycles().contains(Arrays.asList("john", "paul")));
+		assertTrue(scan.getCycles().contains(Collections.singletonList("ringo")));
+	}
+
+	@Test
+	public void testScan_LongCycle()
+	{
+		// A chain that loops back to its top is found once, in order, without recursion
+		int size = 100_000;
+		List<Employee> employees = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+		{
+			employees.add(employee("e" + i, "e" + ((i + 1) % size)));
+		}
+
+		OrgChartScan scan = OrgChartScanner.scan(employees);
+
+		assertEquals(1, scan.getCycles().size());
+		assertEquals(size, scan.getCycles().get(0).size());
+		assertEquals("e0", scan.getCycles().get(0).get(0));
+		assertEquals("e" + (size - 1), scan.getCycles().get(0).get(size - 1));
+	}
+
+	private static Employee employee(String employeeId, String... directReportIds)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		if (directReportIds.length > 0)
+		{
+			List<Employee> directReports = new ArrayList<>();
+			for (String directReportId : directReportIds)
+			{
+				directReports.add(employee(directReportId));
+			}
+			employee.setDirectReports(directReports);
+		}
+		return employee;
+	}
+}
@@ -0,0 +1,166 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mindex.challenge.config.MongoBackendType;
+import com.mindex.challenge.data.Employee;
+
+public class OrgGraphIndexTest {
+
+	private OrgGraphIndex orgGraphIndex;
+
+	/**
+	 * Builds the seeded org chart
+	 *
+	 * <pre>
+	 *                  john
+	 *                /      \
+	 *             paul     ringo
+	 *                     /     \
+	 *                   pete   george
+	 * </pre>
+	 */
+	@Before
+	public void setup()
+	{
+		orgGraphIndex = new OrgGraphIndex();
+		orgGraphIndex.rebuild(Arrays.asList(
+				employee("john", "paul", "ringo"),
+				employee("paul"),
+				employee("ringo", "pete", "george"),
+				employee("pete"),
+				employee("george")));
+	}
+
+	@Test
+	public void testRebuild()
+	{
+		assertEquals(4, orgGraphIndex.countReports("john").getNumberOfReports());
+		assertEquals(0, orgGraphIndex.countReports("paul").getNumberOfReports());
+		assertEquals(2, orgGraphIndex.countReports("ringo").getNumberOfReports());
+		assertEquals(0, orgGraphIndex.countReports("pete").getNumberOfReports());
+		assertEquals(0, orgGraphIndex.countReports("unknown").getNumberOfReports());
+	}
+
+	@Test
+	public void testAddReports()
+	{
+		orgGraphIndex.setDirectReports("stuart", reports());
+		orgGraphIndex.setDirectReports("paul", reports("stuart"));
+
+		assertEquals(1, orgGraphIndex.countReports("paul").getNumberOfReports());
+		assertEquals(5, orgGraphIndex.countReports("john").getNumberOfReports());
+	}
+
+	@Test
+	public void testMoveSubtree()
+	{
+		orgGraphIndex.setDirectReports("john", reports("paul"));
+		assertEquals(1, orgGraphIndex.countReports("john").getNumberOfReports());
+
+		orgGraphIndex.setDirectReports("paul", reports("ringo"));
+		assertEquals(3, orgGraphIndex.countReports("paul").getNumberOfReports());
+		assertEquals(4, orgGraphIndex.countReports("john").getNumberOfReports());
+	}
+
+	@Test
+	public void testCycle()
+	{
+		orgGraphIndex.setDirectReports("pete", reports("john"));
+
+		assertEquals(4, orgGraphIndex.countReports("john").getNumberOfReports());
+		assertEquals(4, orgGraphIndex.countReports("pete").getNumberOfReports());
+		assertEquals(0, orgGraphIndex.countReports("paul").getNumberOfReports());
+
+		// Removing the cycle goes back to cached counts
+		orgGraphIndex.setDirectReports("pete", reports());
+		assertEquals(4, orgGraphIndex.countReports("john").getNumberOfReports());
+		assertEquals(2, orgGraphIndex.countReports("ringo").getNumberOfReports());
+	}
+
+	@Test
+	public void testTwoManagers()
+	{
+		orgGraphIndex.setDirectReports("paul", reports("pete"));
+
+		// Pete is only counted once under john
+		assertEquals(4, orgGraphIndex.countReports("john").getNumberOfReports());
+		assertEquals(1, orgGraphIndex.countReports("paul").getNumberOfReports());
+		assertEquals(2, orgGraphIndex.countReports("ringo").getNumberOfReports());
+	}
+
+	@Test
+	public void testDepth()
+	{
+		assertEquals(2, orgGraphIndex.countReports("john").getDepth());
+		assertEquals(1, orgGraphIndex.countReports("ringo").getDepth());
+		assertEquals(0, orgGraphIndex.countReports("paul").getDepth());
+
+		// Deepened below paul, then the deepest branch under ringo removed
+		orgGraphIndex.setDirectReports("stuart", reports());
+		orgGraphIndex.setDirectReports("george", reports("stuart"));
+		assertEquals(3, orgGraphIndex.countReports("john").getDepth());
+		orgGraphIndex.setDirectReports("ringo", reports("pete"));
+		assertEquals(2, orgGraphIndex.countReports("john").getDepth());
+
+		// Walked when the chart is not a tree
+		orgGraphIndex.setDirectReports("paul", reports("pete"));
+		assertEquals(2, orgGraphIndex.countReports("john").getDepth());
+		orgGraphIndex.setDirectReports("pete", reports("john"));
+		assertEquals(3, orgGraphIndex.countReports("ringo").getDepth());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testExternalBackend()
+	{
+		ReflectionTestUtils.setField(orgGraphIndex, "mongoBackend", MongoBackendType.EXTERNAL);
+		orgGraphIndex.init();
+	}
+
+	@Test
+	public void testLargeTree()
+	{
+		List<Employee> employees = new ArrayList<>();
+		employees.add(employee("root"));
+		List<Employee> rootReports = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			employees.add(employee("manager-" + i, "report-" + i));
+			employees.add(employee("report-" + i));
+			rootReports.add(employee("manager-" + i));
+		}
+		orgGraphIndex.rebuild(employees);
+		orgGraphIndex.setDirectReports("root", rootReports);
+
+		assertEquals(2000, orgGraphIndex.countReports("root").getNumberOfReports());
+	}
+
+	private static Employee employee(String employeeId, String... directReportIds)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		if (directReportIds.length > 0)
+		{
+			employee.setDirectReports(reports(directReportIds));
+		}
+		return employee;
+	}
+
+	private static List<Employee> reports(String... directReportIds)
+	{
+		List<Employee> directReports = new ArrayList<>();
+		for (String directReportId : directReportIds)
+		{
+			directReports.add(employee(directReportId));
+		}
+		return directReports;
+	}
+}
@@ -0,0 +1,128 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.mindex.challenge.dao.CompensationRepository;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRecord;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.PayrollReport;
+import com.mindex.challenge.data.PayrollTotal;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PayrollServiceImplTest {
+
+	@Mock
+	private EmployeeRepository employeeRepository;
+
+	@Mock
+	private CompensationRepository compensationRepository;
+
+	@InjectMocks
+	private PayrollServiceImpl payrollService;
+
+	@Test
+	public void testFindPayroll()
+	{
+		//          1            5 (also lists 2)     6 <-> 7
+		//        /   \
+		//       2     3
+		//              \
+		//               4
+		List<Employee> employees = Arrays.asList(
+				employee("1", "Engineering", "2", "3"),
+				employee("2", "Engineering"),
+				employee("3", "Sales", "4"),
+				employee("4", null),
+				employee("5", "Sales", "2"),
+				employee("6", "Operations", "7"),
+				employee("7", "Operations", "6"));
+		LocalDate asOf = LocalDate.of(2024, 1, 1);
+
+		when(employeeRepository.streamAll(null, null)).thenReturn(employees.stream());
+		when(compensationRepository.findLatest(null, asOf)).thenReturn(Arrays.asList(
+				salary("1", "100"), salary("2", "50"), salary("4", "25"), salary("5", "10"), salary("6", "1"),
+				salary("7", "1")));
+
+		PayrollReport report = payrollService.findPayroll(asOf);
+
+		assertEquals(asOf, report.getAsOf());
+		assertTotal(7, 6, "187", report.getTotal());
+		assertEquals(new BigDecimal("31.17"), report.getTotal().getAverageSalary());
+
+		assertEquals(Arrays.asList("Engineering", "Operations", "Sales", "Unassigned"),
+				new ArrayList<>(report.getDepartments().keySet()));
+		assertTotal(2, 2, "150", report.getDepartments().get("Engineering"));
+		assertTotal(2, 1, "10", report.getDepartments().get("Sales"));
+		assertTotal(1, 1, "25", report.getDepartments().get("Unassigned"));
+
+		// 2 is only counted under its first manager, and the cycle is cut at 6
+		assertEquals(Arrays.asList("1", "3", "6"), new ArrayList<>(report.getManagers().keySet()));
+		assertTotal(4, 3, "175", report.getManagers().get("1"));
+		assertTotal(2, 1, "25", report.getManagers().get("3"));
+		assertTotal(2, 2, "2", report.getManagers().get("6"));
+	}
+
+	@Test
+	public void testFindPayroll_NoCompensation()
+	{
+		LocalDate asOf = LocalDate.of(2024, 1, 1);
+		when(employeeRepository.streamAll(null, null)).thenReturn(Arrays.asList(employee("1", "Engineering")).stream());
+		when(compensationRepository.findLatest(null, asOf)).thenReturn(new ArrayList<>());
+
+		PayrollReport report = payrollService.findPayroll(asOf);
+
+		assertTotal(1, 0, "0", report.getTotal());
+		assertNull(report.getTotal().getAverageSalary());
+		assertEquals(0, report.getManagers().size());
+	}
+
+	private static void assertTotal(int employees, int paidEmployees, String totalSalary, PayrollTotal actual)
+	{
+		assertEquals(employees, actual.getEmployees());
+		assertEquals(paidEmployees, actual.getPaidEmployees());
+		assertEquals(0, new BigDecimal(totalSalary).compareTo(actual.getTotalSalary()));
+	}
+
+	private static Employee employee(String employeeId, String department, String... directReportIds)
+	{
+		Employee employee = new Employee();
+		employee.setEmployeeId(employeeId);
+		employee.setDepartment(department);
+		if (directReportIds.length > 0)
+		{
+			List<Employee> directReports = new ArrayList<>();
+			for (String directReportId : directReportIds)
+			{
+				Employee directReport = new Employee();
+				directReport.setEmployeeId(directReportId);
+				directReports.add(directReport);
+			}
+			employee.setDirectReports(directReports);
+		}
+		return employee;
+	}
+
+	private static CompensationRecord salary(String employeeId, String salary)
+	{
+		Compensation compensation = new Compensation();
+		compensation.setSalary(new BigDecimal(salary));
+		compensation.setEffectiveDate(LocalDate.of(2020, 1, 1));
+		return CompensationRecord.of(employeeId, compensation);
+	}
+}
@@ -0,0 +1,55 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Runs every REST test in EmployeeServiceImplTest against the WebFlux
+ * endpoints and reactive Mongo repositories of the reactive profile.
+ */
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.main.web-application-type=reactive")
+public class ReactiveEmployeeServiceImplTest extends EmployeeServiceImplTest {
+
+	@Autowired
+	private ReactiveWebServerApplicationContext context;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@LocalServerPort
+	private int port;
+
+	/**
+	 * The JDK client behind TestRestTemplate sends request bodies chunked, as most
+	 * clients do. Every POST goes out on the same kept alive connection, so a
+	 * server that drops it after a chunked request fails one of them.
+	 */
+	@Test
+	public void testChunkedRequestBodies()
+	{
+		assertTrue(context.getWebServer() instanceof NettyWebServer);
+
+		for (int i = 0; i < 100; i++)
+		{
+			Employee employee = new Employee();
+			employee.setFirstName("Chunked");
+			employee.setLastName("Request " + i);
+			assertEquals(HttpStatus.OK, restTemplate
+					.postForEntity("http://localhost:" + port + "/employee", employee, Employee.class).getStatusCode());
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.service.ReactiveEmployeeService;
+
+/**
+ * Checks the reactive service answers reporting structures from the engine set
+ * by reporting.engine, as the blocking service does, rather than always walking
+ * the org chart.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("reactive")
+@TestPropertySource(locations = "classpath:application.properties", properties = "reporting.engine=index")
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+public class ReactiveReportingEngineTest {
+
+	private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+	private static final String RINGO_STARR_ID = "03aa1462-ffa9-4978-901b-7c001562cf6f";
+
+	@Autowired
+	private ReactiveEmployeeService reactiveEmployeeService;
+
+	@Autowired
+	private EmployeeServiceImpl employeeService;
+
+	@Autowired
+	private OrgGraphIndex orgGraphIndex;
+
+	@Test
+	public void testIndexEngine() throws ReportingLimitExceededException
+	{
+		// Taken out of the index only, so an answer from a walk of the store would differ
+		orgGraphIndex.setDirectReports(RINGO_STARR_ID, null);
+		try
+		{
+			ReportingStructure reportingStructure = reactiveEmployeeService.findReportingStructure(JOHN_LENNON_ID).block();
+			assertEquals(orgGraphIndex.countReports(JOHN_LENNON_ID).getNumberOfReports(),
+					(long) reportingStructure.getNumberOfReports());
+			assertEquals(employeeService.findReportingStructure(JOHN_LENNON_ID).getNumberOfReports(),
+					reportingStructure.getNumberOfReports());
+
+			List<String> ids = Arrays.asList(JOHN_LENNON_ID, RINGO_STARR_ID);
+			assertEquals(counts(employeeService.findReportingStructures(ids)),
+					counts(reactiveEmployeeService.findReportingStructures(ids).block()));
+		}
+		finally
+		{
+			orgGraphIndex.init();
+		}
+	}
+
+	private static List<Integer> counts(List<ReportingStructure> reportingStructures)
+	{
+		return reportingStructures.stream().map(ReportingStructure::getNumberOfReports).collect(Collectors.toList());
+	}
+}
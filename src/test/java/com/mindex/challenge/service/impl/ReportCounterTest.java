@@ -0,0 +1,101 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mindex.challenge.data.ReportCount;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+
+public class ReportCounterTest {
+
+	private ReportCounter reportCounter;
+
+	/**
+	 * Keeps the seeded org chart, with stuart listed under george but not
+	 * fetched
+	 *
+	 * <pre>
+	 *                  john
+	 *                /      \
+	 *             paul     ringo
+	 *                     /     \
+	 *                   pete   george
+	 *                             |
+	 *                          (stuart)
+	 * </pre>
+	 */
+	@Before
+	public void setup()
+	{
+		reportCounter = new ReportCounter();
+		reportCounter.add("john", Arrays.asList("paul", "ringo"));
+		reportCounter.add("paul", null);
+		reportCounter.add("ringo", Arrays.asList("pete", "george"));
+		reportCounter.add("pete", Arrays.asList());
+		reportCounter.add("george", Arrays.asList("stuart"));
+	}
+
+	@Test
+	public void testCountBottomUp() throws ReportingLimitExceededException
+	{
+		assertEquals(new ReportCount(5, 3), reportCounter.count("john", budget("john")));
+		assertEquals(new ReportCount(3, 2), reportCounter.count("ringo", budget("ringo")));
+		assertEquals(new ReportCount(0, 0), reportCounter.count("paul", budget("paul")));
+		assertEquals(new ReportCount(0, 0), reportCounter.count("stuart", budget("stuart")));
+	}
+
+	@Test
+	public void testTwoManagers() throws ReportingLimitExceededException
+	{
+		// Pete is listed by paul and ringo, and only counted once underneath john
+		reportCounter.add("paul", Arrays.asList("pete"));
+
+		assertEquals(new ReportCount(5, 3), reportCounter.count("john", budget("john")));
+		assertEquals(new ReportCount(1, 1), reportCounter.count("paul", budget("paul")));
+	}
+
+	@Test
+	public void testCycle() throws ReportingLimitExceededException
+	{
+		reportCounter.add("pete", Arrays.asList("john"));
+
+		assertEquals(new ReportCount(5, 3), reportCounter.count("john", budget("john")));
+		assertEquals(new ReportCount(5, 3), reportCounter.count("ringo", budget("ringo")));
+	}
+
+	@Test
+	public void testLimits() throws ReportingLimitExceededException
+	{
+		try
+		{
+			reportCounter.count("john", new ReportingBudget("john", 2, 100));
+			fail("Should have failed as the reports go past the max depth.");
+		}
+		catch (ReportingLimitExceededException rlee)
+		{
+			assertEquals("Reporting structure for employee john is more than 2 levels deep, the limit set by reporting.max-depth.", rlee.getMessage());
+		}
+
+		// The count is memoised, but still checked against the limits of each employee
+		assertEquals(new ReportCount(3, 2), reportCounter.count("ringo", new ReportingBudget("ringo", 2, 100)));
+		try
+		{
+			reportCounter.count("ringo", new ReportingBudget("ringo", 2, 2));
+			fail("Should have failed as there are more reports than the max nodes.");
+		}
+		catch (ReportingLimitExceededException rlee)
+		{
+			assertEquals("Reporting structure for employee ringo has more than 2 reports, the limit set by reporting.max-nodes.", rlee.getMessage());
+		}
+	}
+
+	private static ReportingBudget budget(String employeeId)
+	{
+		return new ReportingBudget(employeeId, 100, 100);
+	}
+}
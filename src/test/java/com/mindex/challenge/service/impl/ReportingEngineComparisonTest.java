@@ -0,0 +1,108 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.exception.ReportingLimitExceededException;
+import com.mindex.challenge.load.OrgChart;
+import com.mindex.challenge.load.OrgChartGenerator;
+
+/**
+ * Runs the in-process breadth first search and the $graphLookup aggregation
+ * over the same generated org charts and checks they agree. The embedded
+ * mongo-java-server only implements part of $graphLookup, so the aggregation
+ * side is skipped when the backend can not resolve the seeded org chart.
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = "reporting.max-depth=1000")
+@SpringBootTest
+public class ReportingEngineComparisonTest {
+
+	private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+	private static final int MAX_DEPTH = 1000;
+
+	@Autowired
+	private EmployeeRepository employeeRepository;
+
+	@Autowired
+	private EmployeeServiceImpl employeeService;
+
+	private boolean graphLookupSupported;
+
+	@Before
+	public void checkGraphLookupSupport()
+	{
+		try
+		{
+			graphLookupSupported = employeeRepository.countAllReports(JOHN_LENNON_ID, MAX_DEPTH).getNumberOfReports() == 4;
+		}
+		catch (RuntimeException e)
+		{
+			graphLookupSupported = false;
+		}
+	}
+
+	@Test
+	public void testWideHierarchy() throws ReportingLimitExceededException
+	{
+		List<Employee> employees = new ArrayList<>();
+		OrgChart chart = OrgChartGenerator.wide(501).generate(employees::addAll, records -> {});
+		assertEnginesAgree(employees, chart.getRootId(), 500);
+	}
+
+	@Test
+	public void testDeepHierarchy() throws ReportingLimitExceededException
+	{
+		List<Employee> employees = new ArrayList<>();
+		OrgChart chart = OrgChartGenerator.deep(201, 1).generate(employees::addAll, records -> {});
+		assertEnginesAgree(employees, chart.getRootId(), 200);
+	}
+
+	@Test
+	public void testBalancedHierarchy() throws ReportingLimitExceededException
+	{
+		List<Employee> employees = new ArrayList<>();
+		// 4 + 16 + 64 + 256 + 1024
+		OrgChart chart = OrgChartGenerator.balanced(1365, 4).generate(employees::addAll, records -> {});
+		assertEnginesAgree(employees, chart.getRootId(), 1364);
+	}
+
+	@Test
+	public void testCyclicHierarchy() throws ReportingLimitExceededException
+	{
+		List<Employee> employees = new ArrayList<>();
+		OrgChart chart = OrgChartGenerator.balanced(15, 2).generate(employees::addAll, records -> {});
+
+		// Have one of the leaves manage the root
+		Employee leaf = employees.get(employees.size() - 1);
+		Employee root = new Employee();
+		root.setEmployeeId(chart.getRootId());
+		leaf.setDirectReports(List.of(OrgChartGenerator.reference(root)));
+
+		assertEnginesAgree(employees, chart.getRootId(), 14);
+	}
+
+	private void assertEnginesAgree(List<Employee> employees, String rootId, int expectedReports)
+			throws ReportingLimitExceededException
+	{
+		employeeRepository.insert(employees);
+
+		assertEquals(expectedReports, employeeService.countReports(employeeRepository.findByEmployeeId(rootId)));
+
+		Assume.assumeTrue("Mongo backend does not support $graphLookup over directReports", graphLookupSupported);
+		assertEquals(expectedReports, employeeRepository.countAllReports(rootId, MAX_DEPTH).getNumberOfReports());
+	}
+}
@@ -0,0 +1,72 @@
+package com.mindex.challenge.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Employee;
+
+/**
+ * Requests the reporting tree of John Lennon from the seed data, two direct
+ * reports with two more under Ringo Starr, with reporting.max-nodes set
+ * between the two levels.
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = "reporting.max-nodes=2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReportingTreeLimitTest {
+
+	private static final String JOHN_LENNON_ID = "16a596ae-edd3-4847-99fe-c4518e82c86f";
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	public void testOverLimit() throws Exception
+	{
+		// Refused before any of the tree is written, rather than cut off part way
+		ResponseEntity<String> response = restTemplate.getForEntity(treeUrl(), String.class, JOHN_LENNON_ID);
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+
+		ProblemDetail problem = objectMapper.readValue(response.getBody(), ProblemDetail.class);
+		assertEquals(HttpStatus.BAD_REQUEST.value(), problem.getStatus());
+		assertEquals("Reporting structure too large", problem.getTitle());
+		assertEquals("Reporting structure for employee " + JOHN_LENNON_ID + " has more than 2 reports, "
+				+ "the limit set by reporting.max-nodes.", problem.getDetail());
+	}
+
+	@Test
+	public void testWithinLimit()
+	{
+		ResponseEntity<Employee> response = restTemplate.getForEntity(treeUrl() + "?maxDepth=1", Employee.class,
+				JOHN_LENNON_ID);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(2, response.getBody().getDirectReports().size());
+		assertTrue(response.getBody().getDirectReports().stream().allMatch(report -> report.getLastName() != null));
+	}
+
+	private String treeUrl()
+	{
+		return "http://localhost:" + port + "/reportingStructure/{id}/tree";
+	}
+}